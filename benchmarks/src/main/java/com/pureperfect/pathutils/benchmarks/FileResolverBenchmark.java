@@ -0,0 +1,42 @@
+/*
+ * Copyright [2013] PurePerfect.com Licensed under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except in compliance with the
+ * License.
+ * 
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pureperfect.pathutils.benchmarks;
+
+import java.io.IOException;
+
+import com.pureperfect.pathutils.PathResolver;
+
+/**
+ * {@link ResolverBenchmark} for a directory tree. Listing reads the top
+ * directory, which holds one subdirectory per hundred files.
+ * 
+ * @version 0.3
+ * @since 0.3
+ */
+public class FileResolverBenchmark extends ResolverBenchmark
+{
+	@Override
+	protected PathResolver createResolver(int entries) throws IOException
+	{
+		return PathResolver.createFor(Fixtures.tree(entries));
+	}
+
+	@Override
+	protected String listExpression(int directory)
+	{
+		return "dir" + directory + ".*";
+	}
+}
@@ -0,0 +1,192 @@
+/*
+ * Copyright [2013] PurePerfect.com Licensed under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except in compliance with the
+ * License.
+ * 
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pureperfect.pathutils.benchmarks;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Synthetic archives and directory trees. Entries are spread over
+ * directories of {@link #PER_DIRECTORY} files each, named
+ * "dir&lt;d&gt;/file&lt;n&gt;.txt". Fixtures are generated once into the
+ * temporary directory and reused by later runs, since the largest ones take
+ * a while to write.
+ * 
+ * @version 0.3
+ * @since 0.3
+ */
+final class Fixtures
+{
+	static final int PER_DIRECTORY = 100;
+
+	private static final byte[] CONTENT = content(256);
+
+	private Fixtures()
+	{
+		// static methods only
+	}
+
+	/**
+	 * The name of an entry, e.g. "dir3/file312.txt".
+	 */
+	static String name(int entry)
+	{
+		return directory(entry / PER_DIRECTORY) + "file" + entry + ".txt";
+	}
+
+	/**
+	 * The name of a directory, e.g. "dir3/".
+	 */
+	static String directory(int directory)
+	{
+		return "dir" + directory + "/";
+	}
+
+	/**
+	 * The names of the entries, in a shuffled but repeatable order, so that
+	 * lookups do not walk the archive in order.
+	 */
+	static String[] names(int entries, int count)
+	{
+		String[] names = new String[count];
+
+		long seed = entries;
+
+		for (int i = 0; i < count; ++i)
+		{
+			seed = seed * 6364136223846793005L + 1442695040888963407L;
+
+			names[i] = name((int) ((seed >>> 33) % entries));
+		}
+
+		return names;
+	}
+
+	/**
+	 * A jar with the given number of deflated entries.
+	 */
+	static synchronized File archive(int entries) throws IOException
+	{
+		File archive = new File(root(), "archive-" + entries + ".jar");
+
+		if (archive.isFile())
+			return archive;
+
+		File partial = new File(root(), archive.getName() + ".part");
+
+		ZipOutputStream out = new ZipOutputStream(new FileOutputStream(
+				partial));
+
+		try
+		{
+			for (int i = 0; i < entries; ++i)
+			{
+				if (i % PER_DIRECTORY == 0)
+				{
+					out.putNextEntry(new ZipEntry(directory(i / PER_DIRECTORY)));
+					out.closeEntry();
+				}
+
+				out.putNextEntry(new ZipEntry(name(i)));
+				out.write(CONTENT);
+				out.closeEntry();
+			}
+		}
+		finally
+		{
+			out.close();
+		}
+
+		rename(partial, archive);
+
+		return archive;
+	}
+
+	/**
+	 * A directory tree with the given number of files. The tree is the only
+	 * child of its parent directory, so that the parent can be the root of a
+	 * class loader that sees no other fixtures.
+	 */
+	static synchronized File tree(int entries) throws IOException
+	{
+		File parent = new File(root(), "classpath-" + entries);
+
+		File tree = new File(parent, "tree-" + entries);
+
+		if (tree.isDirectory())
+			return tree;
+
+		File partial = new File(root(), parent.getName() + ".part");
+
+		for (int i = 0; i < entries; ++i)
+		{
+			File file = new File(new File(partial, tree.getName()), name(i));
+
+			if (i % PER_DIRECTORY == 0 && !file.getParentFile().mkdirs()
+					&& !file.getParentFile().isDirectory())
+				throw new IOException("Unable to create: "
+						+ file.getParentFile());
+
+			OutputStream out = new FileOutputStream(file);
+
+			try
+			{
+				out.write(CONTENT);
+			}
+			finally
+			{
+				out.close();
+			}
+		}
+
+		rename(partial, parent);
+
+		return tree;
+	}
+
+	private static File root() throws IOException
+	{
+		File root = new File(System.getProperty("java.io.tmpdir"),
+				"pathutils-benchmarks");
+
+		if (!root.mkdirs() && !root.isDirectory())
+			throw new IOException("Unable to create: " + root);
+
+		return root;
+	}
+
+	private static void rename(File from, File to) throws IOException
+	{
+		if (!from.renameTo(to))
+			throw new IOException("Unable to rename " + from + " to " + to);
+	}
+
+	private static byte[] content(int size)
+	{
+		byte[] content = new byte[size];
+
+		for (int i = 0; i < size; ++i)
+		{
+			content[i] = (byte) ('a' + i % 26);
+		}
+
+		return content;
+	}
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright [2013] PurePerfect.com Licensed under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except in compliance with the
+ * License.
+ * 
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pureperfect.pathutils.benchmarks;
+
+import java.io.File;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks with the GC profiler, so that every result comes with
+ * the allocation rate. Takes the usual JMH command line options.
+ * <p>
+ * Unless another result file is given with -rff, the results are written as
+ * JSON to results/&lt;revision&gt;.json, where the revision is the "revision"
+ * system property, e.g. the commit that was measured. Result files of two
+ * revisions can be compared side by side with any JMH result viewer.
+ * </p>
+ * 
+ * @version 0.3
+ * @since 0.3
+ */
+public class Main
+{
+	public static void main(String[] args) throws Exception
+	{
+		CommandLineOptions commandLine = new CommandLineOptions(args);
+
+		ChainedOptionsBuilder options = new OptionsBuilder()
+				.parent(commandLine).addProfiler(GCProfiler.class);
+
+		if (!commandLine.getResult().hasValue())
+		{
+			File results = new File("results");
+
+			results.mkdirs();
+
+			options.resultFormat(ResultFormatType.JSON).result(
+					new File(results, System.getProperty("revision", "latest")
+							+ ".json").getPath());
+		}
+
+		new Runner(options.build()).run();
+	}
+}
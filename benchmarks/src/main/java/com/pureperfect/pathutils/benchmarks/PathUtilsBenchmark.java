@@ -0,0 +1,149 @@
+/*
+ * Copyright [2013] PurePerfect.com Licensed under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except in compliance with the
+ * License.
+ * 
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pureperfect.pathutils.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.pureperfect.pathutils.PathUtils;
+
+/**
+ * Path manipulation in {@link PathUtils} over typical path shapes.
+ * 
+ * @version 0.3
+ * @since 0.3
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PathUtilsBenchmark
+{
+	/**
+	 * <ul>
+	 * <li>deep: a relative path twenty directories deep</li>
+	 * <li>navigation: many "./" and "../" segments</li>
+	 * <li>long: a few names of two hundred characters</li>
+	 * <li>short: a single file name</li>
+	 * </ul>
+	 */
+	@Param({ "deep", "navigation", "long", "short" })
+	public String shape;
+
+	private String path;
+
+	@Setup
+	public void setUp()
+	{
+		this.path = path(this.shape);
+	}
+
+	static String path(String shape)
+	{
+		StringBuilder path = new StringBuilder();
+
+		if ("deep".equals(shape))
+		{
+			for (int i = 0; i < 20; ++i)
+			{
+				path.append("dir").append(i).append('/');
+			}
+
+			path.append("file.txt");
+		}
+		else if ("navigation".equals(shape))
+		{
+			for (int i = 0; i < 10; ++i)
+			{
+				path.append("dir").append(i).append("/./sub/../");
+			}
+
+			for (int i = 0; i < 5; ++i)
+			{
+				path.append("../");
+			}
+
+			path.append("file.txt");
+		}
+		else if ("long".equals(shape))
+		{
+			for (int i = 0; i < 4; ++i)
+			{
+				for (int j = 0; j < 200; ++j)
+				{
+					path.append((char) ('a' + (i + j) % 26));
+				}
+
+				path.append('/');
+			}
+
+			path.append("file.txt");
+		}
+		else if ("short".equals(shape))
+		{
+			path.append("file.txt");
+		}
+		else
+		{
+			throw new IllegalArgumentException("Unknown shape: " + shape);
+		}
+
+		return path.toString();
+	}
+
+	@Benchmark
+	public StringBuilder normalizeToDir()
+	{
+		return PathUtils.normalizeToDir(this.path);
+	}
+
+	@Benchmark
+	public StringBuilder processNavigation()
+	{
+		return PathUtils.processNavigation(this.path);
+	}
+
+	@Benchmark
+	public StringBuilder processUpDirectories()
+	{
+		return PathUtils.processUpDirectories(this.path);
+	}
+
+	@Benchmark
+	public String trimToFile()
+	{
+		return PathUtils.trimToFile(this.path);
+	}
+
+	@Benchmark
+	public String resolvePath()
+	{
+		return PathUtils.resolvePath("parent/dir/file.txt", this.path);
+	}
+}
@@ -0,0 +1,194 @@
+/*
+ * Copyright [2013] PurePerfect.com Licensed under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except in compliance with the
+ * License.
+ * 
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pureperfect.pathutils.benchmarks;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.pureperfect.pathutils.PathResolver;
+
+/**
+ * Resolving, opening and listing paths as the number of entries grows, on
+ * one thread and contended by as many threads as there are processors. Each
+ * operation is reported as throughput and as sampled latency.
+ * 
+ * @version 0.3
+ * @since 0.3
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public abstract class ResolverBenchmark
+{
+	private static final int NAMES = 4096;
+
+	@Param({ "100", "10000", "1000000" })
+	public int entries;
+
+	/**
+	 * The context class loader of the benchmark threads, for resolvers that
+	 * use it.
+	 */
+	static volatile ClassLoader contextClassLoader;
+
+	private PathResolver resolver;
+
+	private String[] names;
+
+	private String[] expressions;
+
+	@Setup
+	public void setUp() throws IOException
+	{
+		contextClassLoader = null;
+
+		this.resolver = this.createResolver(this.entries);
+		this.names = Fixtures.names(this.entries, NAMES);
+		this.expressions = new String[NAMES];
+
+		int directories = (this.entries + Fixtures.PER_DIRECTORY - 1)
+				/ Fixtures.PER_DIRECTORY;
+
+		for (int i = 0; i < NAMES; ++i)
+		{
+			this.expressions[i] = this.listExpression(i % directories);
+		}
+	}
+
+	/**
+	 * Create the resolver for the fixture with the given number of entries.
+	 */
+	protected abstract PathResolver createResolver(int entries)
+			throws IOException;
+
+	/**
+	 * The expression passed to {@link PathResolver#getSubfiles(String)} to
+	 * list the given directory of the fixture.
+	 */
+	protected abstract String listExpression(int directory);
+
+	/**
+	 * Where each thread is in the shuffled names. Benchmark scoped state is
+	 * set up first, so the context class loader is known by then.
+	 */
+	@State(Scope.Thread)
+	public static class Cursor
+	{
+		private int next;
+
+		private ClassLoader previous;
+
+		@Setup(Level.Trial)
+		public void setUp()
+		{
+			this.previous = Thread.currentThread().getContextClassLoader();
+
+			if (contextClassLoader != null)
+				Thread.currentThread().setContextClassLoader(
+						contextClassLoader);
+		}
+
+		@TearDown(Level.Trial)
+		public void tearDown()
+		{
+			Thread.currentThread().setContextClassLoader(this.previous);
+		}
+
+		int next()
+		{
+			return this.next++ & (NAMES - 1);
+		}
+	}
+
+	@Benchmark
+	public Object resolve(Cursor cursor)
+	{
+		return this.resolver.resolve(this.names[cursor.next()]);
+	}
+
+	@Benchmark
+	@Threads(Threads.MAX)
+	public Object resolveContended(Cursor cursor)
+	{
+		return this.resolve(cursor);
+	}
+
+	@Benchmark
+	public long openStream(Cursor cursor) throws IOException
+	{
+		InputStream in = this.resolver.openStream(this.names[cursor.next()]);
+
+		try
+		{
+			long length = 0;
+
+			byte[] buffer = new byte[512];
+
+			for (int count = in.read(buffer); count >= 0; count = in
+					.read(buffer))
+			{
+				length += count;
+			}
+
+			return length;
+		}
+		finally
+		{
+			in.close();
+		}
+	}
+
+	@Benchmark
+	@Threads(Threads.MAX)
+	public long openStreamContended(Cursor cursor) throws IOException
+	{
+		return this.openStream(cursor);
+	}
+
+	@Benchmark
+	public List<String> getSubfiles(Cursor cursor) throws IOException
+	{
+		return this.resolver.getSubfiles(this.expressions[cursor.next()]);
+	}
+
+	@Benchmark
+	@Threads(Threads.MAX)
+	public List<String> getSubfilesContended(Cursor cursor)
+			throws IOException
+	{
+		return this.getSubfiles(cursor);
+	}
+}
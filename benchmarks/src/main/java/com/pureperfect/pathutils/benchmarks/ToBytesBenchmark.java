@@ -0,0 +1,121 @@
+/*
+ * Copyright [2013] PurePerfect.com Licensed under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except in compliance with the
+ * License.
+ * 
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pureperfect.pathutils.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.pureperfect.pathutils.PathUtils;
+
+/**
+ * Reading whole streams with {@link PathUtils#toBytes(InputStream)}, from
+ * memory and from a file, with and without a size hint.
+ * 
+ * @version 0.3
+ * @since 0.3
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx1g")
+public class ToBytesBenchmark
+{
+	/**
+	 * 1 KB, 64 KB, 1 MB and 100 MB.
+	 */
+	@Param({ "1024", "65536", "1048576", "104857600" })
+	public int size;
+
+	private byte[] content;
+
+	private File file;
+
+	@Setup
+	public void setUp() throws IOException
+	{
+		this.content = new byte[this.size];
+
+		new Random(this.size).nextBytes(this.content);
+
+		this.file = File.createTempFile("tobytes", ".bin");
+
+		FileOutputStream out = new FileOutputStream(this.file);
+
+		try
+		{
+			out.write(this.content);
+		}
+		finally
+		{
+			out.close();
+		}
+	}
+
+	@TearDown
+	public void tearDown()
+	{
+		this.file.delete();
+	}
+
+	@Benchmark
+	public byte[] memory() throws IOException
+	{
+		return PathUtils.toBytes(new ByteArrayInputStream(this.content));
+	}
+
+	@Benchmark
+	public byte[] memoryWithHint() throws IOException
+	{
+		return PathUtils.toBytes(new ByteArrayInputStream(this.content),
+				this.size);
+	}
+
+	@Benchmark
+	public byte[] file() throws IOException
+	{
+		InputStream in = new FileInputStream(this.file);
+
+		try
+		{
+			return PathUtils.toBytes(in);
+		}
+		finally
+		{
+			in.close();
+		}
+	}
+}
@@ -0,0 +1,314 @@
+/*
+ * Copyright [2013] PurePerfect.com Licensed under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except in compliance with the
+ * License.
+ * 
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pureperfect.pathutils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * The raw bytes of an archive, addressed by absolute position. Implementations
+ * must be safe for concurrent reads.
+ * 
+ * @version 0.3
+ * @since 0.3
+ */
+abstract class ArchiveData
+{
+	/**
+	 * Streams longer than this are spooled to a temporary file instead of the
+	 * heap.
+	 */
+	static final int SPOOL_THRESHOLD = 1 << 28;
+
+	/**
+	 * Memory map the archive file.
+	 * 
+	 * @param file
+	 *            the archive file
+	 * @return the mapped archive
+	 * @throws IOException
+	 *             if the file cannot be mapped
+	 */
+	static ArchiveData map(File file) throws IOException
+	{
+		if (file.length() > Integer.MAX_VALUE)
+			return SegmentedArchiveData.map(file,
+					SegmentedArchiveData.SEGMENT_SIZE);
+
+		return BufferArchiveData.map(file);
+	}
+
+	/**
+	 * Read an archive from a stream. Small archives are kept on the heap; large
+	 * ones are written to a temporary file that is then mapped, so archives of
+	 * any size can be loaded.
+	 * 
+	 * @param in
+	 *            the archive stream
+	 * @return the archive
+	 * @throws IOException
+	 *             if the stream cannot be read
+	 */
+	static ArchiveData load(InputStream in) throws IOException
+	{
+		return load(in, -1, SPOOL_THRESHOLD);
+	}
+
+	/**
+	 * Read an archive of known size from a stream. Archives that fit on the
+	 * heap are read into a single allocation.
+	 * 
+	 * @param in
+	 *            the archive stream
+	 * @param sizeHint
+	 *            the expected size of the archive, or -1 if unknown
+	 * @return the archive
+	 * @throws IOException
+	 *             if the stream cannot be read
+	 */
+	static ArchiveData load(InputStream in, long sizeHint) throws IOException
+	{
+		return load(in, sizeHint, SPOOL_THRESHOLD);
+	}
+
+	static ArchiveData load(InputStream in, long sizeHint, int spoolThreshold)
+			throws IOException
+	{
+		if (sizeHint >= 0 && sizeHint <= spoolThreshold)
+			return new BufferArchiveData(PathUtils.toBytes(in, sizeHint));
+
+		ByteArrayOutputStream head = new ByteArrayOutputStream();
+
+		byte[] buffer = new byte[8192];
+
+		for (int count = in.read(buffer); count >= 0; count = in.read(buffer))
+		{
+			head.write(buffer, 0, count);
+
+			if (head.size() > spoolThreshold)
+				return spool(head, buffer, in);
+		}
+
+		return new BufferArchiveData(head.toByteArray());
+	}
+
+	private static ArchiveData spool(ByteArrayOutputStream head,
+			byte[] buffer, InputStream in) throws IOException
+	{
+		File spool = File.createTempFile("pathutils", ".zip");
+
+		try
+		{
+			OutputStream out = new FileOutputStream(spool);
+
+			try
+			{
+				head.writeTo(out);
+
+				for (int count = in.read(buffer); count >= 0; count = in
+						.read(buffer))
+				{
+					out.write(buffer, 0, count);
+				}
+			}
+			finally
+			{
+				out.close();
+			}
+
+			return map(spool);
+		}
+		finally
+		{
+			// A mapping outlives its file where the platform allows it.
+			if (!spool.delete())
+				spool.deleteOnExit();
+		}
+	}
+
+	/**
+	 * The length of the archive in bytes.
+	 * 
+	 * @return the length of the archive in bytes.
+	 */
+	abstract long size();
+
+	/**
+	 * Whether every read is a round trip to a server, so that reading a little
+	 * more at once is better than reading twice.
+	 * 
+	 * @return true if the archive is read from a server
+	 */
+	boolean isRemote()
+	{
+		return false;
+	}
+
+	/**
+	 * Read exactly <code>length</code> bytes starting at
+	 * <code>position</code>.
+	 * 
+	 * @param position
+	 *            the position in the archive
+	 * @param b
+	 *            the destination
+	 * @param off
+	 *            the offset in the destination
+	 * @param length
+	 *            the number of bytes to read
+	 * @throws IOException
+	 *             if the range is outside of the archive or cannot be read
+	 */
+	abstract void read(long position, byte[] b, int off, int length)
+			throws IOException;
+
+	/**
+	 * Read a region of the archive. Implementations backed by a buffer return a
+	 * view instead of a copy.
+	 * 
+	 * @param position
+	 *            the position in the archive
+	 * @param length
+	 *            the number of bytes to read
+	 * @return a buffer holding the region, positioned at zero
+	 * @throws IOException
+	 *             if the range is outside of the archive or cannot be read
+	 */
+	ByteBuffer read(long position, int length) throws IOException
+	{
+		byte[] b = new byte[length];
+
+		this.read(position, b, 0, length);
+
+		return ByteBuffer.wrap(b);
+	}
+
+	/**
+	 * Open a stream over a region of the archive.
+	 * 
+	 * @param position
+	 *            the position in the archive
+	 * @param length
+	 *            the number of bytes in the region
+	 * @return the stream
+	 * @throws IOException
+	 *             if the region cannot be opened
+	 */
+	InputStream openStream(long position, long length) throws IOException
+	{
+		checkRange(position, length);
+
+		return new RegionInputStream(this, position, length);
+	}
+
+	/**
+	 * Copy the whole archive onto the heap.
+	 * 
+	 * @return the archive bytes
+	 * @throws IOException
+	 *             if the archive cannot be read
+	 */
+	byte[] toByteArray() throws IOException
+	{
+		if (this.size() > Integer.MAX_VALUE - 8)
+			throw new IOException("Archive is too large for a byte array: "
+					+ this.size());
+
+		byte[] b = new byte[(int) this.size()];
+
+		this.read(0, b, 0, b.length);
+
+		return b;
+	}
+
+	void checkRange(long position, long length) throws IOException
+	{
+		if (position < 0 || length < 0 || position + length > this.size())
+		{
+			throw new EOFException("Range " + position + "+" + length
+					+ " is outside of the archive (" + this.size()
+					+ " bytes)");
+		}
+	}
+
+	/**
+	 * Reads a region of the archive in chunks through
+	 * {@link ArchiveData#read(long, byte[], int, int)}.
+	 */
+	static class RegionInputStream extends InputStream
+	{
+		private final ArchiveData data;
+
+		private long position;
+
+		private final long end;
+
+		RegionInputStream(ArchiveData data, long position, long length)
+		{
+			this.data = data;
+			this.position = position;
+			this.end = position + length;
+		}
+
+		@Override
+		public int read() throws IOException
+		{
+			byte[] b = new byte[1];
+
+			return this.read(b, 0, 1) < 0 ? -1 : b[0] & 0xFF;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException
+		{
+			if (len == 0)
+				return 0;
+
+			if (this.position >= this.end)
+				return -1;
+
+			int count = (int) Math.min(len, this.end - this.position);
+
+			this.data.read(this.position, b, off, count);
+
+			this.position += count;
+
+			return count;
+		}
+
+		@Override
+		public long skip(long n) throws IOException
+		{
+			long skipped = Math.max(0, Math.min(n, this.end - this.position));
+
+			this.position += skipped;
+
+			return skipped;
+		}
+
+		@Override
+		public int available() throws IOException
+		{
+			return (int) Math.min(Integer.MAX_VALUE, this.end - this.position);
+		}
+	}
+}
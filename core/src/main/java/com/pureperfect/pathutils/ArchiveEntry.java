@@ -0,0 +1,240 @@
+/*
+ * Copyright [2013] PurePerfect.com Licensed under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except in compliance with the
+ * License.
+ * 
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pureperfect.pathutils;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Represents an entry in an archive.
+ * 
+ * @author J. Chris Folsom
+ * @version 0.2
+ * @since 0.2
+ */
+public class ArchiveEntry
+{
+	private final ZipArchive archive;
+
+	private final String path;
+
+	private ZipIndex.Entry entry;
+
+	/**
+	 * Create a new archive entry.
+	 * 
+	 * @param path
+	 *            the path of the entry
+	 * 
+	 * @param zipData
+	 *            the bytes of the archive (i.e. not the entry in the archive).
+	 */
+	public ArchiveEntry(String path, byte[] zipData)
+	{
+		this(path, ZipArchive.wrap(zipData));
+	}
+
+	ArchiveEntry(String path, ZipArchive archive)
+	{
+		super();
+		this.archive = archive;
+		this.path = path;
+	}
+
+	ArchiveEntry(ZipIndex.Entry entry, ZipArchive archive)
+	{
+		this(entry.name, archive);
+		this.entry = entry;
+	}
+
+	/**
+	 * The archive bytes. Archives that were memory mapped are copied onto the
+	 * heap by this call.
+	 * 
+	 * @return The archive bytes.
+	 */
+	public byte[] getZipData()
+	{
+		try
+		{
+			return this.archive.getData().toByteArray();
+		}
+		catch (IOException e)
+		{
+			throw new PathResolutionException(e);
+		}
+	}
+
+	/**
+	 * The path of the entry.
+	 * 
+	 * @return The path of the entry.
+	 */
+	public String getPath()
+	{
+		return path;
+	}
+
+	/**
+	 * The archive this entry belongs to.
+	 * 
+	 * @return the archive
+	 */
+	ZipArchive getArchive()
+	{
+		return archive;
+	}
+
+	/**
+	 * Open a stream to the archive entry.
+	 * 
+	 * @return an InputStream
+	 * @throws PathResolutionException
+	 *             if the entry does not exist in the archive.
+	 */
+	public InputStream open() throws PathResolutionException
+	{
+		ZipIndex.Entry target = this.record();
+
+		try
+		{
+			return this.archive.open(target);
+		}
+		catch (IOException e)
+		{
+			throw new PathResolutionException(e);
+		}
+	}
+
+	/**
+	 * Read the whole entry, inflating it in one step rather than through a
+	 * stream.
+	 * 
+	 * @return the uncompressed bytes
+	 * @throws PathResolutionException
+	 *             if the entry does not exist in the archive.
+	 */
+	byte[] read() throws PathResolutionException
+	{
+		ZipIndex.Entry target = this.record();
+
+		try
+		{
+			return this.archive.read(target);
+		}
+		catch (IOException e)
+		{
+			throw new PathResolutionException(e);
+		}
+	}
+
+	/**
+	 * The uncompressed size of the entry.
+	 * 
+	 * @return the size in bytes
+	 * @throws PathResolutionException
+	 *             if the entry does not exist in the archive.
+	 */
+	public long getSize() throws PathResolutionException
+	{
+		return this.record().size;
+	}
+
+	/**
+	 * The size of the entry as stored in the archive.
+	 * 
+	 * @return the compressed size in bytes
+	 * @throws PathResolutionException
+	 *             if the entry does not exist in the archive.
+	 */
+	public long getCompressedSize() throws PathResolutionException
+	{
+		return this.record().compressedSize;
+	}
+
+	/**
+	 * The CRC-32 checksum of the uncompressed entry.
+	 * 
+	 * @return the checksum
+	 * @throws PathResolutionException
+	 *             if the entry does not exist in the archive.
+	 */
+	public long getCrc() throws PathResolutionException
+	{
+		return this.record().crc;
+	}
+
+	/**
+	 * The compression method, e.g. {@link java.util.zip.ZipEntry#STORED} or
+	 * {@link java.util.zip.ZipEntry#DEFLATED}.
+	 * 
+	 * @return the compression method
+	 * @throws PathResolutionException
+	 *             if the entry does not exist in the archive.
+	 */
+	public int getMethod() throws PathResolutionException
+	{
+		return this.record().method;
+	}
+
+	/**
+	 * The last modification time of the entry, as recorded by the archiver in
+	 * local time.
+	 * 
+	 * @return the time in milliseconds since the epoch
+	 * @throws PathResolutionException
+	 *             if the entry does not exist in the archive.
+	 */
+	public long getLastModified() throws PathResolutionException
+	{
+		return this.record().getLastModified();
+	}
+
+	/**
+	 * Whether or not the entry is a directory.
+	 * 
+	 * @return Whether or not the entry is a directory.
+	 * @throws PathResolutionException
+	 *             if the entry does not exist in the archive.
+	 */
+	public boolean isDirectory() throws PathResolutionException
+	{
+		return this.record().isDirectory();
+	}
+
+	/**
+	 * The central directory record, looked up on first use if this entry was
+	 * created from a path.
+	 */
+	private ZipIndex.Entry record()
+	{
+		ZipIndex.Entry target = this.entry;
+
+		if (target == null)
+		{
+			// Created directly from a path, which may be an expression.
+			target = this.archive.getIndex().find(this.path);
+
+			if (target == null)
+				throw new PathResolutionException("Unable to open entry: "
+						+ this.path);
+
+			this.entry = target;
+		}
+
+		return target;
+	}
+}
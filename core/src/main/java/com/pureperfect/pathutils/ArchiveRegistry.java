@@ -0,0 +1,245 @@
+/*
+ * Copyright [2013] PurePerfect.com Licensed under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except in compliance with the
+ * License.
+ * 
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pureperfect.pathutils;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Process wide registry of loaded archive files. Resolvers created for the
+ * same, unchanged file share one {@link ZipArchive}. The registry only holds
+ * weak references, so an archive is released once no resolver or entry uses it
+ * any more.
+ * <p>
+ * Each archive is loaded by the first thread to ask for it; other threads
+ * asking for the same file wait for it, while those asking for other files do
+ * not.
+ * </p>
+ * 
+ * @version 0.3
+ * @since 0.3
+ */
+final class ArchiveRegistry
+{
+	private static final ConcurrentMap<Key, FutureTask<ArchiveReference>> ARCHIVES = new ConcurrentHashMap<Key, FutureTask<ArchiveReference>>();
+
+	private static final ReferenceQueue<ZipArchive> RELEASED = new ReferenceQueue<ZipArchive>();
+
+	private ArchiveRegistry()
+	{
+		// static methods only
+	}
+
+	/**
+	 * Get the loaded archive for the file, loading it if this version of the
+	 * file is not loaded yet.
+	 * 
+	 * @param file
+	 *            the archive file
+	 * @return the archive
+	 */
+	static ZipArchive get(File file)
+	{
+		expungeReleased();
+
+		Key key;
+
+		try
+		{
+			key = new Key(file.getCanonicalPath(), file.length(),
+					file.lastModified());
+		}
+		catch (IOException e)
+		{
+			throw new PathResolutionException(e);
+		}
+
+		for (;;)
+		{
+			FutureTask<ArchiveReference> task = ARCHIVES.get(key);
+
+			Loader loader = null;
+
+			if (task == null)
+			{
+				loader = new Loader(key, file);
+
+				FutureTask<ArchiveReference> created = new FutureTask<ArchiveReference>(
+						loader);
+
+				loader.task = created;
+
+				task = ARCHIVES.putIfAbsent(key, created);
+
+				if (task == null)
+				{
+					task = created;
+					task.run();
+				}
+				else
+				{
+					loader = null;
+				}
+			}
+
+			ArchiveReference ref = result(key, task);
+
+			// The loading thread holds on to the archive it loaded.
+			ZipArchive archive = loader != null ? loader.archive : ref.get();
+
+			if (archive != null)
+				return archive;
+
+			// Released while we looked it up; load it again.
+			ARCHIVES.remove(key, task);
+		}
+	}
+
+	private static ArchiveReference result(Key key,
+			FutureTask<ArchiveReference> task)
+	{
+		try
+		{
+			return task.get();
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+
+			throw new PathResolutionException(e);
+		}
+		catch (ExecutionException e)
+		{
+			// Try again next time.
+			ARCHIVES.remove(key, task);
+
+			if (e.getCause() instanceof RuntimeException)
+				throw (RuntimeException) e.getCause();
+
+			if (e.getCause() instanceof Error)
+				throw (Error) e.getCause();
+
+			throw new PathResolutionException(e.getCause());
+		}
+	}
+
+	private static void expungeReleased()
+	{
+		for (Object ref = RELEASED.poll(); ref != null; ref = RELEASED.poll())
+		{
+			ArchiveReference released = (ArchiveReference) ref;
+
+			// Only remove the mapping if it has not been replaced.
+			ARCHIVES.remove(released.key, released.task);
+		}
+	}
+
+	/**
+	 * Maps the archive file, outside of any lock.
+	 */
+	private static final class Loader implements Callable<ArchiveReference>
+	{
+		private final Key key;
+
+		private final File file;
+
+		private FutureTask<ArchiveReference> task;
+
+		private ZipArchive archive;
+
+		Loader(Key key, File file)
+		{
+			this.key = key;
+			this.file = file;
+		}
+
+		@Override
+		public ArchiveReference call()
+		{
+			this.archive = ZipArchive.map(this.file);
+
+			return new ArchiveReference(this.key, this.task, this.archive,
+					RELEASED);
+		}
+	}
+
+	private static final class ArchiveReference extends
+			WeakReference<ZipArchive>
+	{
+		private final Key key;
+
+		private final FutureTask<ArchiveReference> task;
+
+		ArchiveReference(Key key, FutureTask<ArchiveReference> task,
+				ZipArchive archive, ReferenceQueue<ZipArchive> queue)
+		{
+			super(archive, queue);
+			this.key = key;
+			this.task = task;
+		}
+	}
+
+	private static final class Key
+	{
+		private final String canonicalPath;
+
+		private final long size;
+
+		private final long lastModified;
+
+		Key(String canonicalPath, long size, long lastModified)
+		{
+			this.canonicalPath = canonicalPath;
+			this.size = size;
+			this.lastModified = lastModified;
+		}
+
+		@Override
+		public int hashCode()
+		{
+			int result = this.canonicalPath.hashCode();
+
+			result = 31 * result + (int) (this.size ^ (this.size >>> 32));
+			result = 31 * result
+					+ (int) (this.lastModified ^ (this.lastModified >>> 32));
+
+			return result;
+		}
+
+		@Override
+		public boolean equals(Object obj)
+		{
+			if (this == obj)
+				return true;
+
+			if (!(obj instanceof Key))
+				return false;
+
+			Key other = (Key) obj;
+
+			return this.size == other.size
+					&& this.lastModified == other.lastModified
+					&& this.canonicalPath.equals(other.canonicalPath);
+		}
+	}
+}
@@ -0,0 +1,199 @@
+/*
+ * Copyright [2013] PurePerfect.com Licensed under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except in compliance with the
+ * License.
+ * 
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pureperfect.pathutils;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Archive bytes held in a single {@link ByteBuffer}: either a heap array or a
+ * read-only memory mapping of the archive file. A mapped archive lives outside
+ * of the java heap and is paged in by the operating system as entries are
+ * read.
+ * 
+ * @version 0.3
+ * @since 0.3
+ */
+class BufferArchiveData extends ArchiveData
+{
+	private final ByteBuffer buffer;
+
+	private final byte[] array;
+
+	/**
+	 * Wrap an archive that is already on the heap.
+	 * 
+	 * @param array
+	 *            the archive bytes
+	 */
+	BufferArchiveData(byte[] array)
+	{
+		this.buffer = ByteBuffer.wrap(array);
+		this.array = array;
+	}
+
+	/**
+	 * Use the buffer as the archive. The buffer must not be modified
+	 * afterwards.
+	 * 
+	 * @param buffer
+	 *            the archive bytes from position zero to the limit
+	 */
+	BufferArchiveData(ByteBuffer buffer)
+	{
+		this.buffer = buffer.duplicate();
+		this.buffer.clear();
+		this.array = null;
+	}
+
+	/**
+	 * Memory map the file read-only.
+	 * 
+	 * @param file
+	 *            the archive file
+	 * @return the mapped archive
+	 * @throws IOException
+	 *             if the file cannot be mapped
+	 */
+	static BufferArchiveData map(File file) throws IOException
+	{
+		FileInputStream in = new FileInputStream(file);
+
+		try
+		{
+			FileChannel channel = in.getChannel();
+
+			long size = channel.size();
+
+			if (size > Integer.MAX_VALUE)
+				throw new IOException("Archive is too large to map: " + file);
+
+			/*
+			 * The mapping stays valid after the channel is closed, so no file
+			 * handle is held for the lifetime of the archive.
+			 */
+			return new BufferArchiveData(channel.map(
+					FileChannel.MapMode.READ_ONLY, 0, size));
+		}
+		finally
+		{
+			in.close();
+		}
+	}
+
+	boolean isMapped()
+	{
+		return this.buffer.isDirect();
+	}
+
+	@Override
+	long size()
+	{
+		return this.buffer.capacity();
+	}
+
+	@Override
+	void read(long position, byte[] b, int off, int length) throws IOException
+	{
+		this.view(position, length).get(b, off, length);
+	}
+
+	@Override
+	ByteBuffer read(long position, int length) throws IOException
+	{
+		return this.view(position, length).slice();
+	}
+
+	@Override
+	InputStream openStream(long position, long length) throws IOException
+	{
+		return new ByteBufferInputStream(this.view(position, length));
+	}
+
+	@Override
+	byte[] toByteArray() throws IOException
+	{
+		if (this.array != null)
+			return this.array;
+
+		return super.toByteArray();
+	}
+
+	private ByteBuffer view(long position, long length) throws IOException
+	{
+		this.checkRange(position, length);
+
+		// Duplicate so that concurrent readers do not share a position.
+		ByteBuffer view = this.buffer.duplicate();
+
+		view.limit((int) (position + length));
+		view.position((int) position);
+
+		return view;
+	}
+
+	static class ByteBufferInputStream extends InputStream
+	{
+		private final ByteBuffer buffer;
+
+		ByteBufferInputStream(ByteBuffer buffer)
+		{
+			this.buffer = buffer;
+		}
+
+		@Override
+		public int read()
+		{
+			return this.buffer.hasRemaining() ? this.buffer.get() & 0xFF : -1;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len)
+		{
+			if (len == 0)
+				return 0;
+
+			if (!this.buffer.hasRemaining())
+				return -1;
+
+			int count = Math.min(len, this.buffer.remaining());
+
+			this.buffer.get(b, off, count);
+
+			return count;
+		}
+
+		@Override
+		public long skip(long n)
+		{
+			int count = (int) Math.max(0, Math.min(n, this.buffer.remaining()));
+
+			this.buffer.position(this.buffer.position() + count);
+
+			return count;
+		}
+
+		@Override
+		public int available()
+		{
+			return this.buffer.remaining();
+		}
+	}
+}
@@ -0,0 +1,531 @@
+/*
+ * Copyright [2013] PurePerfect.com Licensed under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except in compliance with the
+ * License.
+ * 
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pureperfect.pathutils;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.jar.Attributes;
+import java.util.jar.Manifest;
+
+/**
+ * The resources on the roots of a class loader, i.e. the directories and jars
+ * on its class path and the class paths of its parents, read once. The roots
+ * are read in parallel. Jars are read from their central directory, so
+ * resources in jars can be listed as well as those in directories. Jars named
+ * in the Class-Path of a jar manifest are roots too. Jars that start with a
+ * {@link ResourceIndex} are read from it instead.
+ * <p>
+ * Each class loader only reads the roots its parents do not have and shares
+ * the index of its parent. Indexes are dropped along with their class
+ * loaders.
+ * </p>
+ * <p>
+ * The index is a snapshot: resources that are added to a directory later are
+ * not in it. Resources from roots that are not known, e.g. those of the JDK
+ * itself or of a custom class loader, are not in it either, so a resource
+ * that is not in the index may still exist.
+ * </p>
+ * 
+ * @version 0.3
+ * @since 0.3
+ */
+final class ClasspathIndex
+{
+	private static final LoaderCache<ClasspathIndex> INDEXES = new LoaderCache<ClasspathIndex>()
+	{
+		@Override
+		protected ClasspathIndex create(ClassLoader loader)
+		{
+			ClasspathIndex parent = loader == null ? null : ClasspathIndex.INDEXES
+					.get(loader.getParent());
+
+			Set<File> roots = new LinkedHashSet<File>();
+
+			if (parent != null)
+				roots.addAll(parent.roots);
+
+			int inherited = roots.size();
+
+			addRoots(roots, loader);
+
+			List<File> all = new ArrayList<File>(roots);
+
+			return scan(parent, all, all.subList(inherited, all.size()));
+		}
+	};
+
+	private static final String MANIFEST = "META-INF/MANIFEST.MF";
+
+	/**
+	 * The index of the parent class loader, which has the resources of the
+	 * other roots.
+	 */
+	private final ClasspathIndex parent;
+
+	private final List<File> roots;
+
+	/**
+	 * The files, interned, so that lookups with the interned path of a
+	 * resource compare by identity.
+	 */
+	private final Set<NormalizedPath> files;
+
+	/**
+	 * The names of the children of each directory, e.g. "" or "a/b/".
+	 */
+	private final Map<NormalizedPath, List<String>> directories;
+
+	private ClasspathIndex(ClasspathIndex parent, List<File> roots,
+			Set<NormalizedPath> files,
+			Map<NormalizedPath, List<String>> directories)
+	{
+		this.parent = parent;
+		this.roots = roots;
+		this.files = files;
+		this.directories = directories;
+	}
+
+	/**
+	 * Get the index of the class loader, reading its roots the first time.
+	 * 
+	 * @param loader
+	 *            the class loader
+	 * @return the index
+	 */
+	static ClasspathIndex get(ClassLoader loader)
+	{
+		return INDEXES.get(loader);
+	}
+
+	/**
+	 * Whether or not the resource is on one of the roots. Directories exist
+	 * with or without a trailing '/'.
+	 * 
+	 * @param path
+	 *            the resource path, without a leading '/'
+	 * @return Whether or not the resource is on one of the roots.
+	 */
+	boolean contains(NormalizedPath path)
+	{
+		if (this.files.contains(path))
+			return true;
+
+		if (this.directories.containsKey(path.isDirectory() ? path
+				: NormalizedPath.intern(path + "/")))
+			return true;
+
+		return this.parent != null && this.parent.contains(path);
+	}
+
+	/**
+	 * The names of the files and directories in a directory, merged over all
+	 * of the roots, in order.
+	 * 
+	 * @param directory
+	 *            the directory, "" or ending with '/'
+	 * @return the names, or null if there is no such directory
+	 */
+	List<String> list(NormalizedPath directory)
+	{
+		List<String> names = this.directories.get(directory);
+
+		List<String> inherited = this.parent == null ? null : this.parent
+				.list(directory);
+
+		if (names == null)
+			return inherited;
+
+		if (inherited == null)
+			return names;
+
+		Set<String> merged = new TreeSet<String>(inherited);
+
+		merged.addAll(names);
+
+		return Collections.unmodifiableList(new ArrayList<String>(merged));
+	}
+
+	/**
+	 * The directories and jars on the class path of the loader and its
+	 * parents, parents first.
+	 */
+	static List<File> roots(ClassLoader loader)
+	{
+		return get(loader).roots;
+	}
+
+	/**
+	 * Add the directories and jars on the class path of the loader itself.
+	 */
+	private static void addRoots(Set<File> roots, ClassLoader loader)
+	{
+		if (loader instanceof URLClassLoader)
+		{
+			for (URL url : ((URLClassLoader) loader).getURLs())
+			{
+				addRoot(roots, url);
+			}
+		}
+		else if (loader != null && loader == ClassLoader.getSystemClassLoader())
+		{
+			// Since Java 9 the application class loader has no URLs.
+			for (String path : System.getProperty("java.class.path", "")
+					.split(File.pathSeparator))
+			{
+				if (path.length() > 0)
+					addRoot(roots, new File(path).getAbsoluteFile());
+			}
+		}
+	}
+
+	private static void addRoot(Set<File> roots, URL url)
+	{
+		if (!PathUtils.isLocalURL(url))
+			return;
+
+		try
+		{
+			addRoot(roots, new File(url.toURI()));
+		}
+		catch (URISyntaxException e)
+		{
+			// Not a path the class loader can read either.
+		}
+		catch (IllegalArgumentException e)
+		{
+			// Not a path the class loader can read either.
+		}
+	}
+
+	private static void addRoot(Set<File> roots, File root)
+	{
+		if (!roots.add(root) || !root.isFile())
+			return;
+
+		for (URL url : manifestClassPath(root))
+		{
+			addRoot(roots, url);
+		}
+	}
+
+	/**
+	 * The Class-Path entries of the manifest of a jar, which are relative to
+	 * the jar.
+	 */
+	private static List<URL> manifestClassPath(File jar)
+	{
+		List<URL> classPath = new LinkedList<URL>();
+
+		try
+		{
+			InputStream in;
+
+			byte[] stored = ResourceIndex.readLeadingEntry(jar, MANIFEST);
+
+			if (stored != null)
+			{
+				in = new ByteArrayInputStream(stored);
+			}
+			else
+			{
+				ZipArchive archive = ArchiveRegistry.get(jar);
+
+				ZipIndex.Entry entry = archive.getIndex().get(MANIFEST);
+
+				if (entry == null)
+					return classPath;
+
+				in = archive.open(entry);
+			}
+
+			Manifest manifest;
+
+			try
+			{
+				manifest = new Manifest(in);
+			}
+			finally
+			{
+				in.close();
+			}
+
+			String value = manifest.getMainAttributes().getValue(
+					Attributes.Name.CLASS_PATH);
+
+			if (value == null)
+				return classPath;
+
+			URL base = jar.toURI().toURL();
+
+			for (String path : value.trim().split("\\s+"))
+			{
+				if (path.length() > 0)
+					classPath.add(new URL(base, path));
+			}
+		}
+		catch (IOException e)
+		{
+			// Unreadable: the class loader cannot use it either.
+		}
+		catch (PathResolutionException e)
+		{
+			// Unreadable: the class loader cannot use it either.
+		}
+
+		return classPath;
+	}
+
+	/**
+	 * Read the new roots, in parallel.
+	 */
+	private static ClasspathIndex scan(ClasspathIndex parent,
+			List<File> roots, List<File> newRoots)
+	{
+		Set<NormalizedPath> files = new HashSet<NormalizedPath>();
+
+		Map<NormalizedPath, Set<String>> directories = new HashMap<NormalizedPath, Set<String>>();
+
+		if (!newRoots.isEmpty())
+		{
+			ExecutorService executor = Executors.newFixedThreadPool(Math.min(
+					newRoots.size(), Runtime.getRuntime().availableProcessors()),
+					DaemonThreadFactory.INSTANCE);
+
+			try
+			{
+				List<Future<Listing>> listings = new ArrayList<Future<Listing>>();
+
+				for (final File root : newRoots)
+				{
+					listings.add(executor.submit(new Callable<Listing>()
+					{
+						@Override
+						public Listing call()
+						{
+							return Listing.of(root);
+						}
+					}));
+				}
+
+				for (Future<Listing> listing : listings)
+				{
+					listing.get().addTo(files, directories);
+				}
+			}
+			catch (InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+
+				throw new PathResolutionException(e);
+			}
+			catch (ExecutionException e)
+			{
+				throw new PathResolutionException(e.getCause());
+			}
+			finally
+			{
+				executor.shutdownNow();
+			}
+		}
+
+		Map<NormalizedPath, List<String>> lists = new HashMap<NormalizedPath, List<String>>(
+				directories.size() * 4 / 3 + 1);
+
+		for (Map.Entry<NormalizedPath, Set<String>> directory : directories
+				.entrySet())
+		{
+			lists.put(directory.getKey(), Collections
+					.unmodifiableList(new ArrayList<String>(directory
+							.getValue())));
+		}
+
+		return new ClasspathIndex(parent, Collections.unmodifiableList(roots),
+				files, lists);
+	}
+
+	/**
+	 * The resources of one root.
+	 */
+	private static final class Listing
+	{
+		private final List<String> names = new ArrayList<String>();
+
+		static Listing of(File root)
+		{
+			Listing listing = new Listing();
+
+			if (root.isDirectory())
+			{
+				listing.walk(root, "", new HashSet<File>());
+			}
+			else if (root.isFile())
+			{
+				List<String> indexed = null;
+
+				try
+				{
+					indexed = ResourceIndex.read(root);
+				}
+				catch (IOException e)
+				{
+					// Read the central directory instead.
+				}
+
+				if (indexed != null)
+				{
+					listing.names.addAll(indexed);
+
+					return listing;
+				}
+
+				try
+				{
+					for (ZipIndex.Entry entry : ArchiveRegistry.get(root)
+							.getIndex().entries())
+					{
+						listing.names.add(entry.name);
+					}
+				}
+				catch (PathResolutionException e)
+				{
+					// Unreadable: the class loader cannot use it either.
+				}
+			}
+
+			return listing;
+		}
+
+		private void walk(File directory, String path, Set<File> visited)
+		{
+			try
+			{
+				// Don't follow links in circles.
+				if (!visited.add(directory.getCanonicalFile()))
+					return;
+			}
+			catch (IOException e)
+			{
+				return;
+			}
+
+			File[] children = directory.listFiles();
+
+			if (children == null)
+				return;
+
+			for (File child : children)
+			{
+				if (child.isDirectory())
+				{
+					String name = path + child.getName() + "/";
+
+					this.names.add(name);
+					this.walk(child, name, visited);
+				}
+				else
+				{
+					this.names.add(path + child.getName());
+				}
+			}
+		}
+
+		/**
+		 * Add the names, and every directory above them, to the index.
+		 */
+		void addTo(Set<NormalizedPath> files,
+				Map<NormalizedPath, Set<String>> directories)
+		{
+			for (String name : this.names)
+			{
+				if (name.startsWith("/") || name.length() == 0)
+					continue;
+
+				if (name.endsWith("/"))
+					directory(directories, name);
+				else
+					files.add(NormalizedPath.intern(name));
+
+				// Register the name with its parent, and so on up to the root.
+				for (int end = name.length() - 1; end >= 0;)
+				{
+					int slash = name.lastIndexOf('/', end - 1);
+
+					String parent = name.substring(0, slash + 1);
+
+					if (!directory(directories, parent).add(
+							name.substring(slash + 1, end + (name
+									.charAt(end) == '/' ? 0 : 1))))
+						break;
+
+					end = slash;
+				}
+			}
+		}
+
+		private static Set<String> directory(
+				Map<NormalizedPath, Set<String>> directories, String path)
+		{
+			NormalizedPath key = NormalizedPath.intern(path);
+
+			Set<String> children = directories.get(key);
+
+			if (children == null)
+			{
+				children = new TreeSet<String>();
+
+				directories.put(key, children);
+			}
+
+			return children;
+		}
+	}
+
+	private static final class DaemonThreadFactory implements ThreadFactory
+	{
+		static final DaemonThreadFactory INSTANCE = new DaemonThreadFactory();
+
+		@Override
+		public Thread newThread(Runnable r)
+		{
+			Thread thread = new Thread(r, "pathutils-classpath-index");
+
+			thread.setDaemon(true);
+
+			return thread;
+		}
+	}
+}
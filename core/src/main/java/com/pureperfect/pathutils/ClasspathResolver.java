@@ -0,0 +1,201 @@
+/*
+ * Copyright [2013] PurePerfect.com Licensed under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except in compliance with the
+ * License.
+ * 
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pureperfect.pathutils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+class ClasspathResolver extends PathResolver
+{
+	/**
+	 * Stands in for a class loader in cached content keys, so that the content
+	 * cache does not keep the class loader alive.
+	 */
+	private static final LoaderCache<Object> SCOPES = new LoaderCache<Object>()
+	{
+		@Override
+		protected Object create(ClassLoader loader)
+		{
+			return new Object();
+		}
+	};
+
+	private String parentFile;
+
+	ClasspathResolver(String parentFile)
+	{
+		this.parentFile = parentFile;
+	}
+
+	@Override
+	public String getPath()
+	{
+		return this.parentFile;
+	}
+
+	@Override
+	public List<String> getSubfiles(String regexMatch) throws IOException
+	{
+		List<String> results = new LinkedList<String>();
+
+		NameMatcher matcher = NameMatcher.compile(regexMatch,
+				this.getMatchMode());
+
+		for (String name : this.list())
+		{
+			if (matcher.matches(name))
+			{
+				results.add(name);
+			}
+		}
+
+		return results;
+	}
+
+	@Override
+	public Map<String, List<String>> getSubfiles(
+			Collection<String> regexMatches) throws IOException
+	{
+		NameMatcherSet matchers = new NameMatcherSet(regexMatches,
+				this.getMatchMode());
+
+		Map<String, List<String>> results = matchers.newResults();
+
+		for (String name : this.list())
+		{
+			matchers.match(name, name, results);
+		}
+
+		return results;
+	}
+
+	/**
+	 * The names in the directory of this resolver, from the index of the
+	 * context class loader and what it can find in the run time image.
+	 * Directories that are in neither are listed by the class loader, which
+	 * only works for directories on disk.
+	 */
+	private List<String> list() throws IOException
+	{
+		String normalizePath = PathUtils.normalizeToDir(this.parentFile)
+				.toString();
+
+		NormalizedPath directory = NormalizedPath.of(normalizePath);
+
+		ClassLoader loader = Thread.currentThread().getContextClassLoader();
+
+		List<String> names = ClasspathIndex.get(loader).list(directory);
+
+		JrtImage image = JrtImage.get();
+
+		List<String> modular = image == null ? null : image.view(loader).list(
+				loader, directory.toString());
+
+		if (names != null && modular != null)
+		{
+			Set<String> merged = new TreeSet<String>(names);
+
+			merged.addAll(modular);
+
+			return new ArrayList<String>(merged);
+		}
+
+		if (names != null)
+			return names;
+
+		if (modular != null)
+			return modular;
+
+		names = new LinkedList<String>();
+
+		InputStream in = PathUtils.open(normalizePath);
+
+		if (in == null)
+			return names;
+
+		try
+		{
+			BufferedReader r = new BufferedReader(new InputStreamReader(in));
+
+			for (String line = r.readLine(); line != null; line = r
+					.readLine())
+			{
+				names.add(line);
+			}
+		}
+		finally
+		{
+			in.close();
+		}
+
+		return names;
+	}
+
+	/**
+	 * The path on the class path. It is interned, so that it is the same
+	 * instance as the key of the resource in the class path index.
+	 */
+	private NormalizedPath targetPath(String path)
+	{
+		return NormalizedPath.intern(PathUtils.resolvePath(parentFile, path));
+	}
+
+	@Override
+	Object cacheKey(String path)
+	{
+		if (PathUtils.toURL(path) != null)
+			return null;
+
+		return new ContentCache.Key(SCOPES.get(Thread.currentThread()
+				.getContextClassLoader()), this.targetPath(path), 0);
+	}
+
+	@Override
+	public Object resolve(String path)
+	{
+		Object defaultVal = super.resolve(path);
+
+		if (defaultVal != null)
+			return defaultVal;
+
+		NormalizedPath target = this.targetPath(path);
+
+		String result = target.toString();
+
+		ClassLoader loader = Thread.currentThread().getContextClassLoader();
+
+		if (ClasspathIndex.get(loader).contains(target)
+				|| ResourceCache.get(loader).find(loader, result) != null)
+			return result;
+
+		// Class loaders don't find the directories of modules.
+		JrtImage image = JrtImage.get();
+
+		if (image != null && image.view(loader).isDirectory(loader, result))
+			return result;
+
+		throw new PathResolutionException(path);
+	}
+}
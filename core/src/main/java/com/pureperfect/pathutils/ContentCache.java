@@ -0,0 +1,731 @@
+/*
+ * Copyright [2013] PurePerfect.com Licensed under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except in compliance with the
+ * License.
+ * 
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pureperfect.pathutils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A byte bounded cache for the content returned by
+ * {@link PathResolver#openStream(String)}, shared by all resolver types. See
+ * {@link PathResolver#setContentCache(ContentCache)}.
+ * <p>
+ * Admission and eviction follow W-TinyLFU: new content enters a small LRU
+ * window, and content leaving the window only displaces content in the main
+ * segmented LRU if it has been requested more often recently. A single large
+ * read therefore cannot push out small, frequently read content.
+ * </p>
+ * <p>
+ * Reads do not lock: a read looks the content up in a concurrent map and
+ * records the access in a buffer. The buffered accesses are applied to the
+ * frequency sketch and the queues later, by whichever thread gets the lock,
+ * and some may be dropped when reads outpace that.
+ * </p>
+ * 
+ * @version 0.3
+ * @since 0.3
+ */
+public class ContentCache
+{
+	private static final int WINDOW = 0;
+
+	private static final int PROBATION = 1;
+
+	private static final int PROTECTED = 2;
+
+	private final long maximumBytes;
+
+	private final long windowMaximum;
+
+	private final long protectedMaximum;
+
+	private static final int READ_STRIPES = Integer.highestOneBit(Runtime
+			.getRuntime().availableProcessors() * 2 - 1);
+
+	private final ConcurrentMap<Object, Node> nodes = new ConcurrentHashMap<Object, Node>();
+
+	/**
+	 * Guards the queues, the sketch and everything else that is not atomic.
+	 */
+	private final ReentrantLock lock = new ReentrantLock();
+
+	private final ReadBuffer[] reads = new ReadBuffer[READ_STRIPES];
+
+	/*
+	 * Each queue is a circular list with a sentinel. The node after the
+	 * sentinel is the least recently used.
+	 */
+	private final Node[] queues = { new Node(), new Node(), new Node() };
+
+	private final long[] queueBytes = new long[3];
+
+	private final FrequencySketch sketch;
+
+	private final AtomicLong hits = new AtomicLong();
+
+	private final AtomicLong misses = new AtomicLong();
+
+	private long evictions;
+
+	private long rejections;
+
+	/**
+	 * Create a cache that holds at most the given number of bytes of content.
+	 * 
+	 * @param maximumBytes
+	 *            the byte budget
+	 */
+	public ContentCache(long maximumBytes)
+	{
+		if (maximumBytes <= 0)
+			throw new IllegalArgumentException("maximumBytes must be positive");
+
+		this.maximumBytes = maximumBytes;
+		this.windowMaximum = Math.max(1, maximumBytes / 100);
+		this.protectedMaximum = (maximumBytes - this.windowMaximum) * 4 / 5;
+
+		// Assume small resources when sizing the frequency sketch.
+		this.sketch = new FrequencySketch((int) Math.min(1 << 20,
+				Math.max(64, maximumBytes / 4096)));
+
+		for (int i = 0; i < this.reads.length; ++i)
+		{
+			this.reads[i] = new ReadBuffer();
+		}
+	}
+
+	/**
+	 * Get cached content.
+	 * 
+	 * @param key
+	 *            the key
+	 * @return the content, or null if it is not cached
+	 */
+	byte[] get(Object key)
+	{
+		Node node = this.nodes.get(key);
+
+		if (node == null)
+			this.misses.incrementAndGet();
+		else
+			this.hits.incrementAndGet();
+
+		ReadBuffer buffer = this.reads[(int) Thread.currentThread().getId()
+				& (READ_STRIPES - 1)];
+
+		if (buffer.record(key) && this.lock.tryLock())
+		{
+			try
+			{
+				this.drainReads();
+			}
+			finally
+			{
+				this.lock.unlock();
+			}
+		}
+
+		return node == null ? null : node.value;
+	}
+
+	/**
+	 * Apply the buffered reads. Must hold the lock.
+	 */
+	private void drainReads()
+	{
+		for (ReadBuffer buffer : this.reads)
+		{
+			for (int i = 0; i < ReadBuffer.SIZE; ++i)
+			{
+				Object key = buffer.take(i);
+
+				if (key != null)
+					this.onRead(key);
+			}
+		}
+	}
+
+	private void onRead(Object key)
+	{
+		this.sketch.increment(key);
+
+		Node node = this.nodes.get(key);
+
+		// Evicted, or not linked yet.
+		if (node == null || node.prev == null)
+			return;
+
+		if (node.queue == PROBATION)
+		{
+			this.move(node, PROTECTED);
+			this.demoteProtected();
+		}
+		else
+		{
+			this.move(node, node.queue);
+		}
+	}
+
+	/**
+	 * The size of the largest content that can be admitted, and that fits in
+	 * an array. Larger content is always rejected, so it is not worth reading
+	 * it onto the heap to offer it.
+	 * 
+	 * @return the size in bytes
+	 */
+	long getMaximumContentBytes()
+	{
+		return Math.min(this.maximumBytes - this.windowMaximum,
+				Integer.MAX_VALUE - 8);
+	}
+
+	/**
+	 * Count content that was not offered because it is larger than
+	 * {@link #getMaximumContentBytes()}.
+	 */
+	void rejectOversized()
+	{
+		this.lock.lock();
+
+		try
+		{
+			++this.rejections;
+		}
+		finally
+		{
+			this.lock.unlock();
+		}
+	}
+
+	/**
+	 * Offer content to the cache. The content may be rejected.
+	 * 
+	 * @param key
+	 *            the key
+	 * @param value
+	 *            the content, which must not be modified afterwards
+	 */
+	void put(Object key, byte[] value)
+	{
+		this.lock.lock();
+
+		try
+		{
+			this.drainReads();
+
+			Node node = new Node(key, value);
+
+			Node existing = this.nodes.put(key, node);
+
+			if (existing != null)
+				this.unlink(existing);
+
+			this.link(node, WINDOW);
+
+			while (this.queueBytes[WINDOW] > this.windowMaximum)
+			{
+				this.admit(this.queues[WINDOW].next);
+			}
+		}
+		finally
+		{
+			this.lock.unlock();
+		}
+	}
+
+	/**
+	 * Move a candidate from the window into the main space if it is used more
+	 * often than the content it would displace.
+	 */
+	private void admit(Node candidate)
+	{
+		this.unlink(candidate);
+
+		long mainMaximum = this.maximumBytes - this.windowMaximum;
+
+		long size = candidate.value.length;
+
+		if (size > mainMaximum)
+		{
+			this.reject(candidate);
+			return;
+		}
+
+		long needed = this.queueBytes[PROBATION] + this.queueBytes[PROTECTED]
+				+ size - mainMaximum;
+
+		if (needed > 0)
+		{
+			int frequency = this.sketch.frequency(candidate.key);
+
+			List<Node> victims = new ArrayList<Node>();
+
+			long freed = 0;
+
+			// Victims come from probation first, then protected.
+			for (int queue = PROBATION; queue <= PROTECTED && freed < needed; ++queue)
+			{
+				Node sentinel = this.queues[queue];
+
+				for (Node n = sentinel.next; n != sentinel && freed < needed; n = n
+						.next)
+				{
+					if (this.sketch.frequency(n.key) >= frequency)
+					{
+						this.reject(candidate);
+						return;
+					}
+
+					victims.add(n);
+					freed += n.value.length;
+				}
+			}
+
+			for (Node victim : victims)
+			{
+				this.unlink(victim);
+				this.nodes.remove(victim.key);
+				++this.evictions;
+			}
+		}
+
+		this.link(candidate, PROBATION);
+	}
+
+	private void reject(Node node)
+	{
+		this.nodes.remove(node.key);
+		++this.rejections;
+	}
+
+	private void demoteProtected()
+	{
+		while (this.queueBytes[PROTECTED] > this.protectedMaximum)
+		{
+			this.move(this.queues[PROTECTED].next, PROBATION);
+		}
+	}
+
+	private void move(Node node, int queue)
+	{
+		this.unlink(node);
+		this.link(node, queue);
+	}
+
+	private void link(Node node, int queue)
+	{
+		Node sentinel = this.queues[queue];
+
+		node.queue = queue;
+		node.prev = sentinel.prev;
+		node.next = sentinel;
+		sentinel.prev.next = node;
+		sentinel.prev = node;
+
+		this.queueBytes[queue] += node.value.length;
+	}
+
+	private void unlink(Node node)
+	{
+		node.prev.next = node.next;
+		node.next.prev = node.prev;
+		node.prev = null;
+		node.next = null;
+
+		this.queueBytes[node.queue] -= node.value.length;
+	}
+
+	/**
+	 * Remove all content. Statistics are kept.
+	 */
+	public void clear()
+	{
+		this.lock.lock();
+
+		try
+		{
+			this.drainReads();
+
+			this.nodes.clear();
+
+			for (int i = 0; i < this.queues.length; ++i)
+			{
+				this.queues[i].next = this.queues[i];
+				this.queues[i].prev = this.queues[i];
+				this.queueBytes[i] = 0;
+			}
+		}
+		finally
+		{
+			this.lock.unlock();
+		}
+	}
+
+	/**
+	 * The byte budget of the cache.
+	 * 
+	 * @return The byte budget of the cache.
+	 */
+	public long getMaximumBytes()
+	{
+		return this.maximumBytes;
+	}
+
+	/**
+	 * The number of bytes of content currently cached.
+	 * 
+	 * @return The number of bytes of content currently cached.
+	 */
+	public long getSize()
+	{
+		this.lock.lock();
+
+		try
+		{
+			return this.queueBytes[WINDOW] + this.queueBytes[PROBATION]
+					+ this.queueBytes[PROTECTED];
+		}
+		finally
+		{
+			this.lock.unlock();
+		}
+	}
+
+	/**
+	 * The number of cached resources.
+	 * 
+	 * @return The number of cached resources.
+	 */
+	public int getCount()
+	{
+		return this.nodes.size();
+	}
+
+	/**
+	 * The number of reads served from the cache.
+	 * 
+	 * @return The number of reads served from the cache.
+	 */
+	public long getHitCount()
+	{
+		return this.hits.get();
+	}
+
+	/**
+	 * The number of reads that were not cached.
+	 * 
+	 * @return The number of reads that were not cached.
+	 */
+	public long getMissCount()
+	{
+		return this.misses.get();
+	}
+
+	/**
+	 * The fraction of reads served from the cache.
+	 * 
+	 * @return a value between 0 and 1
+	 */
+	public double getHitRate()
+	{
+		long hits = this.hits.get();
+
+		long total = hits + this.misses.get();
+
+		return total == 0 ? 0 : (double) hits / total;
+	}
+
+	/**
+	 * The number of cached resources that were evicted to make room for more
+	 * frequently used content.
+	 * 
+	 * @return the number of evictions
+	 */
+	public long getEvictionCount()
+	{
+		this.lock.lock();
+
+		try
+		{
+			return this.evictions;
+		}
+		finally
+		{
+			this.lock.unlock();
+		}
+	}
+
+	/**
+	 * The number of resources that were not admitted, or dropped from the
+	 * window, because they were used less often than the cached content or
+	 * were too large to cache at all.
+	 * 
+	 * @return the number of rejections
+	 */
+	public long getRejectionCount()
+	{
+		this.lock.lock();
+
+		try
+		{
+			return this.rejections;
+		}
+		finally
+		{
+			this.lock.unlock();
+		}
+	}
+
+	@Override
+	public String toString()
+	{
+		return "ContentCache[size=" + this.getSize() + "/"
+				+ this.maximumBytes + ", count=" + this.nodes.size()
+				+ ", hits=" + this.hits + ", misses=" + this.misses
+				+ ", evictions=" + this.getEvictionCount() + ", rejections="
+				+ this.getRejectionCount() + "]";
+	}
+
+	/**
+	 * The queue fields are only used with the lock held.
+	 */
+	private static final class Node
+	{
+		final Object key;
+
+		final byte[] value;
+
+		int queue;
+
+		Node prev;
+
+		Node next;
+
+		Node(Object key, byte[] value)
+		{
+			this.key = key;
+			this.value = value;
+		}
+
+		/**
+		 * A queue sentinel.
+		 */
+		Node()
+		{
+			this(null, null);
+
+			this.prev = this;
+			this.next = this;
+		}
+	}
+
+	/**
+	 * Recent reads of one stripe of threads. A read overwrites one that has
+	 * not been applied yet if the buffer wraps around before it is drained.
+	 */
+	private static final class ReadBuffer
+	{
+		static final int SIZE = 32;
+
+		/**
+		 * Ask for a drain whenever this many reads were recorded.
+		 */
+		private static final int DRAIN_INTERVAL = SIZE / 2;
+
+		private final AtomicReferenceArray<Object> keys = new AtomicReferenceArray<Object>(
+				SIZE);
+
+		private final AtomicLong count = new AtomicLong();
+
+		/**
+		 * @return whether or not the buffers should be drained
+		 */
+		boolean record(Object key)
+		{
+			long index = this.count.getAndIncrement();
+
+			this.keys.lazySet((int) (index & (SIZE - 1)), key);
+
+			return (index + 1) % DRAIN_INTERVAL == 0;
+		}
+
+		Object take(int i)
+		{
+			return this.keys.get(i) == null ? null : this.keys.getAndSet(i,
+					null);
+		}
+	}
+
+	/**
+	 * Cache key: what the resolver resolves against, and the normalized path
+	 * relative to it.
+	 */
+	static final class Key
+	{
+		private final Object scope;
+
+		private final CharSequence path;
+
+		private final long version;
+
+		/**
+		 * @param scope
+		 *            identifies what the path is resolved against, e.g. an
+		 *            archive; it should not refer to the archive itself, which
+		 *            the key would keep alive
+		 * @param path
+		 *            the {@link NormalizedPath}, or another string that
+		 *            identifies the content within the scope, e.g. the uri of
+		 *            a file
+		 * @param version
+		 *            distinguishes versions of mutable content, e.g. the
+		 *            modification time of a file
+		 */
+		Key(Object scope, CharSequence path, long version)
+		{
+			this.scope = scope;
+			this.path = path;
+			this.version = version;
+		}
+
+		@Override
+		public int hashCode()
+		{
+			int result = 31 * this.scope.hashCode() + this.path.hashCode();
+
+			return 31 * result + (int) (this.version ^ (this.version >>> 32));
+		}
+
+		@Override
+		public boolean equals(Object obj)
+		{
+			if (this == obj)
+				return true;
+
+			if (!(obj instanceof Key))
+				return false;
+
+			Key other = (Key) obj;
+
+			return this.version == other.version
+					&& this.path.equals(other.path)
+					&& this.scope.equals(other.scope);
+		}
+
+		@Override
+		public String toString()
+		{
+			return this.scope + ":" + this.path + "@" + this.version;
+		}
+	}
+
+	/**
+	 * A count-min sketch of recent access frequencies with four rows of
+	 * counters saturating at 15. All counters are halved periodically so that
+	 * old popularity fades.
+	 */
+	static final class FrequencySketch
+	{
+		private static final int[] SEEDS = { 0x97cb3127, 0x2f0b3d1f,
+				0x5a827999, 0x6ed9eba1 };
+
+		private final byte[][] table;
+
+		private final int mask;
+
+		private final int sampleSize;
+
+		private int additions;
+
+		FrequencySketch(int width)
+		{
+			int size = Integer.highestOneBit(Math.max(width, 2) - 1) << 1;
+
+			this.table = new byte[SEEDS.length][size];
+			this.mask = size - 1;
+			this.sampleSize = 10 * size;
+		}
+
+		void increment(Object key)
+		{
+			int hash = spread(key.hashCode());
+
+			boolean added = false;
+
+			for (int row = 0; row < SEEDS.length; ++row)
+			{
+				int i = this.index(hash, row);
+
+				if (this.table[row][i] < 15)
+				{
+					++this.table[row][i];
+					added = true;
+				}
+			}
+
+			if (added && ++this.additions >= this.sampleSize)
+				this.reset();
+		}
+
+		int frequency(Object key)
+		{
+			int hash = spread(key.hashCode());
+
+			int min = 15;
+
+			for (int row = 0; row < SEEDS.length; ++row)
+			{
+				min = Math.min(min, this.table[row][this.index(hash, row)]);
+			}
+
+			return min;
+		}
+
+		private int index(int hash, int row)
+		{
+			int h = hash * SEEDS[row];
+
+			return (h ^ (h >>> 16)) & this.mask;
+		}
+
+		private void reset()
+		{
+			for (byte[] row : this.table)
+			{
+				for (int i = 0; i < row.length; ++i)
+				{
+					row[i] = (byte) (row[i] >>> 1);
+				}
+			}
+
+			this.additions /= 2;
+		}
+
+		private static int spread(int h)
+		{
+			h ^= h >>> 16;
+			h *= 0x45d9f3b;
+			h ^= h >>> 16;
+
+			return h;
+		}
+	}
+}
@@ -16,8 +16,10 @@
 package com.pureperfect.pathutils;
 
 import java.io.File;
+import java.util.Collection;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 
 class FileResolver extends PathResolver
 {
@@ -48,7 +50,8 @@ class FileResolver extends PathResolver
 		if (tempParent == null)
 			tempParent = parent;
 
-		File[] subFiles = tempParent.listFiles(new RegexFileFilter(regexMatch));
+		File[] subFiles = tempParent.listFiles(new RegexFileFilter(regexMatch,
+				this.getMatchMode()));
 
 		List<String> results = new LinkedList<String>();
 
@@ -61,6 +64,48 @@ class FileResolver extends PathResolver
 		return results;
 	}
 
+	@Override
+	public Map<String, List<String>> getSubfiles(
+			Collection<String> regexMatches)
+	{
+		File tempParent = parent.isDirectory() ? parent : new File(
+				parent.getParent());
+
+		NameMatcherSet matchers = new NameMatcherSet(regexMatches,
+				this.getMatchMode());
+
+		Map<String, List<String>> results = matchers.newResults();
+
+		File[] subFiles = tempParent.listFiles();
+
+		if (subFiles != null)
+			for (File f : subFiles)
+			{
+				matchers.match(f.getName(), f.getName(), results);
+			}
+
+		return results;
+	}
+
+	private File toFile(String path)
+	{
+		return parent.isDirectory() ? new File(parent, path) : new File(
+				parent.getParent(), path);
+	}
+
+	@Override
+	Object cacheKey(String path)
+	{
+		if (PathUtils.toURL(path) != null)
+			return null;
+
+		File f = this.toFile(path);
+
+		// The modification time keeps edited files from being served stale.
+		return new ContentCache.Key(FileResolver.class, f.toURI().normalize()
+				.getPath(), f.lastModified());
+	}
+
 	@Override
 	public Object resolve(String path)
 	{
@@ -69,8 +114,7 @@ class FileResolver extends PathResolver
 		if (defaultVal != null)
 			return defaultVal;
 
-		File f = parent.isDirectory() ? new File(parent, path) : new File(
-				parent.getParent(), path);
+		File f = this.toFile(path);
 
 		if (f.exists())
 			return f;
@@ -0,0 +1,313 @@
+/*
+ * Copyright [2013] PurePerfect.com Licensed under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except in compliance with the
+ * License.
+ * 
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pureperfect.pathutils;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A remote archive read with HTTP range requests, so that only the central
+ * directory and the entries that are actually opened are transferred.
+ * <p>
+ * Every range request is conditional on the archive being the one that was
+ * opened, by its entity tag or else its modification date, so that a changed
+ * archive fails rather than mixing parts of two archives.
+ * </p>
+ * <p>
+ * The archive is opened with a request for its last
+ * {@link #TAIL_LENGTH} bytes, which gives its size and validator and is kept
+ * in memory, so the end of central directory record, and for most archives the
+ * central directory itself, are read without further requests.
+ * </p>
+ * 
+ * @version 0.3
+ * @since 0.3
+ */
+class HttpArchiveData extends ArchiveData
+{
+	/**
+	 * The longest tail that can hold the end of central directory record.
+	 */
+	static final int TAIL_LENGTH = ZipIndex.EOCD_LENGTH
+			+ ZipIndex.MAX_COMMENT_LENGTH;
+
+	private final URL url;
+
+	private final long size;
+
+	/**
+	 * Identifies the version of the archive that was opened, for If-Range
+	 * requests; null if the server gave neither a strong entity tag nor a
+	 * modification date.
+	 */
+	private final String validator;
+
+	/**
+	 * The last bytes of the archive, fetched when it was opened.
+	 */
+	private final byte[] tail;
+
+	private final long tailStart;
+
+	private final AtomicInteger requests = new AtomicInteger();
+
+	private HttpArchiveData(URL url, long size, String validator, byte[] tail)
+	{
+		this.url = url;
+		this.size = size;
+		this.validator = validator;
+		this.tail = tail;
+		this.tailStart = size - tail.length;
+	}
+
+	/**
+	 * Open the remote archive. If the server answers the request for the tail
+	 * with the whole archive, or does not report the length of the archive,
+	 * the whole archive is downloaded instead.
+	 * 
+	 * @param url
+	 *            an http or https url
+	 * @return the archive data
+	 * @throws IOException
+	 *             if the archive cannot be reached
+	 */
+	static ArchiveData open(URL url) throws IOException
+	{
+		HttpURLConnection probe = (HttpURLConnection) url.openConnection();
+
+		probe.setRequestProperty("Range", "bytes=-" + TAIL_LENGTH);
+
+		int status = probe.getResponseCode();
+
+		if (status == HttpURLConnection.HTTP_PARTIAL)
+		{
+			long size = totalLength(probe.getHeaderField("Content-Range"));
+
+			long tailLength = probe.getContentLengthLong();
+
+			if (size >= 0 && tailLength == Math.min(size, TAIL_LENGTH))
+			{
+				byte[] tail = new byte[(int) tailLength];
+
+				InputStream in = probe.getInputStream();
+
+				try
+				{
+					new DataInputStream(in).readFully(tail);
+				}
+				finally
+				{
+					in.close();
+				}
+
+				HttpArchiveData data = new HttpArchiveData(url, size,
+						validator(probe), tail);
+
+				data.requests.incrementAndGet();
+
+				return data;
+			}
+
+			probe.disconnect();
+		}
+		else if (status == HttpURLConnection.HTTP_OK)
+		{
+			return download(probe);
+		}
+		else
+		{
+			probe.disconnect();
+		}
+
+		return download(url.openConnection());
+	}
+
+	private static ArchiveData download(URLConnection conn) throws IOException
+	{
+		InputStream in = conn.getInputStream();
+
+		try
+		{
+			return ArchiveData.load(in, conn.getContentLengthLong());
+		}
+		finally
+		{
+			in.close();
+		}
+	}
+
+	/**
+	 * The total length from a Content-Range header, or -1 if it is missing or
+	 * unknown.
+	 */
+	private static long totalLength(String contentRange)
+	{
+		if (contentRange == null)
+			return -1;
+
+		String length = contentRange.substring(
+				contentRange.lastIndexOf('/') + 1).trim();
+
+		try
+		{
+			return Long.parseLong(length);
+		}
+		catch (NumberFormatException e)
+		{
+			return -1;
+		}
+	}
+
+	private static String validator(HttpURLConnection conn)
+	{
+		String etag = conn.getHeaderField("ETag");
+
+		// Weak entity tags can't be used with If-Range.
+		if (etag != null && !etag.startsWith("W/"))
+			return etag;
+
+		return conn.getHeaderField("Last-Modified");
+	}
+
+	static boolean isHttp(URL url)
+	{
+		return "http".equalsIgnoreCase(url.getProtocol())
+				|| "https".equalsIgnoreCase(url.getProtocol());
+	}
+
+	/**
+	 * The number of range requests made so far, including the one for the
+	 * tail.
+	 * 
+	 * @return the number of range requests made so far
+	 */
+	int getRequestCount()
+	{
+		return this.requests.get();
+	}
+
+	@Override
+	long size()
+	{
+		return this.size;
+	}
+
+	@Override
+	boolean isRemote()
+	{
+		return true;
+	}
+
+	@Override
+	void read(long position, byte[] b, int off, int length) throws IOException
+	{
+		if (position >= this.tailStart)
+		{
+			this.checkRange(position, length);
+
+			System.arraycopy(this.tail, (int) (position - this.tailStart), b,
+					off, length);
+
+			return;
+		}
+
+		InputStream in = this.openStream(position, length);
+
+		try
+		{
+			for (int read = 0; read < length;)
+			{
+				int count = in.read(b, off + read, length - read);
+
+				if (count < 0)
+					throw new EOFException("Unexpected end of range from: "
+							+ this.url);
+
+				read += count;
+			}
+		}
+		finally
+		{
+			in.close();
+		}
+	}
+
+	@Override
+	InputStream openStream(long position, long length) throws IOException
+	{
+		this.checkRange(position, length);
+
+		if (length == 0)
+			return new BufferArchiveData.ByteBufferInputStream(
+					ByteBuffer.allocate(0));
+
+		if (position >= this.tailStart)
+			return new BufferArchiveData.ByteBufferInputStream(ByteBuffer.wrap(
+					this.tail, (int) (position - this.tailStart), (int) length));
+
+		this.requests.incrementAndGet();
+
+		HttpURLConnection conn = (HttpURLConnection) this.url.openConnection();
+
+		conn.setRequestProperty("Range", "bytes=" + position + "-"
+				+ (position + length - 1));
+
+		if (this.validator != null)
+			conn.setRequestProperty("If-Range", this.validator);
+
+		int status = conn.getResponseCode();
+
+		/*
+		 * The whole archive instead of the range means that it is not the
+		 * archive that was opened any more, or that the server can't tell.
+		 */
+		if (status == HttpURLConnection.HTTP_OK
+				|| (status == HttpURLConnection.HTTP_PARTIAL && !this
+						.isSameSize(conn.getHeaderField("Content-Range"))))
+		{
+			conn.disconnect();
+			throw new IOException("Archive changed since it was opened: "
+					+ this.url);
+		}
+
+		if (status != HttpURLConnection.HTTP_PARTIAL)
+		{
+			conn.disconnect();
+			throw new IOException("Unexpected response " + status
+					+ " for range request to: " + this.url);
+		}
+
+		return new LimitedInputStream(conn.getInputStream(), length);
+	}
+
+	/**
+	 * Whether the length in the Content-Range header, if there is one, is the
+	 * length of the archive that was opened.
+	 */
+	private boolean isSameSize(String contentRange)
+	{
+		long length = totalLength(contentRange);
+
+		return length < 0 || length == this.size;
+	}
+}
@@ -0,0 +1,598 @@
+/*
+ * Copyright [2013] PurePerfect.com Licensed under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except in compliance with the
+ * License.
+ * 
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pureperfect.pathutils;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URL;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The modules of the run time image, read through the jrt file system of
+ * Java 9 and later. The directory tree of a module is read the first time
+ * one of its directories is listed and kept from then on; the image does not
+ * change while the JVM runs.
+ * <p>
+ * Paths are relative to a module and use '/' like class path resources, e.g.
+ * "java/lang/Object.class" in java.base. Directories end with '/'.
+ * </p>
+ * 
+ * @version 0.3
+ * @since 0.3
+ */
+final class JrtImage
+{
+	private static final String PROTOCOL = "jrt";
+
+	private static final String MODULE_INFO = "module-info.class";
+
+	private static volatile JrtImage image;
+
+	private static volatile boolean unavailable;
+
+	private final FileSystem fileSystem;
+
+	/**
+	 * The modules that have each package, e.g. "java.lang".
+	 */
+	private final TreeMap<String, List<String>> packages;
+
+	private final List<String> modules;
+
+	private final ConcurrentMap<String, ModuleTree> trees = new ConcurrentHashMap<String, ModuleTree>();
+
+	/**
+	 * The packages of each module.
+	 */
+	private final Map<String, List<String>> modulePackages;
+
+	/**
+	 * What the image looks like to each class loader.
+	 */
+	private final LoaderCache<View> views = new LoaderCache<View>()
+	{
+		@Override
+		protected View create(ClassLoader loader)
+		{
+			return new View();
+		}
+	};
+
+	private JrtImage(FileSystem fileSystem) throws IOException
+	{
+		this.fileSystem = fileSystem;
+
+		TreeMap<String, List<String>> packages = new TreeMap<String, List<String>>();
+
+		Map<String, List<String>> modulePackages = new HashMap<String, List<String>>();
+
+		for (Path pkg : children(fileSystem.getPath("/packages")))
+		{
+			List<String> modules = new ArrayList<String>();
+
+			for (Path module : children(pkg))
+			{
+				modules.add(name(module));
+
+				List<String> names = modulePackages.get(name(module));
+
+				if (names == null)
+				{
+					names = new ArrayList<String>();
+
+					modulePackages.put(name(module), names);
+				}
+
+				names.add(name(pkg));
+			}
+
+			packages.put(name(pkg), Collections.unmodifiableList(modules));
+		}
+
+		List<String> modules = new ArrayList<String>();
+
+		for (Path module : children(fileSystem.getPath("/modules")))
+		{
+			modules.add(name(module));
+		}
+
+		Collections.sort(modules);
+
+		this.packages = packages;
+		this.modulePackages = modulePackages;
+		this.modules = Collections.unmodifiableList(modules);
+	}
+
+	/**
+	 * Get the run time image.
+	 * 
+	 * @return the image, or null before Java 9 or if it cannot be read
+	 */
+	static JrtImage get()
+	{
+		JrtImage result = image;
+
+		if (result != null || unavailable)
+			return result;
+
+		synchronized (JrtImage.class)
+		{
+			if (image == null && !unavailable)
+			{
+				try
+				{
+					image = new JrtImage(FileSystems.getFileSystem(URI
+							.create(PROTOCOL + ":/")));
+				}
+				catch (Exception e)
+				{
+					// No jrt file system, e.g. on Java 8.
+					unavailable = true;
+				}
+			}
+
+			return image;
+		}
+	}
+
+	/**
+	 * Whether or not the URL is in the run time image.
+	 * 
+	 * @param url
+	 *            the url to test
+	 * @return true for jrt: urls
+	 */
+	static boolean isJrt(URL url)
+	{
+		return PROTOCOL.equals(url.getProtocol());
+	}
+
+	/**
+	 * The names of the modules in the image, sorted.
+	 * 
+	 * @return the module names
+	 */
+	List<String> modules()
+	{
+		return this.modules;
+	}
+
+	/**
+	 * Whether or not the module has the resource.
+	 * 
+	 * @param module
+	 *            the module name, e.g. "java.base"
+	 * @param path
+	 *            the path in the module; directories exist with or without a
+	 *            trailing '/'
+	 * @return Whether or not the module has the resource.
+	 */
+	boolean contains(String module, String path)
+	{
+		ModuleTree tree = this.module(module);
+
+		return tree != null && tree.contains(path);
+	}
+
+	/**
+	 * The names of the files and directories in a directory of a module.
+	 * 
+	 * @param module
+	 *            the module name
+	 * @param directory
+	 *            the directory, "" or ending with '/'
+	 * @return the sorted names, or null if there is no such directory
+	 */
+	List<String> list(String module, String directory)
+	{
+		ModuleTree tree = this.module(module);
+
+		return tree == null ? null : tree.directories.get(directory);
+	}
+
+	/**
+	 * What the image looks like to a class loader.
+	 * 
+	 * @param loader
+	 *            the class loader
+	 * @return the resources of the image that the class loader can find
+	 */
+	View view(ClassLoader loader)
+	{
+		return this.views.get(loader);
+	}
+
+	private ModuleTree module(String module)
+	{
+		ModuleTree tree = this.trees.get(module);
+
+		if (tree != null)
+			return tree;
+
+		if (Collections.binarySearch(this.modules, module) < 0)
+			return null;
+
+		try
+		{
+			tree = new ModuleTree(this.fileSystem.getPath("/modules", module));
+		}
+		catch (IOException e)
+		{
+			throw new PathResolutionException(e);
+		}
+
+		ModuleTree existing = this.trees.putIfAbsent(module, tree);
+
+		return existing == null ? tree : existing;
+	}
+
+	/**
+	 * The path of a class of the module, other than module-info.class.
+	 */
+	private String anyClass(String module)
+	{
+		List<String> packages = this.modulePackages.get(module);
+
+		if (packages == null)
+			return null;
+
+		try
+		{
+			for (String pkg : packages)
+			{
+				String directory = pkg.replace('.', '/') + "/";
+
+				for (Path file : children(this.fileSystem.getPath("/modules",
+						module, directory)))
+				{
+					if (name(file).endsWith(".class"))
+						return directory + name(file);
+				}
+			}
+		}
+		catch (IOException e)
+		{
+			// No classes that can be found.
+		}
+
+		return null;
+	}
+
+	private static List<Path> children(Path directory) throws IOException
+	{
+		List<Path> children = new ArrayList<Path>();
+
+		DirectoryStream<Path> stream = Files.newDirectoryStream(directory);
+
+		try
+		{
+			for (Path child : stream)
+			{
+				children.add(child);
+			}
+		}
+		finally
+		{
+			stream.close();
+		}
+
+		return children;
+	}
+
+	private static String name(Path path)
+	{
+		return path.getFileName().toString();
+	}
+
+	/**
+	 * The resources of the image that a class loader can find: those of the
+	 * modules it can see, other than module-info.class, and only the classes
+	 * of packages that are not open. Directories are the packages, and the
+	 * directories above them, that have something the class loader can see.
+	 * Listings are kept; only directories of the image are, so the size is
+	 * bounded by the image.
+	 */
+	final class View
+	{
+		private final ConcurrentMap<String, Boolean> visible = new ConcurrentHashMap<String, Boolean>();
+
+		private final ConcurrentMap<String, List<String>> listings = new ConcurrentHashMap<String, List<String>>();
+
+		private View()
+		{
+			// use JrtImage.view(ClassLoader)
+		}
+
+		/**
+		 * The names of the files and directories in a directory.
+		 * 
+		 * @param loader
+		 *            the class loader this is the view of
+		 * @param directory
+		 *            the directory, "" or ending with '/'
+		 * @return the sorted names, or null if the class loader sees no such
+		 *         directory
+		 */
+		List<String> list(ClassLoader loader, String directory)
+		{
+			List<String> names = this.listings.get(directory);
+
+			if (names != null)
+				return names;
+
+			Set<String> children = new TreeSet<String>();
+
+			List<String> modules = new ArrayList<String>();
+
+			if (!this.packages(loader, directory, children, modules))
+				return null;
+
+			for (String module : modules)
+			{
+				ModuleTree tree = JrtImage.this.module(module);
+
+				List<String> files = tree.directories.get(directory);
+
+				if (files == null)
+					continue;
+
+				for (String name : files)
+				{
+					String path = directory + name;
+
+					if (tree.files.contains(path)
+							&& isVisible(loader, path))
+						children.add(name);
+				}
+			}
+
+			names = Collections.unmodifiableList(new ArrayList<String>(
+					children));
+
+			List<String> existing = this.listings.putIfAbsent(directory,
+					names);
+
+			return existing == null ? names : existing;
+		}
+
+		/**
+		 * Whether or not the path is a directory the class loader sees.
+		 * 
+		 * @param loader
+		 *            the class loader this is the view of
+		 * @param path
+		 *            the path, with or without a trailing '/'
+		 * @return Whether or not the path is a directory the class loader
+		 *         sees.
+		 */
+		boolean isDirectory(ClassLoader loader, String path)
+		{
+			if (path.length() == 0)
+				return false;
+
+			return this.packages(loader, PathUtils.isClasspathDirectory(path)
+					? path : path + "/", null, null);
+		}
+
+		/**
+		 * Find the packages in the directory, or below it, of the modules the
+		 * class loader sees.
+		 * 
+		 * @param children
+		 *            receives the names of the subdirectories, if not null
+		 * @param modules
+		 *            receives the modules with the directory as a package, if
+		 *            not null
+		 * @return whether or not there is any such package
+		 */
+		private boolean packages(ClassLoader loader, String directory,
+				Set<String> children, List<String> modules)
+		{
+			String pkg = directory.length() == 0 ? "" : directory.substring(0,
+					directory.length() - 1).replace('/', '.');
+
+			String prefix = pkg.length() == 0 ? "" : pkg + ".";
+
+			boolean found = false;
+
+			List<String> exact = pkg.length() == 0 ? null
+					: JrtImage.this.packages.get(pkg);
+
+			if (exact != null)
+			{
+				for (String module : exact)
+				{
+					if (!this.sees(loader, module))
+						continue;
+
+					found = true;
+
+					if (modules != null)
+						modules.add(module);
+				}
+			}
+
+			// '/' follows '.', so these are exactly the subpackages.
+			Map<String, List<String>> below = prefix.length() == 0 ? JrtImage.this.packages
+					: JrtImage.this.packages.subMap(prefix, pkg + "/");
+
+			for (Map.Entry<String, List<String>> entry : below.entrySet())
+			{
+				String rest = entry.getKey().substring(prefix.length());
+
+				int dot = rest.indexOf('.');
+
+				String child = dot < 0 ? rest : rest.substring(0, dot);
+
+				if (children == null && found)
+					break;
+
+				if (children != null && children.contains(child))
+					continue;
+
+				for (String module : entry.getValue())
+				{
+					if (this.sees(loader, module))
+					{
+						found = true;
+
+						if (children != null)
+							children.add(child);
+
+						break;
+					}
+				}
+			}
+
+			return found;
+		}
+
+		/**
+		 * Whether or not the class loader finds the classes of the module,
+		 * found out by looking up one of them.
+		 */
+		private boolean sees(ClassLoader loader, String module)
+		{
+			Boolean sees = this.visible.get(module);
+
+			if (sees == null)
+			{
+				String probe = loader == null ? null : JrtImage.this
+						.anyClass(module);
+
+				URL url = probe == null ? null : loader.getResource(probe);
+
+				sees = Boolean.valueOf(url != null && isJrt(url)
+						&& url.getPath().startsWith("/" + module + "/"));
+
+				this.visible.put(module, sees);
+			}
+
+			return sees.booleanValue();
+		}
+
+		private boolean isVisible(ClassLoader loader, String path)
+		{
+			// Classes are never encapsulated.
+			if (path.endsWith(".class"))
+				return !path.endsWith(MODULE_INFO);
+
+			// Other resources only if the package is open.
+			return ResourceCache.get(loader).find(loader, path) != null;
+		}
+	}
+
+	/**
+	 * The directory tree of one module.
+	 */
+	private static final class ModuleTree
+	{
+		private final Set<String> files = new HashSet<String>();
+
+		/**
+		 * The names of the children of each directory, e.g. "" or "a/b/".
+		 */
+		private final Map<String, List<String>> directories = new HashMap<String, List<String>>();
+
+		ModuleTree(final Path root) throws IOException
+		{
+			final Map<String, Set<String>> children = new HashMap<String, Set<String>>();
+
+			Files.walkFileTree(root, new SimpleFileVisitor<Path>()
+			{
+				@Override
+				public FileVisitResult preVisitDirectory(Path dir,
+						BasicFileAttributes attrs)
+				{
+					String path = relative(root, dir, true);
+
+					children.put(path, new TreeSet<String>());
+
+					if (path.length() > 0)
+						children.get(parentOf(path)).add(name(dir));
+
+					return FileVisitResult.CONTINUE;
+				}
+
+				@Override
+				public FileVisitResult visitFile(Path file,
+						BasicFileAttributes attrs)
+				{
+					String path = relative(root, file, false);
+
+					ModuleTree.this.files.add(path);
+
+					children.get(parentOf(path)).add(name(file));
+
+					return FileVisitResult.CONTINUE;
+				}
+			});
+
+			for (Map.Entry<String, Set<String>> directory : children.entrySet())
+			{
+				this.directories.put(directory.getKey(), Collections
+						.unmodifiableList(new ArrayList<String>(directory
+								.getValue())));
+			}
+		}
+
+		boolean contains(String path)
+		{
+			if (this.files.contains(path))
+				return true;
+
+			return this.directories.containsKey(PathUtils
+					.isClasspathDirectory(path)
+					|| path.length() == 0 ? path : path + "/");
+		}
+
+		private static String relative(Path root, Path path, boolean directory)
+		{
+			String relative = root.relativize(path).toString();
+
+			if (directory && relative.length() > 0)
+				return relative + "/";
+
+			return relative;
+		}
+
+		private static String parentOf(String path)
+		{
+			int end = path.endsWith("/") ? path.length() - 2
+					: path.length() - 1;
+
+			return path.substring(0, path.lastIndexOf('/', end) + 1);
+		}
+	}
+}
@@ -0,0 +1,183 @@
+/*
+ * Copyright [2013] PurePerfect.com Licensed under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except in compliance with the
+ * License.
+ * 
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pureperfect.pathutils;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Resolves paths in the run time image of Java 9 and later, i.e. jrt: urls
+ * such as jrt:/java.base/java/lang/. Paths are relative to the directory of
+ * the url, and may leave the module with "../", e.g. "../../java.sql/". The
+ * directory trees of the modules are read once and shared by all resolvers.
+ * 
+ * @version 0.3
+ * @since 0.3
+ */
+class JrtResolver extends PathResolver
+{
+	private final URL parent;
+
+	/**
+	 * The url path without the leading '/', e.g. "java.base/java/lang/" or
+	 * "java.base/" for a module.
+	 */
+	private final String base;
+
+	JrtResolver(URL parent)
+	{
+		this.parent = parent;
+
+		String path = parent.getPath();
+
+		if (path.startsWith("/"))
+			path = path.substring(1);
+
+		// A module is a directory.
+		if (path.length() > 0 && path.indexOf('/') < 0)
+			path += "/";
+
+		this.base = path;
+	}
+
+	@Override
+	public String getPath()
+	{
+		return this.parent.toString();
+	}
+
+	@Override
+	public List<String> getSubfiles(String regexMatch)
+	{
+		List<String> results = new LinkedList<String>();
+
+		NameMatcher matcher = NameMatcher.compile(regexMatch,
+				this.getMatchMode());
+
+		for (String name : this.list())
+		{
+			if (matcher.matches(name))
+				results.add(name);
+		}
+
+		return results;
+	}
+
+	@Override
+	public Map<String, List<String>> getSubfiles(
+			Collection<String> regexMatches)
+	{
+		NameMatcherSet matchers = new NameMatcherSet(regexMatches,
+				this.getMatchMode());
+
+		Map<String, List<String>> results = matchers.newResults();
+
+		for (String name : this.list())
+		{
+			matchers.match(name, name, results);
+		}
+
+		return results;
+	}
+
+	/**
+	 * The names in the directory of this resolver: the modules for the root
+	 * of the image, otherwise the files and directories in the module.
+	 */
+	private List<String> list()
+	{
+		JrtImage image = image();
+
+		String directory = this.base.substring(0,
+				this.base.lastIndexOf('/') + 1);
+
+		if (directory.length() == 0)
+			return image.modules();
+
+		int slash = directory.indexOf('/');
+
+		List<String> names = image.list(directory.substring(0, slash),
+				directory.substring(slash + 1));
+
+		return names == null ? Collections.<String> emptyList() : names;
+	}
+
+	private static JrtImage image()
+	{
+		JrtImage image = JrtImage.get();
+
+		if (image == null)
+			throw new PathResolutionException(
+					"The run time image cannot be read");
+
+		return image;
+	}
+
+	/**
+	 * The path from the root of the image, without a leading '/'.
+	 */
+	private String targetPath(String path)
+	{
+		String target = PathUtils.resolvePath(this.base, path);
+
+		return target.startsWith("/") ? target.substring(1) : target;
+	}
+
+	@Override
+	Object cacheKey(String path)
+	{
+		if (PathUtils.toURL(path) != null)
+			return null;
+
+		// The image does not change while the JVM runs.
+		return new ContentCache.Key(JrtResolver.class, NormalizedPath
+				.intern(this.targetPath(path)), 0);
+	}
+
+	@Override
+	public Object resolve(String path)
+	{
+		Object defaultVal = super.resolve(path);
+
+		if (defaultVal != null)
+			return defaultVal;
+
+		String target = this.targetPath(path);
+
+		int slash = target.indexOf('/');
+
+		boolean found = slash < 0 ? Collections.binarySearch(image()
+				.modules(), target) >= 0 : image().contains(
+				target.substring(0, slash), target.substring(slash + 1));
+
+		if (!found)
+			throw new PathResolutionException(path);
+
+		try
+		{
+			return new URL(this.parent, "/" + target);
+		}
+		catch (MalformedURLException e)
+		{
+			throw new PathResolutionException(e);
+		}
+	}
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright [2013] PurePerfect.com Licensed under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except in compliance with the
+ * License.
+ * 
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pureperfect.pathutils;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Stops after a number of bytes, even if the underlying stream has more.
+ * 
+ * @version 0.3
+ * @since 0.3
+ */
+final class LimitedInputStream extends FilterInputStream
+{
+	private long remaining;
+
+	LimitedInputStream(InputStream in, long length)
+	{
+		super(in);
+		this.remaining = length;
+	}
+
+	@Override
+	public int read() throws IOException
+	{
+		if (this.remaining <= 0)
+			return -1;
+
+		int c = this.in.read();
+
+		if (c >= 0)
+			--this.remaining;
+
+		return c;
+	}
+
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException
+	{
+		if (len == 0)
+			return 0;
+
+		if (this.remaining <= 0)
+			return -1;
+
+		int count = this.in.read(b, off,
+				(int) Math.min(len, this.remaining));
+
+		if (count > 0)
+			this.remaining -= count;
+
+		return count;
+	}
+
+	@Override
+	public long skip(long n) throws IOException
+	{
+		long count = this.in.skip(Math.min(n, this.remaining));
+
+		this.remaining -= count;
+
+		return count;
+	}
+
+	@Override
+	public int available() throws IOException
+	{
+		return (int) Math.min(this.in.available(), this.remaining);
+	}
+}
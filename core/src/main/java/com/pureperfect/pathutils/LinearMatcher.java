@@ -0,0 +1,1023 @@
+/*
+ * Copyright [2013] PurePerfect.com Licensed under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except in compliance with the
+ * License.
+ * 
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pureperfect.pathutils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * A regular expression compiled to a nondeterministic automaton and matched
+ * by tracking every state at once (Thompson's construction), so that matching
+ * takes time linear in the length of the name no matter what the expression
+ * is. Only constructs that can be matched this way are accepted; see
+ * {@link MatchMode#LINEAR}. Where it accepts an expression, the result is the
+ * same as {@link java.util.regex.Pattern#matches(String, CharSequence)}.
+ * 
+ * @version 0.3
+ * @since 0.3
+ */
+final class LinearMatcher extends NameMatcher
+{
+	/**
+	 * Upper bound on the size of the automaton, which counted repetitions
+	 * would otherwise let grow without limit.
+	 */
+	static final int MAX_STATES = 10000;
+
+	private static final int CHAR = 0;
+
+	private static final int SPLIT = 1;
+
+	private static final int MATCH = 2;
+
+	private final int[] types;
+
+	private final CharClass[] classes;
+
+	private final int[] out1;
+
+	private final int[] out2;
+
+	private final int start;
+
+	/**
+	 * @param expression
+	 *            what the matcher reports as its expression
+	 * @param regex
+	 *            the regular expression to compile
+	 * @throws PatternSyntaxException
+	 *             if the expression is invalid or not supported
+	 */
+	LinearMatcher(String expression, String regex)
+	{
+		super(expression);
+
+		Node root = new Parser(regex).parse();
+
+		Builder builder = new Builder(regex);
+
+		int match = builder.add(MATCH, null, -1, -1);
+
+		this.start = root.compile(builder, match);
+		this.types = Arrays.copyOf(builder.types, builder.size);
+		this.classes = Arrays.copyOf(builder.classes, builder.size);
+		this.out1 = Arrays.copyOf(builder.out1, builder.size);
+		this.out2 = Arrays.copyOf(builder.out2, builder.size);
+	}
+
+	/**
+	 * Translate a glob into the equivalent regular expression.
+	 * 
+	 * @param glob
+	 *            the glob
+	 * @return the regular expression
+	 * @throws PatternSyntaxException
+	 *             if the glob is invalid
+	 */
+	static String globToRegex(String glob)
+	{
+		StringBuilder regex = new StringBuilder(glob.length() + 16);
+
+		int braces = 0;
+
+		for (int i = 0; i < glob.length(); ++i)
+		{
+			char c = glob.charAt(i);
+
+			switch (c)
+			{
+			case '\\':
+				if (++i == glob.length())
+					throw new PatternSyntaxException("Trailing escape", glob,
+							i - 1);
+
+				quote(regex, glob.charAt(i));
+				break;
+			case '*':
+				if (i + 1 < glob.length() && glob.charAt(i + 1) == '*')
+				{
+					regex.append(".*");
+					++i;
+				}
+				else
+				{
+					regex.append("[^/]*");
+				}
+				break;
+			case '?':
+				regex.append("[^/]");
+				break;
+			case '[':
+				i = globClass(glob, i, regex);
+				break;
+			case '{':
+				regex.append("(?:");
+				++braces;
+				break;
+			case ',':
+				regex.append(braces > 0 ? "|" : ",");
+				break;
+			case '}':
+				if (braces > 0)
+				{
+					regex.append(')');
+					--braces;
+				}
+				else
+				{
+					quote(regex, c);
+				}
+				break;
+			default:
+				quote(regex, c);
+			}
+		}
+
+		if (braces > 0)
+			throw new PatternSyntaxException("Missing '}'", glob,
+					glob.length());
+
+		return regex.toString();
+	}
+
+	/**
+	 * Copy the class starting at the '[' at index i.
+	 * 
+	 * @return the index of the closing ']'
+	 */
+	private static int globClass(String glob, int i, StringBuilder regex)
+	{
+		int open = i;
+
+		regex.append('[');
+
+		if (++i < glob.length() && glob.charAt(i) == '!')
+		{
+			regex.append('^');
+			++i;
+		}
+
+		for (boolean first = true; i < glob.length(); ++i, first = false)
+		{
+			char c = glob.charAt(i);
+
+			if (c == ']' && !first)
+			{
+				regex.append(']');
+				return i;
+			}
+
+			if (c == '\\' && i + 1 < glob.length())
+				c = glob.charAt(++i);
+
+			if (c == '-' || Character.isLetterOrDigit(c))
+				regex.append(c);
+			else
+				regex.append('\\').append(c);
+		}
+
+		throw new PatternSyntaxException("Missing ']'", glob, open);
+	}
+
+	private static void quote(StringBuilder regex, char c)
+	{
+		if ("\\[]{}()*+?^$|.".indexOf(c) >= 0)
+			regex.append('\\');
+
+		regex.append(c);
+	}
+
+	@Override
+	boolean matches(CharSequence name)
+	{
+		for (int state : this.run(name))
+		{
+			if (this.types[state] == MATCH)
+				return true;
+		}
+
+		return false;
+	}
+
+	@Override
+	boolean couldMatchLonger(String prefix)
+	{
+		// The rest of a split character could still complete a match.
+		if (prefix.length() > 0
+				&& Character.isHighSurrogate(prefix.charAt(prefix.length() - 1)))
+			return true;
+
+		for (int state : this.run(prefix))
+		{
+			if (this.types[state] == CHAR)
+				return true;
+		}
+
+		return false;
+	}
+
+	/**
+	 * Feed the name through the automaton.
+	 * 
+	 * @return the states reached after the whole name
+	 */
+	private int[] run(CharSequence name)
+	{
+		int size = this.types.length;
+
+		int[] current = new int[size];
+		int[] next = new int[size];
+		int[] marks = new int[size];
+		int[] stack = new int[2 * size + 1];
+
+		int generation = 1;
+
+		int count = this.follow(this.start, current, 0, marks, generation,
+				stack);
+
+		for (int i = 0; i < name.length() && count > 0;)
+		{
+			int c = Character.codePointAt(name, i);
+
+			i += Character.charCount(c);
+
+			++generation;
+
+			int nextCount = 0;
+
+			for (int j = 0; j < count; ++j)
+			{
+				int state = current[j];
+
+				if (this.types[state] == CHAR
+						&& this.classes[state].contains(c))
+					nextCount = this.follow(this.out1[state], next, nextCount,
+							marks, generation, stack);
+			}
+
+			int[] swap = current;
+			current = next;
+			next = swap;
+			count = nextCount;
+		}
+
+		return Arrays.copyOf(current, count);
+	}
+
+	/**
+	 * Add the state, and every state reachable from it without consuming a
+	 * character, to the list.
+	 * 
+	 * @return the new length of the list
+	 */
+	private int follow(int state, int[] list, int count, int[] marks,
+			int generation, int[] stack)
+	{
+		int top = 0;
+
+		stack[top++] = state;
+
+		while (top > 0)
+		{
+			int s = stack[--top];
+
+			if (marks[s] == generation)
+				continue;
+
+			marks[s] = generation;
+
+			if (this.types[s] == SPLIT)
+			{
+				stack[top++] = this.out2[s];
+				stack[top++] = this.out1[s];
+			}
+			else
+			{
+				list[count++] = s;
+			}
+		}
+
+		return count;
+	}
+
+	/**
+	 * A set of code points, as sorted, disjoint, inclusive ranges.
+	 */
+	static final class CharClass
+	{
+		static final CharClass ANY = new CharClass(new int[] { '\n', '\n',
+				'\r', '\r', '\u0085', '\u0085', '\u2028', '\u2029' })
+				.complement();
+
+		static final CharClass DIGIT = new CharClass(new int[] { '0', '9' });
+
+		static final CharClass WORD = new CharClass(new int[] { '0', '9', 'A',
+				'Z', '_', '_', 'a', 'z' });
+
+		static final CharClass SPACE = new CharClass(new int[] { '\t', '\r',
+				' ', ' ' });
+
+		private final int[] ranges;
+
+		private CharClass(int[] ranges)
+		{
+			this.ranges = ranges;
+		}
+
+		static CharClass of(int c)
+		{
+			return new CharClass(new int[] { c, c });
+		}
+
+		boolean isSingle()
+		{
+			return this.ranges.length == 2 && this.ranges[0] == this.ranges[1];
+		}
+
+		boolean contains(int c)
+		{
+			for (int i = 0; i < this.ranges.length && this.ranges[i] <= c; i += 2)
+			{
+				if (c <= this.ranges[i + 1])
+					return true;
+			}
+
+			return false;
+		}
+
+		CharClass complement()
+		{
+			int[] result = new int[this.ranges.length + 2];
+
+			int count = 0;
+
+			int next = 0;
+
+			for (int i = 0; i < this.ranges.length; i += 2)
+			{
+				if (this.ranges[i] > next)
+				{
+					result[count++] = next;
+					result[count++] = this.ranges[i] - 1;
+				}
+
+				next = this.ranges[i + 1] + 1;
+			}
+
+			if (next <= Character.MAX_CODE_POINT)
+			{
+				result[count++] = next;
+				result[count++] = Character.MAX_CODE_POINT;
+			}
+
+			return new CharClass(Arrays.copyOf(result, count));
+		}
+
+		/**
+		 * The union of the ranges, given as (low, high) pairs in any order.
+		 */
+		static CharClass union(List<int[]> ranges)
+		{
+			int[][] sorted = ranges.toArray(new int[ranges.size()][]);
+
+			Arrays.sort(sorted, new Comparator<int[]>()
+			{
+				@Override
+				public int compare(int[] o1, int[] o2)
+				{
+					return o1[0] < o2[0] ? -1 : o1[0] == o2[0] ? 0 : 1;
+				}
+			});
+
+			int[] result = new int[sorted.length * 2];
+
+			int count = 0;
+
+			for (int[] range : sorted)
+			{
+				if (count > 0 && range[0] <= result[count - 1] + 1)
+				{
+					result[count - 1] = Math.max(result[count - 1], range[1]);
+				}
+				else
+				{
+					result[count++] = range[0];
+					result[count++] = range[1];
+				}
+			}
+
+			return new CharClass(Arrays.copyOf(result, count));
+		}
+
+		void addTo(List<int[]> ranges)
+		{
+			for (int i = 0; i < this.ranges.length; i += 2)
+			{
+				ranges.add(new int[] { this.ranges[i], this.ranges[i + 1] });
+			}
+		}
+	}
+
+	/**
+	 * The automaton under construction. States are built back to front, so
+	 * every state already knows its successors.
+	 */
+	private static final class Builder
+	{
+		private final String regex;
+
+		int[] types = new int[16];
+
+		CharClass[] classes = new CharClass[16];
+
+		int[] out1 = new int[16];
+
+		int[] out2 = new int[16];
+
+		int size;
+
+		Builder(String regex)
+		{
+			this.regex = regex;
+		}
+
+		int add(int type, CharClass cls, int next1, int next2)
+		{
+			if (this.size == MAX_STATES)
+				throw new PatternSyntaxException("Expression is too large",
+						this.regex, -1);
+
+			if (this.size == this.types.length)
+			{
+				int capacity = this.size * 2;
+
+				this.types = Arrays.copyOf(this.types, capacity);
+				this.classes = Arrays.copyOf(this.classes, capacity);
+				this.out1 = Arrays.copyOf(this.out1, capacity);
+				this.out2 = Arrays.copyOf(this.out2, capacity);
+			}
+
+			this.types[this.size] = type;
+			this.classes[this.size] = cls;
+			this.out1[this.size] = next1;
+			this.out2[this.size] = next2;
+
+			return this.size++;
+		}
+	}
+
+	private abstract static class Node
+	{
+		/**
+		 * Build the states for this node.
+		 * 
+		 * @param next
+		 *            the state to continue with after this node
+		 * @return the first state of this node
+		 */
+		abstract int compile(Builder builder, int next);
+	}
+
+	private static final class Chars extends Node
+	{
+		private final CharClass cls;
+
+		Chars(CharClass cls)
+		{
+			this.cls = cls;
+		}
+
+		@Override
+		int compile(Builder builder, int next)
+		{
+			return builder.add(CHAR, this.cls, next, -1);
+		}
+	}
+
+	private static final class Sequence extends Node
+	{
+		private final List<Node> items;
+
+		Sequence(List<Node> items)
+		{
+			this.items = items;
+		}
+
+		@Override
+		int compile(Builder builder, int next)
+		{
+			for (int i = this.items.size() - 1; i >= 0; --i)
+			{
+				next = this.items.get(i).compile(builder, next);
+			}
+
+			return next;
+		}
+	}
+
+	private static final class Alternation extends Node
+	{
+		private final List<Node> alternatives;
+
+		Alternation(List<Node> alternatives)
+		{
+			this.alternatives = alternatives;
+		}
+
+		@Override
+		int compile(Builder builder, int next)
+		{
+			int last = this.alternatives.size() - 1;
+
+			int result = this.alternatives.get(last).compile(builder, next);
+
+			for (int i = last - 1; i >= 0; --i)
+			{
+				int first = this.alternatives.get(i).compile(builder, next);
+
+				result = builder.add(SPLIT, null, first, result);
+			}
+
+			return result;
+		}
+	}
+
+	private static final class Repeat extends Node
+	{
+		private final Node body;
+
+		private final int min;
+
+		/** -1 if unbounded. */
+		private final int max;
+
+		Repeat(Node body, int min, int max)
+		{
+			this.body = body;
+			this.min = min;
+			this.max = max;
+		}
+
+		@Override
+		int compile(Builder builder, int next)
+		{
+			int result;
+
+			if (this.max < 0)
+			{
+				// A loop back to a split that either repeats or moves on.
+				result = builder.add(SPLIT, null, -1, next);
+
+				// Compiling the body may replace the arrays.
+				int body = this.body.compile(builder, result);
+
+				builder.out1[result] = body;
+			}
+			else
+			{
+				result = next;
+
+				for (int i = this.min; i < this.max; ++i)
+				{
+					int optional = this.body.compile(builder, result);
+
+					result = builder.add(SPLIT, null, optional, next);
+				}
+			}
+
+			for (int i = 0; i < this.min; ++i)
+			{
+				result = this.body.compile(builder, result);
+			}
+
+			return result;
+		}
+	}
+
+	/**
+	 * Recursive descent parser for the supported subset of
+	 * {@link java.util.regex.Pattern} syntax.
+	 */
+	private static final class Parser
+	{
+		private final String regex;
+
+		private int pos;
+
+		Parser(String regex)
+		{
+			this.regex = regex;
+		}
+
+		Node parse()
+		{
+			Node root = this.alternation();
+
+			if (this.pos < this.regex.length())
+				throw this.error("Unmatched closing ')'");
+
+			return root;
+		}
+
+		private Node alternation()
+		{
+			List<Node> alternatives = new ArrayList<Node>();
+
+			alternatives.add(this.sequence());
+
+			while (this.peek() == '|')
+			{
+				++this.pos;
+				alternatives.add(this.sequence());
+			}
+
+			return alternatives.size() == 1 ? alternatives.get(0)
+					: new Alternation(alternatives);
+		}
+
+		private Node sequence()
+		{
+			List<Node> items = new ArrayList<Node>();
+
+			while (this.pos < this.regex.length() && this.peek() != '|'
+					&& this.peek() != ')')
+			{
+				items.add(this.repeat());
+			}
+
+			return items.size() == 1 ? items.get(0) : new Sequence(items);
+		}
+
+		private Node repeat()
+		{
+			boolean quoted = this.regex.startsWith("\\Q", this.pos);
+
+			Node atom = this.atom();
+
+			int min;
+			int max;
+
+			switch (this.peek())
+			{
+			case '*':
+				min = 0;
+				max = -1;
+				++this.pos;
+				break;
+			case '+':
+				min = 1;
+				max = -1;
+				++this.pos;
+				break;
+			case '?':
+				min = 0;
+				max = 1;
+				++this.pos;
+				break;
+			case '{':
+				++this.pos;
+				min = this.number();
+				max = min;
+
+				if (this.peek() == ',')
+				{
+					++this.pos;
+					max = this.peek() == '}' ? -1 : this.number();
+				}
+
+				if (this.peek() != '}')
+					throw this.error("Unclosed counted closure");
+
+				++this.pos;
+
+				if (max >= 0 && max < min)
+					throw this.error("Illegal repetition range");
+				break;
+			default:
+				return atom;
+			}
+
+			// Reluctance does not change whether the whole name matches.
+			if (this.peek() == '?')
+				++this.pos;
+			else if (this.peek() == '+')
+				throw this.error("Possessive quantifiers are not supported");
+
+			if (this.peek() == '*' || this.peek() == '+'
+					|| this.peek() == '?' || this.peek() == '{')
+				throw this.error("Repeated quantifiers are not supported");
+
+			if (quoted)
+			{
+				// As in Pattern, only the last quoted character repeats.
+				List<Node> items = new ArrayList<Node>(((Sequence) atom).items);
+
+				if (items.isEmpty())
+					throw this.error("Quantifiers after an empty quote are "
+							+ "not supported");
+
+				items.add(new Repeat(items.remove(items.size() - 1), min, max));
+
+				return new Sequence(items);
+			}
+
+			return new Repeat(atom, min, max);
+		}
+
+		private int number()
+		{
+			int begin = this.pos;
+
+			while (this.peek() >= '0' && this.peek() <= '9')
+			{
+				++this.pos;
+			}
+
+			if (begin == this.pos || this.pos - begin > 4)
+				throw this.error("Illegal repetition");
+
+			return Integer.parseInt(this.regex.substring(begin, this.pos));
+		}
+
+		private Node atom()
+		{
+			int c = this.peek();
+
+			switch (c)
+			{
+			case '(':
+				++this.pos;
+
+				if (this.regex.startsWith("?:", this.pos))
+					this.pos += 2;
+				else if (this.peek() == '?')
+					throw this.error("Only (?:...) groups are supported");
+
+				Node group = this.alternation();
+
+				if (this.peek() != ')')
+					throw this.error("Unclosed group");
+
+				++this.pos;
+
+				return group;
+			case '[':
+				return new Chars(this.characterClass());
+			case '.':
+				++this.pos;
+				return new Chars(CharClass.ANY);
+			case '\\':
+				++this.pos;
+
+				if (this.peek() == 'Q')
+					return this.quoted();
+
+				return new Chars(this.escape());
+			case '^':
+				if (this.pos != 0)
+					throw this.error("'^' is only supported at the start");
+
+				++this.pos;
+				return new Sequence(new ArrayList<Node>(0));
+			case '$':
+				if (this.pos != this.regex.length() - 1)
+					throw this.error("'$' is only supported at the end");
+
+				++this.pos;
+				return new Sequence(new ArrayList<Node>(0));
+			case '*':
+			case '+':
+			case '?':
+				throw this.error("Dangling meta character '" + (char) c + "'");
+			case '{':
+				throw this.error("Illegal repetition");
+			default:
+				this.pos += Character.charCount(c);
+				return new Chars(CharClass.of(c));
+			}
+		}
+
+		/**
+		 * Literal text between \Q and \E.
+		 */
+		private Node quoted()
+		{
+			++this.pos;
+
+			int end = this.regex.indexOf("\\E", this.pos);
+
+			if (end < 0)
+				end = this.regex.length();
+
+			List<Node> items = new ArrayList<Node>();
+
+			for (int i = this.pos; i < end;)
+			{
+				int c = this.regex.codePointAt(i);
+
+				items.add(new Chars(CharClass.of(c)));
+
+				i += Character.charCount(c);
+			}
+
+			this.pos = Math.min(end + 2, this.regex.length());
+
+			return new Sequence(items);
+		}
+
+		private CharClass characterClass()
+		{
+			int open = this.pos++;
+
+			boolean negated = false;
+
+			if (this.peek() == '^')
+			{
+				negated = true;
+				++this.pos;
+			}
+
+			List<int[]> ranges = new ArrayList<int[]>();
+
+			for (boolean first = true;; first = false)
+			{
+				if (this.pos >= this.regex.length())
+					throw new PatternSyntaxException("Unclosed character class",
+							this.regex, open);
+
+				int c = this.peek();
+
+				if (c == ']' && !first)
+				{
+					++this.pos;
+					break;
+				}
+
+				if (c == '[')
+					throw this.error("Nested character classes are not supported");
+
+				if (c == '&' && this.regex.startsWith("&&", this.pos))
+					throw this.error("Class intersection is not supported");
+
+				int low;
+
+				if (c == '\\')
+				{
+					++this.pos;
+
+					CharClass escaped = this.escape();
+
+					if (!escaped.isSingle())
+					{
+						escaped.addTo(ranges);
+						continue;
+					}
+
+					low = escaped.ranges[0];
+				}
+				else
+				{
+					low = c;
+					this.pos += Character.charCount(c);
+				}
+
+				int high = low;
+
+				if (this.peek() == '-' && this.pos + 1 < this.regex.length()
+						&& this.regex.charAt(this.pos + 1) != ']')
+				{
+					++this.pos;
+
+					c = this.peek();
+
+					if (c == '[')
+						throw this.error("Nested character classes are not supported");
+
+					if (c == '\\')
+					{
+						++this.pos;
+
+						CharClass escaped = this.escape();
+
+						if (!escaped.isSingle())
+							throw this.error("Illegal character range");
+
+						high = escaped.ranges[0];
+					}
+					else
+					{
+						high = c;
+						this.pos += Character.charCount(c);
+					}
+
+					if (high < low)
+						throw this.error("Illegal character range");
+				}
+
+				ranges.add(new int[] { low, high });
+			}
+
+			CharClass cls = CharClass.union(ranges);
+
+			return negated ? cls.complement() : cls;
+		}
+
+		/**
+		 * The character or class after a backslash.
+		 */
+		private CharClass escape()
+		{
+			if (this.pos >= this.regex.length())
+				throw this.error("Unexpected internal error");
+
+			int c = this.regex.codePointAt(this.pos);
+
+			this.pos += Character.charCount(c);
+
+			switch (c)
+			{
+			case 'd':
+				return CharClass.DIGIT;
+			case 'D':
+				return CharClass.DIGIT.complement();
+			case 'w':
+				return CharClass.WORD;
+			case 'W':
+				return CharClass.WORD.complement();
+			case 's':
+				return CharClass.SPACE;
+			case 'S':
+				return CharClass.SPACE.complement();
+			case 't':
+				return CharClass.of('\t');
+			case 'n':
+				return CharClass.of('\n');
+			case 'r':
+				return CharClass.of('\r');
+			case 'f':
+				return CharClass.of('\f');
+			case 'a':
+				return CharClass.of('\u0007');
+			case 'e':
+				return CharClass.of('\u001B');
+			case 'x':
+				return CharClass.of(this.hex(2));
+			case 'u':
+				return CharClass.of(this.hex(4));
+			default:
+				if (Character.isLetterOrDigit(c))
+					throw this.error("Unsupported escape sequence");
+
+				return CharClass.of(c);
+			}
+		}
+
+		private int hex(int digits)
+		{
+			if (this.pos + digits > this.regex.length())
+				throw this.error("Illegal hexadecimal escape sequence");
+
+			try
+			{
+				int value = Integer.parseInt(this.regex.substring(this.pos,
+						this.pos + digits), 16);
+
+				this.pos += digits;
+
+				return value;
+			}
+			catch (NumberFormatException e)
+			{
+				throw this.error("Illegal hexadecimal escape sequence");
+			}
+		}
+
+		private int peek()
+		{
+			return this.pos < this.regex.length() ? this.regex
+					.codePointAt(this.pos) : -1;
+		}
+
+		private PatternSyntaxException error(String description)
+		{
+			return new PatternSyntaxException(description, this.regex,
+					this.pos);
+		}
+	}
+}
@@ -0,0 +1,194 @@
+/*
+ * Copyright [2013] PurePerfect.com Licensed under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except in compliance with the
+ * License.
+ * 
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pureperfect.pathutils;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Values computed once per class loader. Class loaders are only weakly
+ * referenced, so a value is dropped once its class loader is garbage
+ * collected, e.g. after a redeploy. Values must not refer to their class
+ * loader, or to classes it loaded, or the class loader is never collected.
+ * <p>
+ * Each value is computed by the first thread to ask for it; other threads
+ * asking for the same class loader wait for it, while those asking for other
+ * class loaders do not.
+ * </p>
+ * 
+ * @version 0.3
+ * @since 0.3
+ */
+abstract class LoaderCache<V>
+{
+	private final ConcurrentMap<LoaderKey, FutureTask<V>> values = new ConcurrentHashMap<LoaderKey, FutureTask<V>>();
+
+	private final ReferenceQueue<ClassLoader> released = new ReferenceQueue<ClassLoader>();
+
+	/**
+	 * The value for the bootstrap class loader, i.e. a null class loader.
+	 */
+	private final FutureTask<V> bootstrap = this.task(null);
+
+	/**
+	 * Compute the value for a class loader.
+	 * 
+	 * @param loader
+	 *            the class loader, or null for the bootstrap class loader
+	 * @return the value
+	 */
+	protected abstract V create(ClassLoader loader);
+
+	/**
+	 * Get the value for the class loader, computing it the first time.
+	 * 
+	 * @param loader
+	 *            the class loader, or null for the bootstrap class loader
+	 * @return the value
+	 */
+	V get(ClassLoader loader)
+	{
+		this.expungeReleased();
+
+		if (loader == null)
+		{
+			// Runs once; later calls do nothing.
+			this.bootstrap.run();
+
+			return this.result(null, this.bootstrap);
+		}
+
+		FutureTask<V> task = this.values.get(new LoaderKey(loader, null));
+
+		if (task == null)
+		{
+			FutureTask<V> created = this.task(loader);
+
+			task = this.values.putIfAbsent(new LoaderKey(loader,
+					this.released), created);
+
+			if (task == null)
+			{
+				task = created;
+				task.run();
+			}
+		}
+
+		return this.result(loader, task);
+	}
+
+	/**
+	 * The number of class loaders with a value.
+	 * 
+	 * @return the number of class loaders with a value
+	 */
+	int size()
+	{
+		this.expungeReleased();
+
+		return this.values.size();
+	}
+
+	private FutureTask<V> task(final ClassLoader loader)
+	{
+		// A FutureTask drops its callable, and so the loader, once it is done.
+		return new FutureTask<V>(new Callable<V>()
+		{
+			@Override
+			public V call()
+			{
+				return LoaderCache.this.create(loader);
+			}
+		});
+	}
+
+	private V result(ClassLoader loader, FutureTask<V> task)
+	{
+		try
+		{
+			return task.get();
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+
+			throw new PathResolutionException(e);
+		}
+		catch (ExecutionException e)
+		{
+			// Try again next time.
+			if (loader != null)
+				this.values.remove(new LoaderKey(loader, null), task);
+
+			if (e.getCause() instanceof RuntimeException)
+				throw (RuntimeException) e.getCause();
+
+			if (e.getCause() instanceof Error)
+				throw (Error) e.getCause();
+
+			throw new PathResolutionException(e.getCause());
+		}
+	}
+
+	private void expungeReleased()
+	{
+		for (Object ref = this.released.poll(); ref != null; ref = this.released
+				.poll())
+		{
+			this.values.remove(ref);
+		}
+	}
+
+	/**
+	 * Compares class loaders by identity.
+	 */
+	private static final class LoaderKey extends WeakReference<ClassLoader>
+	{
+		private final int hash;
+
+		LoaderKey(ClassLoader loader, ReferenceQueue<ClassLoader> queue)
+		{
+			super(loader, queue);
+			this.hash = System.identityHashCode(loader);
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return this.hash;
+		}
+
+		@Override
+		public boolean equals(Object obj)
+		{
+			if (this == obj)
+				return true;
+
+			if (!(obj instanceof LoaderKey))
+				return false;
+
+			ClassLoader loader = this.get();
+
+			// A released key is only equal to itself.
+			return loader != null && loader == ((LoaderKey) obj).get();
+		}
+	}
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright [2013] PurePerfect.com Licensed under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except in compliance with the
+ * License.
+ * 
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pureperfect.pathutils;
+
+/**
+ * How {@link PathResolver#getSubfiles(String)} interprets its expression.
+ * 
+ * @version 0.3
+ * @since 0.3
+ */
+public enum MatchMode
+{
+	/**
+	 * A {@link java.util.regex.Pattern} regular expression. This is the
+	 * default.
+	 */
+	REGEX,
+
+	/**
+	 * A regular expression matched in time linear in the length of the name,
+	 * for expressions that come from untrusted input. Groups, alternation,
+	 * character classes and greedy or reluctant quantifiers are supported.
+	 * Back references, lookaround, anchors other than a leading '^' and a
+	 * trailing '$', possessive quantifiers, inline flags and other constructs
+	 * that cannot be matched in linear time are rejected with a
+	 * {@link java.util.regex.PatternSyntaxException}.
+	 */
+	LINEAR,
+
+	/**
+	 * A glob, matched in linear time: '*' matches within a directory, '**'
+	 * across directories, '?' one character, [abc] and [!abc] a character
+	 * class and {a,b} either alternative.
+	 */
+	GLOB
+}
@@ -0,0 +1,357 @@
+/*
+ * Copyright [2013] PurePerfect.com Licensed under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except in compliance with the
+ * License.
+ * 
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pureperfect.pathutils;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A compiled name expression, shared by all resolvers. Expressions are
+ * compiled once and kept in a bounded cache. Expressions without
+ * metacharacters, and literal text followed by ".*", are matched with string
+ * comparisons instead of the regex engine; the result is always the same as
+ * {@link Pattern#matches(String, CharSequence)}. See {@link MatchMode} for the
+ * other kinds of expression.
+ * <p>
+ * Instances are immutable and safe to share between threads.
+ * </p>
+ * 
+ * @version 0.3
+ * @since 0.3
+ */
+abstract class NameMatcher
+{
+	static final int CACHE_SIZE = 512;
+
+	private static final String METACHARACTERS = "\\[]{}()*+?^$|";
+
+	private static final Map<MatchMode, Map<String, NameMatcher>> CACHES = new EnumMap<MatchMode, Map<String, NameMatcher>>(
+			MatchMode.class);
+
+	static
+	{
+		for (MatchMode mode : MatchMode.values())
+		{
+			CACHES.put(mode, new LinkedHashMap<String, NameMatcher>(
+					CACHE_SIZE * 4 / 3 + 1, 0.75f, true)
+			{
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected boolean removeEldestEntry(
+						Map.Entry<String, NameMatcher> eldest)
+				{
+					return this.size() > CACHE_SIZE;
+				}
+			});
+		}
+	}
+
+	private final String expression;
+
+	NameMatcher(String expression)
+	{
+		this.expression = expression;
+	}
+
+	/**
+	 * Get the compiled form of the expression.
+	 * 
+	 * @param regex
+	 *            the regular expression
+	 * @return the matcher
+	 * @throws java.util.regex.PatternSyntaxException
+	 *             if the expression is not valid
+	 */
+	static NameMatcher compile(String regex)
+	{
+		return compile(regex, MatchMode.REGEX);
+	}
+
+	/**
+	 * Get the compiled form of the expression.
+	 * 
+	 * @param expression
+	 *            the expression
+	 * @param mode
+	 *            how to interpret the expression
+	 * @return the matcher
+	 * @throws java.util.regex.PatternSyntaxException
+	 *             if the expression is not valid, or not supported by the
+	 *             mode
+	 */
+	static NameMatcher compile(String expression, MatchMode mode)
+	{
+		Map<String, NameMatcher> cache = CACHES.get(mode);
+
+		synchronized (cache)
+		{
+			NameMatcher matcher = cache.get(expression);
+
+			if (matcher != null)
+				return matcher;
+		}
+
+		NameMatcher matcher = create(expression, mode);
+
+		synchronized (cache)
+		{
+			cache.put(expression, matcher);
+		}
+
+		return matcher;
+	}
+
+	private static NameMatcher create(String expression, MatchMode mode)
+	{
+		if (mode == MatchMode.GLOB)
+		{
+			if (isLiteralGlob(expression))
+				return new Literal(expression);
+
+			if (expression.endsWith("**"))
+			{
+				String prefix = expression.substring(0,
+						expression.length() - 2);
+
+				if (isLiteralGlob(prefix))
+					return new Prefix(expression, prefix);
+			}
+
+			return new LinearMatcher(expression,
+					LinearMatcher.globToRegex(expression));
+		}
+
+		if (isLiteral(expression))
+			return new Literal(expression);
+
+		if (expression.endsWith(".*"))
+		{
+			String prefix = expression.substring(0, expression.length() - 2);
+
+			if (isLiteral(prefix))
+				return new Prefix(expression, prefix);
+		}
+
+		if (mode == MatchMode.LINEAR)
+			return new LinearMatcher(expression, expression);
+
+		return new Expression(expression);
+	}
+
+	private static boolean isLiteralGlob(String glob)
+	{
+		for (int i = 0; i < glob.length(); ++i)
+		{
+			if ("\\*?[{}".indexOf(glob.charAt(i)) >= 0)
+				return false;
+		}
+
+		return true;
+	}
+
+	/**
+	 * The expression this matcher was compiled from.
+	 * 
+	 * @return The expression this matcher was compiled from.
+	 */
+	String getExpression()
+	{
+		return this.expression;
+	}
+
+	/**
+	 * Whether or not the only thing the expression matches is itself.
+	 * 
+	 * @return Whether or not the expression is plain text.
+	 */
+	boolean isLiteral()
+	{
+		return false;
+	}
+
+	/**
+	 * Whether or not the whole name matches the expression.
+	 * 
+	 * @param name
+	 *            the name to test
+	 * @return Whether or not the whole name matches the expression.
+	 */
+	abstract boolean matches(CharSequence name);
+
+	/**
+	 * Whether or not some name longer than the given one, and starting with
+	 * it, could match. Used to skip directories that cannot contain a match.
+	 * 
+	 * @param prefix
+	 *            the start of a name
+	 * @return false only if no name starting with the prefix can match.
+	 */
+	abstract boolean couldMatchLonger(String prefix);
+
+	@Override
+	public String toString()
+	{
+		return this.expression;
+	}
+
+	/**
+	 * Whether or not the path reads the same as a regular expression and as a
+	 * literal, i.e. it only contains characters that match themselves. '.' is
+	 * allowed since it matches itself as well as anything else.
+	 * 
+	 * @param path
+	 *            the path to test
+	 * @return Whether or not a literal match also satisfies the expression.
+	 */
+	static boolean matchesItself(CharSequence path)
+	{
+		for (int i = 0; i < path.length(); ++i)
+		{
+			if (METACHARACTERS.indexOf(path.charAt(i)) >= 0)
+				return false;
+		}
+
+		return true;
+	}
+
+	/**
+	 * Whether or not the only thing the path can match as a regular expression
+	 * is itself.
+	 * 
+	 * @param path
+	 *            the path to test
+	 * @return Whether or not the path is free of regex metacharacters.
+	 */
+	static boolean isLiteral(String path)
+	{
+		return matchesItself(path) && path.indexOf('.') < 0;
+	}
+
+	/**
+	 * Whether or not '.' can match the character, i.e. it is not a line
+	 * terminator.
+	 */
+	private static boolean isAny(char c)
+	{
+		return c != '\n' && c != '\r' && c != '\u0085' && c != '\u2028'
+				&& c != '\u2029';
+	}
+
+	private static final class Literal extends NameMatcher
+	{
+		Literal(String expression)
+		{
+			super(expression);
+		}
+
+		@Override
+		boolean isLiteral()
+		{
+			return true;
+		}
+
+		@Override
+		boolean matches(CharSequence name)
+		{
+			return this.getExpression().contentEquals(name);
+		}
+
+		@Override
+		boolean couldMatchLonger(String prefix)
+		{
+			return this.getExpression().length() > prefix.length()
+					&& this.getExpression().startsWith(prefix);
+		}
+	}
+
+	private static final class Prefix extends NameMatcher
+	{
+		private final String prefix;
+
+		Prefix(String expression, String prefix)
+		{
+			super(expression);
+			this.prefix = prefix;
+		}
+
+		@Override
+		boolean matches(CharSequence name)
+		{
+			int length = this.prefix.length();
+
+			if (name.length() < length)
+				return false;
+
+			for (int i = 0; i < length; ++i)
+			{
+				if (name.charAt(i) != this.prefix.charAt(i))
+					return false;
+			}
+
+			for (int i = length; i < name.length(); ++i)
+			{
+				if (!isAny(name.charAt(i)))
+					return false;
+			}
+
+			return true;
+		}
+
+		@Override
+		boolean couldMatchLonger(String start)
+		{
+			if (start.length() <= this.prefix.length())
+				return this.prefix.startsWith(start);
+
+			return this.matches(start);
+		}
+	}
+
+	private static final class Expression extends NameMatcher
+	{
+		private final Pattern pattern;
+
+		Expression(String expression)
+		{
+			super(expression);
+			this.pattern = Pattern.compile(expression);
+		}
+
+		@Override
+		boolean matches(CharSequence name)
+		{
+			return this.pattern.matcher(name).matches();
+		}
+
+		@Override
+		boolean couldMatchLonger(String prefix)
+		{
+			/*
+			 * hitEnd() tells us whether more input could still change the
+			 * outcome.
+			 */
+			Matcher matcher = this.pattern.matcher(prefix);
+
+			matcher.matches();
+
+			return matcher.hitEnd();
+		}
+	}
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright [2013] PurePerfect.com Licensed under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except in compliance with the
+ * License.
+ * 
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pureperfect.pathutils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Several name expressions matched together, so that a listing can be read
+ * once for all of them. Plain names are found with a single hash lookup per
+ * name no matter how many of them there are; only the remaining expressions
+ * are tested one by one.
+ * 
+ * @version 0.3
+ * @since 0.3
+ */
+final class NameMatcherSet
+{
+	private final List<String> expressions = new ArrayList<String>();
+
+	private final Map<String, NameMatcher> literals = new HashMap<String, NameMatcher>();
+
+	private final List<NameMatcher> matchers = new ArrayList<NameMatcher>();
+
+	/**
+	 * @param regexes
+	 *            the regular expressions; duplicates are ignored
+	 */
+	NameMatcherSet(Collection<String> regexes)
+	{
+		this(regexes, MatchMode.REGEX);
+	}
+
+	/**
+	 * @param expressions
+	 *            the expressions; duplicates are ignored
+	 * @param mode
+	 *            how to interpret the expressions
+	 */
+	NameMatcherSet(Collection<String> expressions, MatchMode mode)
+	{
+		for (String expression : expressions)
+		{
+			if (this.expressions.contains(expression))
+				continue;
+
+			this.expressions.add(expression);
+
+			NameMatcher matcher = NameMatcher.compile(expression, mode);
+
+			if (matcher.isLiteral())
+				this.literals.put(expression, matcher);
+			else
+				this.matchers.add(matcher);
+		}
+	}
+
+	/**
+	 * The distinct expressions, in the order they were given.
+	 * 
+	 * @return The distinct expressions.
+	 */
+	List<String> expressions()
+	{
+		return this.expressions;
+	}
+
+	/**
+	 * Create an empty result list for every expression.
+	 * 
+	 * @return the results, keyed by expression in the order given
+	 */
+	<T> Map<String, List<T>> newResults()
+	{
+		Map<String, List<T>> results = new LinkedHashMap<String, List<T>>();
+
+		for (String expression : this.expressions)
+		{
+			results.put(expression, new LinkedList<T>());
+		}
+
+		return results;
+	}
+
+	/**
+	 * Add the value to the results of every expression that matches the name.
+	 * 
+	 * @param name
+	 *            the name to test
+	 * @param value
+	 *            what to record for a match
+	 * @param results
+	 *            results created by {@link #newResults()}
+	 */
+	<T> void match(String name, T value, Map<String, List<T>> results)
+	{
+		if (this.literals.containsKey(name))
+			results.get(name).add(value);
+
+		for (NameMatcher matcher : this.matchers)
+		{
+			if (matcher.matches(name))
+				results.get(matcher.getExpression()).add(value);
+		}
+	}
+
+	/**
+	 * Whether or not any of the expressions could match a name starting with
+	 * the prefix.
+	 * 
+	 * @param prefix
+	 *            the start of a name
+	 * @return false only if no name starting with the prefix can match.
+	 */
+	boolean couldMatchLonger(String prefix)
+	{
+		for (NameMatcher literal : this.literals.values())
+		{
+			if (literal.couldMatchLonger(prefix))
+				return true;
+		}
+
+		for (NameMatcher matcher : this.matchers)
+		{
+			if (matcher.couldMatchLonger(prefix))
+				return true;
+		}
+
+		return false;
+	}
+}
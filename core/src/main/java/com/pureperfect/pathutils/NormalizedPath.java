@@ -0,0 +1,350 @@
+/*
+ * Copyright [2013] PurePerfect.com Licensed under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except in compliance with the
+ * License.
+ * 
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pureperfect.pathutils;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * An immutable, normalized path, e.g. "foo/bar/baz.txt" or "foo/bar/". Paths
+ * are normalized with {@link PathUtils#processNavigation(CharSequence)} once,
+ * when they are created, and interned: equal paths are the same instance as
+ * long as one of them is in use, so comparing them is usually an identity
+ * check. The hash code and the segment boundaries are computed up front,
+ * which makes paths cheap map keys: the class path index and the content cache
+ * are keyed by them.
+ * 
+ * @version 0.3
+ * @since 0.3
+ */
+public final class NormalizedPath implements CharSequence,
+		Comparable<NormalizedPath>
+{
+	private static final ConcurrentMap<String, PathReference> INTERNED = new ConcurrentHashMap<String, PathReference>();
+
+	private static final ReferenceQueue<NormalizedPath> RELEASED = new ReferenceQueue<NormalizedPath>();
+
+	private static final int[] NO_SEGMENTS = new int[0];
+
+	/**
+	 * The empty path, which is the root that all other paths are relative to.
+	 */
+	public static final NormalizedPath ROOT = intern("");
+
+	private final String path;
+
+	private final int hash;
+
+	/**
+	 * The end offset of every segment. A trailing '/' does not start another
+	 * segment.
+	 */
+	private final int[] ends;
+
+	private NormalizedPath(String path)
+	{
+		this.path = path;
+		this.hash = path.hashCode();
+		this.ends = segmentEnds(path);
+	}
+
+	private static int[] segmentEnds(String path)
+	{
+		if (path.length() == 0)
+			return NO_SEGMENTS;
+
+		int count = 1;
+
+		for (int i = 0; i < path.length() - 1; ++i)
+		{
+			if (path.charAt(i) == '/')
+				++count;
+		}
+
+		int[] ends = new int[count];
+
+		for (int i = 0, segment = 0; i < path.length(); ++i)
+		{
+			if (path.charAt(i) == '/')
+				ends[segment++] = i;
+		}
+
+		if (path.charAt(path.length() - 1) != '/')
+			ends[count - 1] = path.length();
+
+		return ends;
+	}
+
+	/**
+	 * Normalize the path. "./" and "../" are processed and a leading '/' is
+	 * removed.
+	 * 
+	 * @param path
+	 *            the path
+	 * @return the normalized path
+	 */
+	public static NormalizedPath of(CharSequence path)
+	{
+		if (path instanceof NormalizedPath)
+			return (NormalizedPath) path;
+
+		return intern(PathUtils.normalize(path));
+	}
+
+	/**
+	 * Get the shared instance for a path that is already normalized.
+	 * 
+	 * @param normalized
+	 *            the normalized path
+	 * @return the path
+	 */
+	static NormalizedPath intern(String normalized)
+	{
+		for (Object ref = RELEASED.poll(); ref != null; ref = RELEASED.poll())
+		{
+			PathReference released = (PathReference) ref;
+
+			// Only remove the mapping if it has not been replaced.
+			INTERNED.remove(released.key, released);
+		}
+
+		while (true)
+		{
+			PathReference ref = INTERNED.get(normalized);
+
+			NormalizedPath existing = ref == null ? null : ref.get();
+
+			if (existing != null)
+				return existing;
+
+			NormalizedPath created = new NormalizedPath(normalized);
+
+			PathReference createdRef = new PathReference(created, RELEASED);
+
+			if (ref == null ? INTERNED.putIfAbsent(normalized, createdRef) == null
+					: INTERNED.replace(normalized, ref, createdRef))
+				return created;
+
+			// Another thread interned it first; use theirs.
+		}
+	}
+
+	/**
+	 * Whether or not this is a directory, i.e. it ends with '/'. The root is
+	 * a directory.
+	 * 
+	 * @return Whether or not this is a directory.
+	 */
+	public boolean isDirectory()
+	{
+		return this.path.length() == 0
+				|| this.path.charAt(this.path.length() - 1) == '/';
+	}
+
+	/**
+	 * The number of names in the path, e.g. 2 for both "foo/bar" and
+	 * "foo/bar/".
+	 * 
+	 * @return the number of names
+	 */
+	public int getSegmentCount()
+	{
+		return this.ends.length;
+	}
+
+	/**
+	 * A name in the path.
+	 * 
+	 * @param index
+	 *            the index of the name, starting at 0
+	 * @return the name, without any '/'
+	 */
+	public String getSegment(int index)
+	{
+		return this.path.substring(this.start(index), this.ends[index]);
+	}
+
+	/**
+	 * The last name in the path, e.g. "bar" for both "foo/bar" and
+	 * "foo/bar/".
+	 * 
+	 * @return the last name, or "" for the root
+	 */
+	public String getName()
+	{
+		return this.ends.length == 0 ? "" : this.getSegment(this.ends.length - 1);
+	}
+
+	/**
+	 * The directory that contains this path, e.g. "foo/" for both "foo/bar"
+	 * and "foo/bar/".
+	 * 
+	 * @return the parent directory, or null for the root
+	 */
+	public NormalizedPath getParent()
+	{
+		if (this.ends.length == 0)
+			return null;
+
+		return intern(this.path.substring(0, this.start(this.ends.length - 1)));
+	}
+
+	/**
+	 * The path with the given name added, treating this path as a directory.
+	 * 
+	 * @param name
+	 *            the name, or a relative path
+	 * @return the child path
+	 */
+	public NormalizedPath child(CharSequence name)
+	{
+		StringBuilder child = new StringBuilder(this.path.length()
+				+ name.length() + 1);
+
+		child.append(this.path);
+
+		if (!this.isDirectory())
+			child.append('/');
+
+		return of(child.append(name));
+	}
+
+	/**
+	 * Resolve a relative path the way resolvers do: relative to this path if
+	 * it is a directory, otherwise relative to its parent directory.
+	 * 
+	 * @param relative
+	 *            the relative path
+	 * @return the resolved path
+	 */
+	public NormalizedPath resolve(CharSequence relative)
+	{
+		NormalizedPath directory = this.isDirectory() ? this : this
+				.getParent();
+
+		return directory.child(relative);
+	}
+
+	/**
+	 * Whether or not the path is the given directory or inside of it.
+	 * 
+	 * @param directory
+	 *            the directory, which does not need a trailing '/'
+	 * @return Whether or not the path is the directory or inside of it.
+	 */
+	public boolean startsWith(NormalizedPath directory)
+	{
+		int length = directory.path.length();
+
+		if (!this.path.startsWith(directory.path))
+			return false;
+
+		return length == 0 || length == this.path.length()
+				|| directory.path.charAt(length - 1) == '/'
+				|| this.path.charAt(length) == '/';
+	}
+
+	/**
+	 * The path of a descendant relative to this path as a directory, such
+	 * that {@code child(relativize(descendant))} is the descendant.
+	 * 
+	 * @param descendant
+	 *            a path inside of this one
+	 * @return the relative path, or null if the path is not inside of this
+	 *         one
+	 */
+	public String relativize(NormalizedPath descendant)
+	{
+		if (!descendant.startsWith(this))
+			return null;
+
+		int length = this.path.length();
+
+		if (!this.isDirectory() && length < descendant.path.length())
+			++length;
+
+		return descendant.path.substring(length);
+	}
+
+	private int start(int segment)
+	{
+		return segment == 0 ? 0 : this.ends[segment - 1] + 1;
+	}
+
+	@Override
+	public int length()
+	{
+		return this.path.length();
+	}
+
+	@Override
+	public char charAt(int index)
+	{
+		return this.path.charAt(index);
+	}
+
+	@Override
+	public CharSequence subSequence(int start, int end)
+	{
+		return this.path.subSequence(start, end);
+	}
+
+	@Override
+	public int compareTo(NormalizedPath o)
+	{
+		return this.path.compareTo(o.path);
+	}
+
+	@Override
+	public int hashCode()
+	{
+		return this.hash;
+	}
+
+	@Override
+	public boolean equals(Object obj)
+	{
+		if (this == obj)
+			return true;
+
+		if (!(obj instanceof NormalizedPath))
+			return false;
+
+		NormalizedPath other = (NormalizedPath) obj;
+
+		return this.hash == other.hash && this.path.equals(other.path);
+	}
+
+	@Override
+	public String toString()
+	{
+		return this.path;
+	}
+
+	private static final class PathReference extends
+			WeakReference<NormalizedPath>
+	{
+		private final String key;
+
+		PathReference(NormalizedPath path, ReferenceQueue<NormalizedPath> queue)
+		{
+			super(path, queue);
+			this.key = path.path;
+		}
+	}
+}
@@ -15,14 +15,20 @@
  */
 package com.pureperfect.pathutils;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.SequenceInputStream;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Resolves relative and absolute paths.
@@ -33,6 +39,10 @@ import java.util.List;
  */
 public abstract class PathResolver
 {
+	private static volatile ContentCache contentCache;
+
+	private volatile MatchMode matchMode = MatchMode.REGEX;
+
 	/**
 	 * Returns a {@link PathResolver} that resolves paths relative to the entry
 	 * in the zip file.
@@ -73,14 +83,7 @@ public abstract class PathResolver
 	{
 		if (PathUtils.isArchive(f.getName()))
 		{
-			try
-			{
-				return createFor("", new FileInputStream(f));
-			}
-			catch (FileNotFoundException e)
-			{
-				throw new PathResolutionException(e);
-			}
+			return new ZipResolver("", ArchiveRegistry.get(f));
 		}
 		else
 		{
@@ -115,16 +118,31 @@ public abstract class PathResolver
 	{
 		String s = url.toString();
 
-		if (PathUtils.isArchive(s))
+		if (JrtImage.isJrt(url))
+		{
+			return new JrtResolver(url);
+		}
+		else if (PathUtils.isArchive(s))
 		{
 			try
 			{
+				if (PathUtils.isLocalURL(url))
+					return createFor(new File(url.toURI()));
+
+				if (HttpArchiveData.isHttp(url))
+					return new ZipResolver("", new ZipArchive(
+							HttpArchiveData.open(url)));
+
 				return createFor("", url.openStream());
 			}
 			catch (IOException e)
 			{
 				throw new PathResolutionException(e);
 			}
+			catch (URISyntaxException e)
+			{
+				throw new PathResolutionException(e);
+			}
 		}
 		else if (PathUtils.isLocalURL(url))
 		{
@@ -157,11 +175,60 @@ public abstract class PathResolver
 		return new UnresolvableResolver(parentPath);
 	}
 
+	/**
+	 * Cache the content returned by {@link #openStream(String)} for all
+	 * resolvers. Content resolved from urls is never cached, because there is
+	 * no cheap way to tell whether it changed.
+	 * 
+	 * @param cache
+	 *            the cache to use, or null to turn caching off
+	 */
+	public static void setContentCache(ContentCache cache)
+	{
+		contentCache = cache;
+	}
+
+	/**
+	 * The cache used by {@link #openStream(String)}, if any.
+	 * 
+	 * @return the cache or null if content is not cached
+	 */
+	public static ContentCache getContentCache()
+	{
+		return contentCache;
+	}
+
 	PathResolver()
 	{
 		// Package private constructor
 	}
 
+	/**
+	 * Set how {@link #getSubfiles(String)} interprets its expressions. Use
+	 * {@link MatchMode#LINEAR} or {@link MatchMode#GLOB} for expressions from
+	 * untrusted input.
+	 * 
+	 * @param matchMode
+	 *            the match mode
+	 */
+	public void setMatchMode(MatchMode matchMode)
+	{
+		if (matchMode == null)
+			throw new IllegalArgumentException("matchMode must not be null");
+
+		this.matchMode = matchMode;
+	}
+
+	/**
+	 * How {@link #getSubfiles(String)} interprets its expressions.
+	 * 
+	 * @return the match mode, {@link MatchMode#REGEX} by default
+	 */
+	public MatchMode getMatchMode()
+	{
+		return this.matchMode;
+	}
+
 	/**
 	 * Get the the origin path that this resolver was created with.
 	 * 
@@ -180,6 +247,32 @@ public abstract class PathResolver
 	 */
 	public abstract List<String> getSubfiles(String regexMatch) throws IOException;
 
+	/**
+	 * Return the subfiles matching each of the given regular expressions.
+	 * Resolvers that can list their location read the listing once for all
+	 * of the expressions, rather than once per expression.
+	 * 
+	 * @param regexMatches
+	 *            the regular expressions to use.
+	 * @return the paths that matched, for each distinct regular expression in
+	 *         the order given
+	 * @throws IOException
+	 *             if it occurs.
+	 */
+	public Map<String, List<String>> getSubfiles(
+			Collection<String> regexMatches) throws IOException
+	{
+		Map<String, List<String>> results = new LinkedHashMap<String, List<String>>();
+
+		for (String regexMatch : regexMatches)
+		{
+			if (!results.containsKey(regexMatch))
+				results.put(regexMatch, this.getSubfiles(regexMatch));
+		}
+
+		return results;
+	}
+
 	/**
 	 * Calls {@link #resolve(String)} and then opens the returned resource as a
 	 * stream.
@@ -192,8 +285,129 @@ public abstract class PathResolver
 	 */
 	public final InputStream openStream(String path) throws IOException
 	{
+		ContentCache cache = contentCache;
+
+		Object key = cache == null ? null : this.cacheKey(path);
+
+		if (key == null)
+			return this.openUncached(path);
+
+		byte[] content = cache.get(key);
+
+		if (content != null)
+			return new ByteArrayInputStream(content);
+
 		Object resolve = this.resolve(path);
 
+		long limit = cache.getMaximumContentBytes();
+
+		long size = size(resolve);
+
+		if (size > limit)
+		{
+			// It would be rejected anyway, so stream it instead.
+			cache.rejectOversized();
+
+			return open(resolve);
+		}
+
+		if (resolve instanceof ArchiveEntry && size >= 0)
+		{
+			content = ((ArchiveEntry) resolve).read();
+		}
+		else
+		{
+			InputStream in = open(resolve);
+
+			if (in == null)
+				return null;
+
+			// The size is not known, so read no more than could be cached.
+			ByteArrayOutputStream head = new ByteArrayOutputStream();
+
+			boolean complete = false;
+
+			boolean streamed = false;
+
+			try
+			{
+				byte[] buffer = new byte[8192];
+
+				while (head.size() <= limit)
+				{
+					int count = in.read(buffer, 0, (int) Math.min(
+							buffer.length, limit + 1 - head.size()));
+
+					if (count < 0)
+					{
+						complete = true;
+						break;
+					}
+
+					head.write(buffer, 0, count);
+				}
+
+				if (!complete)
+				{
+					cache.rejectOversized();
+
+					streamed = true;
+
+					return new SequenceInputStream(new ByteArrayInputStream(
+							head.toByteArray()), in);
+				}
+			}
+			finally
+			{
+				if (!streamed)
+					in.close();
+			}
+
+			content = head.toByteArray();
+		}
+
+		cache.put(key, content);
+
+		return new ByteArrayInputStream(content);
+	}
+
+	/**
+	 * The size of the resolved content, if it is known without reading it.
+	 * 
+	 * @return the size in bytes, or -1 if it is not known
+	 */
+	private static long size(Object resolve)
+	{
+		if (resolve instanceof ArchiveEntry)
+			return ((ArchiveEntry) resolve).getSize();
+
+		if (resolve instanceof File && ((File) resolve).isFile())
+			return ((File) resolve).length();
+
+		return -1;
+	}
+
+	/**
+	 * The key that the content of the path is cached under. The key must
+	 * identify what the path is resolved against, not this resolver instance,
+	 * so that resolvers for the same location share cached content.
+	 * 
+	 * @param path
+	 *            the path passed to {@link #openStream(String)}
+	 * @return the key, or null if the content should not be cached
+	 */
+	Object cacheKey(String path)
+	{
+		return null;
+	}
+
+	private InputStream openUncached(String path) throws IOException
+	{
+		return open(this.resolve(path));
+	}
+
+	private static InputStream open(Object resolve) throws IOException
+	{
 		if (resolve instanceof File)
 		{
 			File f = (File) resolve;
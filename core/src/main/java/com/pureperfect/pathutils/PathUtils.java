@@ -0,0 +1,798 @@
+/*
+ * Copyright [2013] PurePerfect.com Licensed under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except in compliance with the
+ * License.
+ * 
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pureperfect.pathutils;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.util.Arrays;
+
+/**
+ * Some random utility methods for working with paths.
+ * 
+ * @author J. Chris Folsom
+ * @version 0.3
+ * @since 0.2
+ */
+public class PathUtils
+{
+	private static final int MAX_BUFFER = 1024;
+
+	static final int BUFFER_SIZE = 8192;
+
+	private static final int MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
+
+	private static final ThreadLocal<StringBuilder> BUFFER = new ThreadLocal<StringBuilder>()
+	{
+		@Override
+		protected StringBuilder initialValue()
+		{
+			return new StringBuilder(128);
+		}
+	};
+
+	private static final ThreadLocal<Navigator> NAVIGATOR = new ThreadLocal<Navigator>()
+	{
+		@Override
+		protected Navigator initialValue()
+		{
+			return new Navigator();
+		}
+	};
+
+	private PathUtils()
+	{
+		// static methods only
+	}
+
+	/**
+	 * Read the bytes from the stream. The size of a {@link FileInputStream}
+	 * is taken from its channel so that the result is allocated once.
+	 * 
+	 * @param in
+	 *            the stream to read
+	 * @return the bytes in the stream
+	 * @throws IOException
+	 *             if there is an error reading from the stream.
+	 */
+	public static byte[] toBytes(InputStream in) throws IOException
+	{
+		return toBytes(in, -1);
+	}
+
+	/**
+	 * Read the bytes from the stream. If the number of bytes is known up front,
+	 * e.g. from a file size or a Content-Length header, the result is
+	 * allocated once. A wrong hint costs extra copies but never changes the
+	 * result.
+	 * 
+	 * @param in
+	 *            the stream to read
+	 * @param sizeHint
+	 *            the expected number of bytes, or -1 if unknown
+	 * @return the bytes in the stream
+	 * @throws IOException
+	 *             if there is an error reading from the stream, or it is too
+	 *             large for an array.
+	 */
+	public static byte[] toBytes(InputStream in, long sizeHint)
+			throws IOException
+	{
+		if (sizeHint < 0)
+			sizeHint = remaining(in);
+
+		if (sizeHint < 0)
+			return Platform.readAllBytes(in);
+
+		return readBytes(in, initialCapacity(sizeHint));
+	}
+
+	/**
+	 * Read the bytes from the stream into an array of the given size, growing
+	 * it if there is more.
+	 */
+	static byte[] readBytes(InputStream in, int capacity) throws IOException
+	{
+		byte[] bytes = new byte[capacity];
+
+		int length = 0;
+
+		while (true)
+		{
+			if (length == bytes.length)
+			{
+				// Full. Only grow if there is actually more to read.
+				int c = in.read();
+
+				if (c < 0)
+					return bytes;
+
+				bytes = Arrays.copyOf(bytes, grow(length));
+				bytes[length++] = (byte) c;
+			}
+
+			int count = in.read(bytes, length, bytes.length - length);
+
+			if (count < 0)
+				break;
+
+			length += count;
+		}
+
+		return length == bytes.length ? bytes : Arrays.copyOf(bytes, length);
+	}
+
+	/**
+	 * Read the bytes from the stream into a buffer.
+	 * 
+	 * @param in
+	 *            the stream to read
+	 * @param direct
+	 *            whether or not to allocate a direct buffer
+	 * @return the bytes in the stream, from position 0 to the limit
+	 * @throws IOException
+	 *             if there is an error reading from the stream.
+	 */
+	public static ByteBuffer toByteBuffer(InputStream in, boolean direct)
+			throws IOException
+	{
+		return toByteBuffer(in, -1, direct);
+	}
+
+	/**
+	 * Read the bytes from the stream into a buffer. A {@link FileInputStream}
+	 * is drained through its channel, so a direct buffer is filled without
+	 * copying through the heap.
+	 * 
+	 * @param in
+	 *            the stream to read
+	 * @param sizeHint
+	 *            the expected number of bytes, or -1 if unknown
+	 * @param direct
+	 *            whether or not to allocate a direct buffer
+	 * @return the bytes in the stream, from position 0 to the limit
+	 * @throws IOException
+	 *             if there is an error reading from the stream, or it is too
+	 *             large for a buffer.
+	 */
+	public static ByteBuffer toByteBuffer(InputStream in, long sizeHint,
+			boolean direct) throws IOException
+	{
+		if (sizeHint < 0)
+			sizeHint = remaining(in);
+
+		if (!direct)
+			return ByteBuffer.wrap(toBytes(in, sizeHint));
+
+		ReadableByteChannel channel = in instanceof FileInputStream ? ((FileInputStream) in)
+				.getChannel() : Channels.newChannel(in);
+
+		ByteBuffer buffer = ByteBuffer
+				.allocateDirect(initialCapacity(sizeHint));
+
+		ByteBuffer probe = ByteBuffer.allocate(1);
+
+		while (true)
+		{
+			if (!buffer.hasRemaining())
+			{
+				// Full. Only grow if there is actually more to read.
+				probe.clear();
+
+				if (readFully(channel, probe) < 0)
+					break;
+
+				buffer.flip();
+
+				buffer = ByteBuffer.allocateDirect(grow(buffer.limit()))
+						.put(buffer).put(probe.get(0));
+			}
+
+			if (channel.read(buffer) < 0)
+				break;
+		}
+
+		buffer.flip();
+
+		return buffer;
+	}
+
+	private static int readFully(ReadableByteChannel channel, ByteBuffer buffer)
+			throws IOException
+	{
+		int count = 0;
+
+		while (buffer.hasRemaining() && count >= 0)
+		{
+			count = channel.read(buffer);
+		}
+
+		return count;
+	}
+
+	/**
+	 * The number of bytes left in a file stream, or -1 for other streams.
+	 */
+	private static long remaining(InputStream in) throws IOException
+	{
+		if (in instanceof FileInputStream)
+		{
+			FileChannel channel = ((FileInputStream) in).getChannel();
+
+			// Pipes and devices report a size of 0; that is only a hint.
+			return Math.max(0, channel.size() - channel.position());
+		}
+
+		return -1;
+	}
+
+	private static int initialCapacity(long sizeHint) throws IOException
+	{
+		if (sizeHint > MAX_ARRAY_SIZE)
+			throw new IOException("Too large to read into memory: "
+					+ sizeHint);
+
+		return sizeHint < 0 ? BUFFER_SIZE : (int) sizeHint;
+	}
+
+	private static int grow(int capacity) throws IOException
+	{
+		if (capacity >= MAX_ARRAY_SIZE)
+			throw new IOException("Too large to read into memory");
+
+		return (int) Math.min(MAX_ARRAY_SIZE, Math.max(BUFFER_SIZE,
+				2L * capacity));
+	}
+
+	/**
+	 * Whether or not it ends with .zip or .jar
+	 * 
+	 * @param name
+	 *            the path name
+	 * @return Whether or not it ends with .zip or .jar
+	 */
+	public static boolean isArchive(String name)
+	{
+		return name.endsWith(".zip") || name.endsWith(".jar");
+	}
+
+	/**
+	 * Whether or not it's a file url.
+	 * 
+	 * @param url
+	 *            the url to test
+	 * @return Whether or not it's a file url.
+	 */
+	public static boolean isLocalURL(URL url)
+	{
+		return url.toString().startsWith("file:");
+	}
+
+	/**
+	 * Converts all instances of '/' to File.separator
+	 * 
+	 * @param path
+	 *            the path to make os friendly
+	 * @return the converted path
+	 */
+	public static String osFriendly(String path)
+	{
+		return path.replace("/", File.separator);
+	}
+
+	/**
+	 * Convert the path to a url.
+	 * 
+	 * @param path
+	 *            the path to convert
+	 * @return a url or null if the path is not a valid url
+	 */
+	public static URL toURL(String path)
+	{
+		// Every URL starts with a protocol and a ':'.
+		if (path.indexOf(':') < 0)
+			return null;
+
+		try
+		{
+			return new URL(path);
+		}
+		catch (MalformedURLException e)
+		{
+			return null;
+		}
+	}
+
+	/**
+	 * Open a resource on the classpath as a stream. Each call asks the context
+	 * class loader, so a resource that was missing before is found once it
+	 * exists; the caches used by {@link PathResolver#resolve(String)} are not
+	 * consulted.
+	 * 
+	 * @param classpath
+	 *            the stream to open
+	 * 
+	 * @return the stream or null if the path does not exist
+	 */
+	public static InputStream open(String classpath)
+	{
+		return Thread.currentThread().getContextClassLoader()
+				.getResourceAsStream(classpath);
+	}
+
+	/**
+	 * Whether or not it ends with '/'.
+	 * 
+	 * @param classpath
+	 *            the classpath to test
+	 * @return Whether or not it ends with '/'.
+	 */
+	public static boolean isClasspathDirectory(String classpath)
+	{
+		return classpath.endsWith("/");
+	}
+
+	/**
+	 * If: We're at the top of the tree don't remove parent file name. Instead
+	 * just put in the '/' to prefix the absolute path so that file:
+	 * 
+	 * 'myfile.txt' becomes '/' instead.
+	 * 
+	 * Else: remove trailing file so that we have the directory name:
+	 * 
+	 * 'myfolder/myfile.txt becomes 'myfolder/'.
+	 * 
+	 * @param path
+	 *            the path to normalize
+	 * @return the normalized path
+	 */
+	public static StringBuilder normalizeToDir(CharSequence path)
+	{
+		StringBuilder results = new StringBuilder(path);
+
+		if (!isClasspathDirectory(results.toString()))
+		{
+			int lastDir = results.lastIndexOf("/");
+
+			if (lastDir < 0)
+			{
+				results = new StringBuilder("/");
+			}
+			else
+			{
+				results.replace(lastDir, path.length(), "/");
+			}
+		}
+
+		return results;
+	}
+
+	/**
+	 * Equivalent to calling:
+	 * 
+	 * <ol>
+	 * <li>{@link PathUtils#removeSameDirReferences(CharSequence)}</li>
+	 * <li>{@link PathUtils#processUpDirectories(CharSequence)}</li>
+	 * <li>{@link PathUtils#removeLeadingSlash(CharSequence)}</li>
+	 * </ol>
+	 * 
+	 * @param path
+	 *            the path to process
+	 * @return the processed path
+	 */
+	public static StringBuilder processNavigation(CharSequence path)
+	{
+		return processNavigation(path, new StringBuilder(path.length()));
+	}
+
+	/**
+	 * Same as {@link #processNavigation(CharSequence)}, but done in a single
+	 * pass into the given buffer.
+	 * 
+	 * @param path
+	 *            the path to process
+	 * @param out
+	 *            the buffer to write the processed path to, which must not be
+	 *            the path itself. It is cleared first.
+	 * @return the buffer
+	 */
+	public static StringBuilder processNavigation(CharSequence path,
+			StringBuilder out)
+	{
+		out.setLength(0);
+
+		Navigator navigator = NAVIGATOR.get().reset(out);
+
+		for (int i = 0; i < path.length(); ++i)
+		{
+			navigator.add(path.charAt(i));
+		}
+
+		navigator.finish();
+
+		return out;
+	}
+
+	/**
+	 * Same as {@link #processNavigation(CharSequence, StringBuilder)}, except
+	 * that a path that navigates all the way up to the root becomes empty
+	 * rather than failing.
+	 */
+	static StringBuilder normalize(CharSequence path, StringBuilder out)
+	{
+		out.setLength(0);
+
+		Navigator navigator = NAVIGATOR.get().reset(out);
+
+		for (int i = 0; i < path.length(); ++i)
+		{
+			navigator.add(path.charAt(i));
+		}
+
+		navigator.flush();
+
+		if (out.length() > 0 && out.charAt(0) == '/')
+			out.deleteCharAt(0);
+
+		return out;
+	}
+
+	/**
+	 * {@link #normalize(CharSequence, StringBuilder)} using a buffer that is
+	 * reused by the calling thread.
+	 */
+	static String normalize(CharSequence path)
+	{
+		StringBuilder out = BUFFER.get();
+
+		String result = normalize(path, out).toString();
+
+		if (out.capacity() > MAX_BUFFER)
+			BUFFER.remove();
+
+		return result;
+	}
+
+	/**
+	 * Resolve the path relative to the directory of the parent path. Same as
+	 * calling {@link #normalizeToDir(CharSequence)} on the parent, appending
+	 * the path and calling {@link #processNavigation(CharSequence)} on the
+	 * result, but done in a single pass without intermediate copies.
+	 * 
+	 * @param parent
+	 *            the parent path
+	 * @param path
+	 *            the path relative to the parent
+	 * @param out
+	 *            the buffer to write the resolved path to, which must not be
+	 *            either of the paths. It is cleared first.
+	 * @return the buffer
+	 */
+	public static StringBuilder resolvePath(CharSequence parent,
+			CharSequence path, StringBuilder out)
+	{
+		out.setLength(0);
+
+		Navigator navigator = NAVIGATOR.get().reset(out);
+
+		int dirEnd = parent.length();
+
+		if (dirEnd == 0 || parent.charAt(dirEnd - 1) != '/')
+		{
+			while (--dirEnd >= 0 && parent.charAt(dirEnd) != '/')
+			{
+				// find the last '/'
+			}
+
+			if (dirEnd < 0)
+			{
+				navigator.add('/');
+			}
+
+			++dirEnd;
+		}
+
+		for (int i = 0; i < dirEnd; ++i)
+		{
+			navigator.add(parent.charAt(i));
+		}
+
+		for (int i = 0; i < path.length(); ++i)
+		{
+			navigator.add(path.charAt(i));
+		}
+
+		navigator.finish();
+
+		return out;
+	}
+
+	/**
+	 * Same as {@link #resolvePath(CharSequence, CharSequence, StringBuilder)},
+	 * using a buffer that is reused by the calling thread.
+	 * 
+	 * @param parent
+	 *            the parent path
+	 * @param path
+	 *            the path relative to the parent
+	 * @return the resolved path
+	 */
+	public static String resolvePath(CharSequence parent, CharSequence path)
+	{
+		StringBuilder out = BUFFER.get();
+
+		String result = resolvePath(parent, path, out).toString();
+
+		// Don't hold on to the memory of an unusually long path.
+		if (out.capacity() > MAX_BUFFER)
+			BUFFER.remove();
+
+		return result;
+	}
+
+	/**
+	 * Remove the leading '/' if it exists.
+	 * 
+	 * @param path
+	 *            the path to modify
+	 * @return the modified path
+	 */
+	public static StringBuilder removeLeadingSlash(CharSequence path)
+	{
+		StringBuilder results = new StringBuilder(path);
+
+		if (results.charAt(0) == '/')
+			results.replace(0, 1, "");
+
+		return results;
+	}
+
+	/**
+	 * Remove all instances of "./" since they only reference the directory we
+	 * are already in.
+	 * 
+	 * @param path
+	 *            the path to modify
+	 * @return the modified path
+	 */
+	public static StringBuilder removeSameDirReferences(CharSequence path)
+	{
+		StringBuilder results = new StringBuilder(path);
+
+		for (int i = 0; i < results.length() - 1; ++i)
+		{
+			if (results.charAt(i) == '.' && results.charAt(i + 1) == '/')
+			{
+				if (i == 0 || results.charAt(i - 1) != '.')
+				{
+					results.replace(i, i + 2, "");
+
+					// Backup place to account for what we removed
+					i = i - 1;
+				}
+			}
+		}
+
+		return results;
+	}
+
+	/**
+	 * Trim the path to the last file on the path. E.g: "my/path" simply becomes
+	 * "path"
+	 * 
+	 * @param path
+	 *            the path to trim
+	 * 
+	 * @return the trimmed path
+	 */
+	public static String trimToFile(String path)
+	{
+		int last = path.lastIndexOf('/');
+
+		if (!path.endsWith("/") && last > -1 && last < path.length())
+			return path.substring(last + 1);
+
+		return path;
+	}
+
+	/**
+	 * Process all instances of "../" in the given path so that "parent/dir/../"
+	 * simply becomes "parent/".
+	 * 
+	 * @param path
+	 *            the path to process
+	 * @return the processed path
+	 */
+	public static StringBuilder processUpDirectories(CharSequence path)
+	{
+		StringBuilder results = new StringBuilder(path);
+
+		/*
+		 * Need to resolve ../ in path by eliminating previous directory from
+		 * string.
+		 */
+		for (int upDirIndex = results.indexOf("../"); upDirIndex >= 0; upDirIndex = results.indexOf("../"))
+		{
+			// First trim off the ../ we found
+			results.replace(upDirIndex, upDirIndex + 3, "");
+
+			if (upDirIndex > 2)
+			{
+				/*
+				 * Remove following '/' on the previous directory. IE:
+				 * 
+				 * "foo/" will become "foo"
+				 */
+				results.replace(upDirIndex - 1, upDirIndex, "");
+
+				/*
+				 * Now go back to the previous slash and remove the previous
+				 * directory
+				 */
+				for (int backCount = upDirIndex - 2;; backCount--)
+				{
+					if (backCount == 0)
+					{
+						/*
+						 * We got to the top of the path without hitting a
+						 * slash. That means the path was created without a
+						 * leading slash. IE:
+						 * 
+						 * my/path/to/file
+						 */
+						results.replace(0, upDirIndex - 1, "");
+						break;
+					}
+					else if (results.charAt(backCount) == '/')
+					{
+						results.replace(backCount + 1, upDirIndex - 1, "");
+						break;
+					}
+				}
+			}
+		}
+
+		return results;
+	}
+
+	public static final String packageToClassPath(Package pack)
+	{
+		return packageToClassPath(pack.getName());
+	}
+
+	public static final String packageToClassPath(String packageName)
+	{
+		return packageName == null ? "" : packageName.replace(".", "/") + "/";
+	}
+
+	public static boolean isEmpty(String path)
+	{
+		return path == null || path.trim().length() < 1;
+	}
+
+	/**
+	 * Applies {@link PathUtils#removeSameDirReferences(CharSequence)},
+	 * {@link PathUtils#processUpDirectories(CharSequence)} and
+	 * {@link PathUtils#removeLeadingSlash(CharSequence)} to a path one
+	 * character at a time.
+	 * <p>
+	 * A "./" is only ever removed right after it was read, so a '.' is held
+	 * back until the next character shows whether it goes. The first "../" in
+	 * the path is always at the end of what has been written so far, since
+	 * everything before it has been processed already, so it is handled as
+	 * soon as it is complete, with the same rules as processUpDirectories.
+	 * </p>
+	 */
+	private static final class Navigator
+	{
+		private StringBuilder out;
+
+		private boolean pendingDot;
+
+		/** The last character kept by the "./" step, or -1 if none. */
+		private int last = -1;
+
+		/**
+		 * Start over, writing to the buffer. Each thread reuses its navigator
+		 * so that resolving a path allocates nothing.
+		 */
+		Navigator reset(StringBuilder out)
+		{
+			this.out = out;
+			this.pendingDot = false;
+			this.last = -1;
+
+			return this;
+		}
+
+		void add(char c)
+		{
+			if (this.pendingDot)
+			{
+				this.pendingDot = false;
+
+				if (c == '/' && this.last != '.')
+					return;
+
+				this.write('.');
+			}
+
+			if (c == '.')
+				this.pendingDot = true;
+			else
+				this.write(c);
+		}
+
+		void finish()
+		{
+			this.flush();
+
+			if (this.out.charAt(0) == '/')
+				this.out.deleteCharAt(0);
+		}
+
+		/**
+		 * Write out the held back '.', if any.
+		 */
+		void flush()
+		{
+			if (this.pendingDot)
+			{
+				this.pendingDot = false;
+				this.write('.');
+			}
+		}
+
+		private void write(char c)
+		{
+			this.last = c;
+
+			StringBuilder out = this.out;
+
+			out.append(c);
+
+			int upDirIndex = out.length() - 3;
+
+			if (c != '/' || upDirIndex < 0 || out.charAt(upDirIndex) != '.'
+					|| out.charAt(upDirIndex + 1) != '.')
+				return;
+
+			// Trim off the "../" along with the directory before it.
+			out.setLength(upDirIndex);
+
+			if (upDirIndex > 2)
+			{
+				out.setLength(upDirIndex - 1);
+
+				int backCount = upDirIndex - 2;
+
+				while (backCount > 0 && out.charAt(backCount) != '/')
+				{
+					--backCount;
+				}
+
+				out.setLength(backCount == 0 ? 0 : backCount + 1);
+			}
+		}
+	}
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright [2013] PurePerfect.com Licensed under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except in compliance with the
+ * License.
+ * 
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pureperfect.pathutils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.zip.Inflater;
+
+/**
+ * Operations that newer versions of Java do faster. This is the Java 8
+ * version; the multi-release jar replaces it on Java 17 and later with the one
+ * in src/main/java17, which must keep the same members.
+ * 
+ * @version 0.3
+ * @since 0.3
+ */
+final class Platform
+{
+	private Platform()
+	{
+		// static methods only
+	}
+
+	/**
+	 * The Java release this version of the class is for.
+	 * 
+	 * @return the release
+	 */
+	static int release()
+	{
+		return 8;
+	}
+
+	/**
+	 * Read the rest of a stream of unknown length.
+	 * 
+	 * @param in
+	 *            the stream to read
+	 * @return the bytes in the stream
+	 * @throws IOException
+	 *             if there is an error reading from the stream.
+	 */
+	static byte[] readAllBytes(InputStream in) throws IOException
+	{
+		return PathUtils.readBytes(in, PathUtils.BUFFER_SIZE);
+	}
+
+	/**
+	 * Set the remaining bytes of the buffer as the input of the inflater. The
+	 * buffer must not be changed until the input has been consumed.
+	 * 
+	 * @param inflater
+	 *            the inflater
+	 * @param input
+	 *            the compressed data
+	 */
+	static void setInput(Inflater inflater, ByteBuffer input)
+	{
+		if (input.hasArray())
+		{
+			inflater.setInput(input.array(),
+					input.arrayOffset() + input.position(), input.remaining());
+		}
+		else
+		{
+			// Java 8 can only inflate from an array.
+			byte[] bytes = new byte[input.remaining()];
+
+			input.duplicate().get(bytes);
+
+			inflater.setInput(bytes);
+		}
+	}
+}
@@ -17,20 +17,24 @@ package com.pureperfect.pathutils;
 
 import java.io.File;
 import java.io.FileFilter;
-import java.util.regex.Pattern;
 
 class RegexFileFilter implements FileFilter
 {
-	private String regex;
+	private NameMatcher matcher;
 
 	public RegexFileFilter(String regex)
 	{
-		this.regex = regex;
+		this(regex, MatchMode.REGEX);
+	}
+
+	public RegexFileFilter(String regex, MatchMode mode)
+	{
+		this.matcher = NameMatcher.compile(regex, mode);
 	}
 
 	@Override
 	public boolean accept(File pathname)
 	{
-		return Pattern.matches(this.regex, pathname.getName());
+		return this.matcher.matches(pathname.getName());
 	}
 }
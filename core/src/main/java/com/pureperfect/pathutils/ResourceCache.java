@@ -0,0 +1,116 @@
+/*
+ * Copyright [2013] PurePerfect.com Licensed under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except in compliance with the
+ * License.
+ * 
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pureperfect.pathutils;
+
+import java.net.URL;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The most recently looked up resources of a class loader, so that looking
+ * up the same resource again does not walk the class loader and its parents.
+ * Resources that were not found are remembered as well, so repeated probes
+ * for optional resources are cheap. Only URLs of the JDK's own file:, jar:
+ * and jrt: protocols are kept, since a URL with another protocol may refer
+ * to a handler loaded by the class loader itself.
+ * 
+ * @version 0.3
+ * @since 0.3
+ */
+final class ResourceCache
+{
+	static final int CACHE_SIZE = 1024;
+
+	private static final LoaderCache<ResourceCache> CACHES = new LoaderCache<ResourceCache>()
+	{
+		@Override
+		protected ResourceCache create(ClassLoader loader)
+		{
+			return new ResourceCache();
+		}
+	};
+
+	/**
+	 * The URL of each resource, or null if there is no such resource.
+	 */
+	private final Map<String, URL> resources = new LinkedHashMap<String, URL>(
+			CACHE_SIZE * 4 / 3 + 1, 0.75f, true)
+	{
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, URL> eldest)
+		{
+			return this.size() > CACHE_SIZE;
+		}
+	};
+
+	private ResourceCache()
+	{
+		// use get(ClassLoader)
+	}
+
+	/**
+	 * Get the cache of the class loader.
+	 * 
+	 * @param loader
+	 *            the class loader
+	 * @return the cache
+	 */
+	static ResourceCache get(ClassLoader loader)
+	{
+		return CACHES.get(loader);
+	}
+
+	/**
+	 * Find a resource, without opening it.
+	 * 
+	 * @param loader
+	 *            the class loader this is the cache of
+	 * @param path
+	 *            the resource path
+	 * @return the URL of the resource, or null if there is no such resource
+	 */
+	URL find(ClassLoader loader, String path)
+	{
+		synchronized (this.resources)
+		{
+			if (this.resources.containsKey(path))
+				return this.resources.get(path);
+		}
+
+		if (loader == null)
+			return null;
+
+		URL url = loader.getResource(path);
+
+		if (url == null || isJdkProtocol(url))
+		{
+			synchronized (this.resources)
+			{
+				this.resources.put(path, url);
+			}
+		}
+
+		return url;
+	}
+
+	private static boolean isJdkProtocol(URL url)
+	{
+		return "file".equals(url.getProtocol())
+				|| "jar".equals(url.getProtocol()) || JrtImage.isJrt(url);
+	}
+}
@@ -0,0 +1,457 @@
+/*
+ * Copyright [2013] PurePerfect.com Licensed under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except in compliance with the
+ * License.
+ * 
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pureperfect.pathutils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * A list of every resource in a jar, written into the jar when it is built so
+ * that the resources on the class path can be indexed without reading the
+ * jar's central directory. The pureperfect-pathutils-maven-plugin writes it
+ * as a stored entry right after a stored manifest, where both are found by
+ * reading the first few entries of the jar.
+ * <p>
+ * The format is a magic number, a version, the size and the offset of the
+ * jar's central directory, the number of names and then the names in sorted
+ * order, each as the number of leading characters it shares with the previous
+ * name followed by the rest of the name in UTF-8. The magic number, size and
+ * offset are 4 byte integers; the other numbers are unsigned variable length
+ * integers, 7 bits to a byte.
+ * </p>
+ * <p>
+ * The index lists every entry of the jar, itself included. It is only used if
+ * the end record of the jar's central directory still has as many entries,
+ * and the same directory size and offset, so that a jar that was changed
+ * after it was indexed is read from its central directory instead.
+ * </p>
+ * <p>
+ * This class is public only so that the maven plugin can write indexes.
+ * Reading them is internal to the library.
+ * </p>
+ * 
+ * @version 0.3
+ * @since 0.3
+ */
+public final class ResourceIndex
+{
+	/**
+	 * Where the index is in a jar.
+	 */
+	public static final String LOCATION = "META-INF/pathutils/resources.idx";
+
+	/**
+	 * How many entries at the start of a jar are searched for the index.
+	 */
+	static final int SEARCHED_ENTRIES = 4;
+
+	private static final int MAGIC = 0x50554958;
+
+	private static final int VERSION = 2;
+
+	private static final int LOC_SIGNATURE = 0x04034b50;
+
+	private static final int LOC_LENGTH = 30;
+
+	private static final int DATA_DESCRIPTOR_FLAG = 0x08;
+
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	private ResourceIndex()
+	{
+		// static methods only
+	}
+
+	/**
+	 * Write an index of the resources. The size and offset of the central
+	 * directory are those of the jar the index is written into. As the index
+	 * is the same length whatever they are, they can be taken from the jar
+	 * written with a first index, which is then replaced.
+	 * 
+	 * @param names
+	 *            the names of the resources, as they are in the jar, e.g.
+	 *            "com/example/" or "com/example/Example.class"
+	 * @param directorySize
+	 *            the size of the central directory of the jar
+	 * @param directoryOffset
+	 *            the offset of the central directory of the jar
+	 * @param out
+	 *            where to write the index
+	 * @throws IOException
+	 *             if there is an error writing the index
+	 */
+	public static void write(Collection<String> names, long directorySize,
+			long directoryOffset, OutputStream out) throws IOException
+	{
+		ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+
+		TreeSet<String> sorted = new TreeSet<String>(names);
+
+		writeInt(buffer, MAGIC);
+		writeVarInt(buffer, VERSION);
+		writeInt(buffer, (int) directorySize);
+		writeInt(buffer, (int) directoryOffset);
+		writeVarInt(buffer, sorted.size());
+
+		String previous = "";
+
+		for (String name : sorted)
+		{
+			int shared = 0;
+
+			int max = Math.min(previous.length(), name.length());
+
+			while (shared < max && previous.charAt(shared) == name.charAt(shared))
+			{
+				++shared;
+			}
+
+			// Don't split a surrogate pair.
+			if (shared > 0 && Character.isHighSurrogate(name.charAt(shared - 1)))
+				--shared;
+
+			byte[] rest = name.substring(shared).getBytes(UTF8);
+
+			writeVarInt(buffer, shared);
+			writeVarInt(buffer, rest.length);
+			buffer.write(rest);
+
+			previous = name;
+		}
+
+		buffer.writeTo(out);
+	}
+
+	/**
+	 * Read an index.
+	 * 
+	 * @param index
+	 *            the index, as written by
+	 *            {@link #write(Collection, long, long, OutputStream)}
+	 * @return the names, sorted
+	 * @throws IOException
+	 *             if it is not a valid index
+	 */
+	static List<String> read(byte[] index) throws IOException
+	{
+		return read(index, new long[2]);
+	}
+
+	/**
+	 * Read an index, along with the size and offset of the central directory
+	 * it was written for.
+	 */
+	private static List<String> read(byte[] index, long[] directory)
+			throws IOException
+	{
+		ByteBuffer buf = ByteBuffer.wrap(index);
+
+		try
+		{
+			if (buf.getInt() != MAGIC)
+				throw new IOException("Not a resource index");
+
+			int version = readVarInt(buf);
+
+			if (version != VERSION)
+				throw new IOException("Unsupported resource index version: "
+						+ version);
+
+			directory[0] = buf.getInt() & 0xFFFFFFFFL;
+			directory[1] = buf.getInt() & 0xFFFFFFFFL;
+
+			int count = readVarInt(buf);
+
+			// Every name takes at least two bytes.
+			if (count > buf.remaining() / 2)
+				throw new IOException("Truncated resource index");
+
+			List<String> names = new ArrayList<String>(count);
+
+			String previous = "";
+
+			for (int i = 0; i < count; ++i)
+			{
+				int shared = readVarInt(buf);
+				int length = readVarInt(buf);
+
+				if (shared > previous.length() || length > buf.remaining())
+					throw new IOException("Corrupt resource index");
+
+				String rest = new String(index, buf.position(), length, UTF8);
+
+				buf.position(buf.position() + length);
+
+				previous = shared == 0 ? rest : previous.substring(0, shared)
+						.concat(rest);
+
+				names.add(previous);
+			}
+
+			return names;
+		}
+		catch (BufferUnderflowException e)
+		{
+			throw new IOException("Truncated resource index");
+		}
+	}
+
+	/**
+	 * Read the index of a jar, if it is stored within the first few entries.
+	 * Only the local headers of those entries are read, never the central
+	 * directory.
+	 * 
+	 * @param jar
+	 *            the jar
+	 * @return the names of the resources in the jar, or null if the jar does
+	 *         not start with an index or its central directory is not the one
+	 *         the index was written for
+	 * @throws IOException
+	 *             if there is an error reading the jar, or the index is not
+	 *             valid
+	 */
+	static List<String> read(File jar) throws IOException
+	{
+		RandomAccessFile in = new RandomAccessFile(jar, "r");
+
+		try
+		{
+			byte[] index = readLeadingEntry(in, LOCATION);
+
+			if (index == null)
+				return null;
+
+			long[] directory = new long[2];
+
+			List<String> names = read(index, directory);
+
+			long[] end = endRecord(in);
+
+			if (end == null || end[0] != names.size()
+					|| end[1] != directory[0] || end[2] != directory[1])
+				return null;
+
+			return names;
+		}
+		finally
+		{
+			in.close();
+		}
+	}
+
+	/**
+	 * Read an entry that is stored uncompressed within the first few entries
+	 * of a jar, e.g. the manifest of a jar with an index.
+	 * 
+	 * @param jar
+	 *            the jar
+	 * @param entryName
+	 *            the name of the entry
+	 * @return the content of the entry, or null if it is not stored among the
+	 *         first entries
+	 * @throws IOException
+	 *             if there is an error reading the jar
+	 */
+	static byte[] readLeadingEntry(File jar, String entryName)
+			throws IOException
+	{
+		RandomAccessFile in = new RandomAccessFile(jar, "r");
+
+		try
+		{
+			return readLeadingEntry(in, entryName);
+		}
+		finally
+		{
+			in.close();
+		}
+	}
+
+	private static byte[] readLeadingEntry(RandomAccessFile in,
+			String entryName) throws IOException
+	{
+		byte[] wanted = entryName.getBytes(UTF8);
+
+		try
+		{
+			long length = in.length();
+
+			long position = 0;
+
+			byte[] header = new byte[LOC_LENGTH];
+
+			for (int i = 0; i < SEARCHED_ENTRIES; ++i)
+			{
+				if (position + LOC_LENGTH > length)
+					return null;
+
+				in.seek(position);
+				in.readFully(header);
+
+				ByteBuffer loc = ByteBuffer.wrap(header).order(
+						ByteOrder.LITTLE_ENDIAN);
+
+				if (loc.getInt(0) != LOC_SIGNATURE)
+					return null;
+
+				int flags = loc.getShort(6) & 0xFFFF;
+				int method = loc.getShort(8) & 0xFFFF;
+				long compressedSize = loc.getInt(18) & 0xFFFFFFFFL;
+				long size = loc.getInt(22) & 0xFFFFFFFFL;
+				int nameLength = loc.getShort(26) & 0xFFFF;
+				int extraLength = loc.getShort(28) & 0xFFFF;
+
+				// The sizes follow the data, so the next entry can't be found.
+				if ((flags & DATA_DESCRIPTOR_FLAG) != 0)
+					return null;
+
+				byte[] name = new byte[nameLength];
+
+				in.readFully(name);
+
+				long data = position + LOC_LENGTH + nameLength + extraLength;
+
+				if (Arrays.equals(name, wanted))
+				{
+					if (method != ZipIndex.Entry.STORED
+							|| size != compressedSize
+							|| size > Integer.MAX_VALUE
+							|| data + size > length)
+						return null;
+
+					byte[] content = new byte[(int) size];
+
+					in.seek(data);
+					in.readFully(content);
+
+					return content;
+				}
+
+				position = data + compressedSize;
+			}
+
+			return null;
+		}
+		catch (EOFException e)
+		{
+			return null;
+		}
+	}
+
+	/**
+	 * The number of entries, the size and the offset in the end record of the
+	 * central directory.
+	 * 
+	 * @return the values, or null if there is no end record or the values are
+	 *         only in a ZIP64 end record
+	 */
+	static long[] endRecord(RandomAccessFile in) throws IOException
+	{
+		// Most jars have no comment, so the end record is usually last.
+		ByteBuffer tail = readTail(in, ZipIndex.EOCD_LENGTH);
+
+		int end = ZipIndex.findEndOfCentralDirectory(tail);
+
+		if (end < 0)
+		{
+			tail = readTail(in, ZipIndex.EOCD_LENGTH
+					+ ZipIndex.MAX_COMMENT_LENGTH);
+
+			end = ZipIndex.findEndOfCentralDirectory(tail);
+		}
+
+		if (end < 0)
+			return null;
+
+		long count = tail.getShort(end + 10) & 0xFFFF;
+		long size = tail.getInt(end + 12) & 0xFFFFFFFFL;
+		long offset = tail.getInt(end + 16) & 0xFFFFFFFFL;
+
+		if (count == 0xFFFF || size == 0xFFFFFFFFL || offset == 0xFFFFFFFFL)
+			return null;
+
+		return new long[] { count, size, offset };
+	}
+
+	private static ByteBuffer readTail(RandomAccessFile in, int maxLength)
+			throws IOException
+	{
+		long length = in.length();
+
+		byte[] tail = new byte[(int) Math.min(length, maxLength)];
+
+		in.seek(length - tail.length);
+		in.readFully(tail);
+
+		return ByteBuffer.wrap(tail).order(ByteOrder.LITTLE_ENDIAN);
+	}
+
+	private static void writeInt(OutputStream out, int value)
+			throws IOException
+	{
+		out.write(value >>> 24);
+		out.write(value >>> 16);
+		out.write(value >>> 8);
+		out.write(value);
+	}
+
+	private static void writeVarInt(OutputStream out, int value)
+			throws IOException
+	{
+		while ((value & ~0x7F) != 0)
+		{
+			out.write((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+
+		out.write(value);
+	}
+
+	private static int readVarInt(ByteBuffer buf) throws IOException
+	{
+		int value = 0;
+
+		for (int shift = 0; shift < 32; shift += 7)
+		{
+			byte b = buf.get();
+
+			value |= (b & 0x7F) << shift;
+
+			if (b >= 0)
+			{
+				if (value < 0)
+					throw new IOException("Corrupt resource index");
+
+				return value;
+			}
+		}
+
+		throw new IOException("Corrupt resource index");
+	}
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright [2013] PurePerfect.com Licensed under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except in compliance with the
+ * License.
+ * 
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pureperfect.pathutils;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * An archive file mapped as a sequence of read-only segments, for archives
+ * that are too large for a single {@link ByteBuffer}. Reads that cross a
+ * segment boundary are copied; all other reads are views of the mapping.
+ * 
+ * @version 0.3
+ * @since 0.3
+ */
+class SegmentedArchiveData extends ArchiveData
+{
+	static final int SEGMENT_SIZE = 1 << 30;
+
+	private final ByteBuffer[] segments;
+
+	private final int segmentSize;
+
+	private final long size;
+
+	private SegmentedArchiveData(ByteBuffer[] segments, int segmentSize,
+			long size)
+	{
+		this.segments = segments;
+		this.segmentSize = segmentSize;
+		this.size = size;
+	}
+
+	/**
+	 * Memory map the file read-only.
+	 * 
+	 * @param file
+	 *            the archive file
+	 * @param segmentSize
+	 *            the size of each mapping
+	 * @return the mapped archive
+	 * @throws IOException
+	 *             if the file cannot be mapped
+	 */
+	static SegmentedArchiveData map(File file, int segmentSize)
+			throws IOException
+	{
+		FileInputStream in = new FileInputStream(file);
+
+		try
+		{
+			FileChannel channel = in.getChannel();
+
+			long size = channel.size();
+
+			ByteBuffer[] segments = new ByteBuffer[(int) ((size
+					+ segmentSize - 1) / segmentSize)];
+
+			for (int i = 0; i < segments.length; ++i)
+			{
+				long start = (long) i * segmentSize;
+
+				segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, start,
+						Math.min(segmentSize, size - start));
+			}
+
+			return new SegmentedArchiveData(segments, segmentSize, size);
+		}
+		finally
+		{
+			in.close();
+		}
+	}
+
+	@Override
+	long size()
+	{
+		return this.size;
+	}
+
+	@Override
+	void read(long position, byte[] b, int off, int length) throws IOException
+	{
+		this.checkRange(position, length);
+
+		while (length > 0)
+		{
+			ByteBuffer view = this.view(position);
+
+			int count = Math.min(length, view.remaining());
+
+			view.get(b, off, count);
+
+			position += count;
+			off += count;
+			length -= count;
+		}
+	}
+
+	@Override
+	ByteBuffer read(long position, int length) throws IOException
+	{
+		this.checkRange(position, length);
+
+		if (this.isInOneSegment(position, length))
+		{
+			ByteBuffer view = this.view(position);
+
+			view.limit(view.position() + length);
+
+			return view.slice();
+		}
+
+		return super.read(position, length);
+	}
+
+	@Override
+	InputStream openStream(long position, long length) throws IOException
+	{
+		this.checkRange(position, length);
+
+		if (this.isInOneSegment(position, length))
+		{
+			ByteBuffer view = this.view(position);
+
+			view.limit(view.position() + (int) length);
+
+			return new BufferArchiveData.ByteBufferInputStream(view);
+		}
+
+		return new RegionInputStream(this, position, length);
+	}
+
+	private boolean isInOneSegment(long position, long length)
+	{
+		return length > 0
+				&& position / this.segmentSize == (position + length - 1)
+						/ this.segmentSize;
+	}
+
+	private ByteBuffer view(long position)
+	{
+		ByteBuffer view = this.segments[(int) (position / this.segmentSize)]
+				.duplicate();
+
+		view.position((int) (position % this.segmentSize));
+
+		return view;
+	}
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright [2013] PurePerfect.com Licensed under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except in compliance with the
+ * License.
+ * 
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pureperfect.pathutils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * A region of another archive, used to read a stored (uncompressed) archive
+ * nested inside of an outer one in place.
+ * 
+ * @version 0.3
+ * @since 0.3
+ */
+class SliceArchiveData extends ArchiveData
+{
+	private final ArchiveData parent;
+
+	private final long offset;
+
+	private final long length;
+
+	SliceArchiveData(ArchiveData parent, long offset, long length)
+			throws IOException
+	{
+		parent.checkRange(offset, length);
+
+		this.parent = parent;
+		this.offset = offset;
+		this.length = length;
+	}
+
+	@Override
+	long size()
+	{
+		return this.length;
+	}
+
+	@Override
+	boolean isRemote()
+	{
+		return this.parent.isRemote();
+	}
+
+	@Override
+	void read(long position, byte[] b, int off, int length) throws IOException
+	{
+		this.checkRange(position, length);
+		this.parent.read(this.offset + position, b, off, length);
+	}
+
+	@Override
+	ByteBuffer read(long position, int length) throws IOException
+	{
+		this.checkRange(position, length);
+
+		return this.parent.read(this.offset + position, length);
+	}
+
+	@Override
+	InputStream openStream(long position, long length) throws IOException
+	{
+		this.checkRange(position, length);
+
+		return this.parent.openStream(this.offset + position, length);
+	}
+}
@@ -0,0 +1,523 @@
+/*
+ * Copyright [2013] PurePerfect.com Licensed under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except in compliance with the
+ * License.
+ * 
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pureperfect.pathutils;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.ref.SoftReference;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+import java.util.zip.ZipException;
+
+/**
+ * A loaded archive: its bytes and the index of its entries.
+ * 
+ * @version 0.3
+ * @since 0.3
+ */
+final class ZipArchive
+{
+	private static final int LOC_SIGNATURE = 0x04034b50;
+
+	private static final int LOC_LENGTH = 30;
+
+	/**
+	 * Room for a local extra field that is longer than the one in the central
+	 * directory, e.g. with a ZIP64 field or more time stamps.
+	 */
+	private static final int LOCAL_EXTRA_MARGIN = 64;
+
+	/**
+	 * Separates the name of a nested archive from the path inside of it, e.g.
+	 * "lib/inner.jar!/com/x/file.txt".
+	 */
+	static final String NESTED_SEPARATOR = "!/";
+
+	private static final int MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
+
+	private final ArchiveData data;
+
+	private final ZipIndex index;
+
+	/*
+	 * Stored nested archives are slices of this one and cost next to nothing
+	 * to keep. Compressed ones had to be inflated onto the heap and may be
+	 * dropped under memory pressure.
+	 */
+	private final Map<String, ZipArchive> storedArchives = new ConcurrentHashMap<String, ZipArchive>();
+
+	private final Map<String, SoftReference<ZipArchive>> inflatedArchives = new ConcurrentHashMap<String, SoftReference<ZipArchive>>();
+
+	/**
+	 * The {@link ArchiveEntry} of each entry that has been resolved, by
+	 * ordinal, so that resolving the same entry again allocates nothing.
+	 */
+	private volatile AtomicReferenceArray<ArchiveEntry> handles;
+
+	/**
+	 * Stands in for this archive in cached content keys, so that cached
+	 * content does not keep the archive, and its mapping, alive.
+	 */
+	private final Object cacheScope = new Object();
+
+	ZipArchive(ArchiveData data)
+	{
+		this.data = data;
+
+		try
+		{
+			this.index = ZipIndex.parse(data);
+		}
+		catch (IOException e)
+		{
+			throw new PathResolutionException(e);
+		}
+	}
+
+	/**
+	 * Read the whole stream. Large archives are spooled to disk.
+	 * 
+	 * @param in
+	 *            the archive stream
+	 * @return the archive
+	 */
+	static ZipArchive load(InputStream in)
+	{
+		try
+		{
+			return new ZipArchive(ArchiveData.load(in));
+		}
+		catch (IOException e)
+		{
+			throw new PathResolutionException(e);
+		}
+	}
+
+	static ZipArchive wrap(byte[] zipData)
+	{
+		return new ZipArchive(new BufferArchiveData(zipData));
+	}
+
+	/**
+	 * Memory map the archive file.
+	 * 
+	 * @param file
+	 *            the archive file
+	 * @return the archive
+	 */
+	static ZipArchive map(File file)
+	{
+		try
+		{
+			return new ZipArchive(ArchiveData.map(file));
+		}
+		catch (IOException e)
+		{
+			throw new PathResolutionException(e);
+		}
+	}
+
+	ArchiveData getData()
+	{
+		return this.data;
+	}
+
+	ZipIndex getIndex()
+	{
+		return this.index;
+	}
+
+	Object getCacheScope()
+	{
+		return this.cacheScope;
+	}
+
+	/**
+	 * The shared {@link ArchiveEntry} for an entry of this archive.
+	 * 
+	 * @param entry
+	 *            an entry in the index of this archive
+	 * @return the archive entry
+	 */
+	ArchiveEntry handle(ZipIndex.Entry entry)
+	{
+		AtomicReferenceArray<ArchiveEntry> handles = this.handles;
+
+		if (handles == null)
+		{
+			// A race only creates an array that is dropped again.
+			handles = new AtomicReferenceArray<ArchiveEntry>(this.index
+					.entries().size());
+			this.handles = handles;
+		}
+
+		ArchiveEntry handle = handles.get(entry.ordinal);
+
+		if (handle == null)
+		{
+			handle = new ArchiveEntry(entry, this);
+
+			if (!handles.compareAndSet(entry.ordinal, null, handle))
+				handle = handles.get(entry.ordinal);
+		}
+
+		return handle;
+	}
+
+	/**
+	 * Open the entry by seeking to its local header and reading only its
+	 * data. Remote entries are read along with their local header, in one
+	 * request.
+	 * 
+	 * @param entry
+	 *            an entry of this archive
+	 * @return a stream of the uncompressed entry data
+	 * @throws IOException
+	 *             if the entry cannot be read
+	 */
+	InputStream open(ZipIndex.Entry entry) throws IOException
+	{
+		InputStream raw = this.data.isRemote() ? this.openWithHeader(entry)
+				: this.data.openStream(this.dataOffset(entry),
+						entry.compressedSize);
+
+		switch (entry.method)
+		{
+		case ZipIndex.Entry.STORED:
+			return raw;
+		case ZipIndex.Entry.DEFLATED:
+			return new EntryInflaterInputStream(raw, entry.compressedSize);
+		default:
+			throw new ZipException("Unsupported compression method "
+					+ entry.method + " for: " + entry.name);
+		}
+	}
+
+	/**
+	 * Read the whole uncompressed entry. Compressed data is inflated straight
+	 * from the archive data into an array of the size in the central
+	 * directory; anything unexpected is left to {@link #open(ZipIndex.Entry)}
+	 * so that the result is always the same as reading the stream.
+	 * 
+	 * @param entry
+	 *            an entry of this archive
+	 * @return the uncompressed entry data
+	 * @throws IOException
+	 *             if the entry cannot be read
+	 */
+	byte[] read(ZipIndex.Entry entry) throws IOException
+	{
+		// Remote data would be read with two requests.
+		if (entry.method == ZipIndex.Entry.DEFLATED && !this.data.isRemote()
+				&& entry.size >= 0 && entry.size <= MAX_ARRAY_SIZE
+				&& entry.compressedSize <= Integer.MAX_VALUE)
+		{
+			byte[] bytes = inflate(this.data.read(this.dataOffset(entry),
+					(int) entry.compressedSize), (int) entry.size);
+
+			if (bytes != null)
+				return bytes;
+		}
+
+		InputStream in = this.open(entry);
+
+		try
+		{
+			return PathUtils.toBytes(in, entry.size);
+		}
+		finally
+		{
+			in.close();
+		}
+	}
+
+	/**
+	 * Inflate raw deflate data of a known size.
+	 * 
+	 * @return the data, or null if it is not exactly the given size or cannot
+	 *         be inflated
+	 */
+	private static byte[] inflate(ByteBuffer compressed, int size)
+	{
+		Inflater inflater = new Inflater(true);
+
+		try
+		{
+			Platform.setInput(inflater, compressed);
+
+			byte[] bytes = new byte[size];
+
+			int length = 0;
+
+			boolean padded = false;
+
+			while (!inflater.finished())
+			{
+				if (length < size)
+				{
+					length += inflater.inflate(bytes, length, size - length);
+				}
+				else if (inflater.inflate(new byte[1]) > 0)
+				{
+					// Larger than the central directory says.
+					return null;
+				}
+
+				if (!inflater.finished() && inflater.needsInput())
+				{
+					if (padded)
+						return null;
+
+					/*
+					 * A raw inflater may need one byte past the end of the data
+					 * to finish.
+					 */
+					inflater.setInput(new byte[1]);
+					padded = true;
+				}
+				else if (inflater.needsDictionary())
+				{
+					return null;
+				}
+			}
+
+			return length == size ? bytes : null;
+		}
+		catch (DataFormatException e)
+		{
+			return null;
+		}
+		finally
+		{
+			inflater.end();
+		}
+	}
+
+	/**
+	 * Get an archive that is an entry of this one. Stored archives are read in
+	 * place; compressed archives are inflated once. Either way the nested
+	 * archive and its index are cached.
+	 * 
+	 * @param entry
+	 *            an entry of this archive that is itself an archive
+	 * @return the nested archive
+	 * @throws IOException
+	 *             if the entry cannot be read
+	 */
+	ZipArchive nested(ZipIndex.Entry entry) throws IOException
+	{
+		if (entry.isStored())
+		{
+			ZipArchive nested = this.storedArchives.get(entry.name);
+
+			if (nested == null)
+			{
+				nested = new ZipArchive(new SliceArchiveData(this.data,
+						this.dataOffset(entry), entry.compressedSize));
+
+				this.storedArchives.put(entry.name, nested);
+			}
+
+			return nested;
+		}
+
+		SoftReference<ZipArchive> ref = this.inflatedArchives.get(entry.name);
+
+		ZipArchive nested = ref == null ? null : ref.get();
+
+		if (nested == null)
+		{
+			InputStream in = this.open(entry);
+
+			try
+			{
+				nested = new ZipArchive(ArchiveData.load(in, entry.size));
+			}
+			finally
+			{
+				in.close();
+			}
+
+			this.inflatedArchives.put(entry.name, new SoftReference<ZipArchive>(
+					nested));
+		}
+
+		return nested;
+	}
+
+	/**
+	 * Follow a chain of nested archive names, e.g. "lib/a.jar!/lib/b.jar".
+	 * 
+	 * @param names
+	 *            the archive names separated by {@link #NESTED_SEPARATOR}
+	 * @return the innermost archive or null if one of them does not exist
+	 * @throws IOException
+	 *             if a nested archive cannot be read
+	 */
+	ZipArchive nested(String names) throws IOException
+	{
+		ZipArchive current = this;
+
+		int start = 0;
+
+		for (int end = names.indexOf(NESTED_SEPARATOR); start <= names
+				.length(); end = names.indexOf(NESTED_SEPARATOR, start))
+		{
+			if (end < 0)
+				end = names.length();
+
+			ZipIndex.Entry entry = current.getIndex().find(
+					names.substring(start, end));
+
+			if (entry == null)
+				return null;
+
+			current = current.nested(entry);
+
+			start = end + NESTED_SEPARATOR.length();
+		}
+
+		return current;
+	}
+
+	/**
+	 * Read the local header and the data of the entry with one read, which
+	 * assumes that the local header is about as long as the central directory
+	 * says. If it is longer still, the data is read on its own.
+	 */
+	private InputStream openWithHeader(ZipIndex.Entry entry)
+			throws IOException
+	{
+		long length = Math.min(entry.headerLength + LOCAL_EXTRA_MARGIN
+				+ entry.compressedSize, this.data.size()
+				- entry.localHeaderOffset);
+
+		InputStream in = this.data.openStream(entry.localHeaderOffset, length);
+
+		try
+		{
+			DataInputStream header = new DataInputStream(in);
+
+			byte[] fixed = new byte[LOC_LENGTH];
+
+			header.readFully(fixed);
+
+			ByteBuffer loc = ByteBuffer.wrap(fixed).order(
+					ByteOrder.LITTLE_ENDIAN);
+
+			if (loc.getInt(0) != LOC_SIGNATURE)
+				throw new ZipException("Invalid local header for: "
+						+ entry.name);
+
+			int variable = (loc.getShort(26) & 0xFFFF)
+					+ (loc.getShort(28) & 0xFFFF);
+
+			if (LOC_LENGTH + variable + entry.compressedSize > length)
+			{
+				in.close();
+
+				return this.data.openStream(entry.localHeaderOffset
+						+ LOC_LENGTH + variable, entry.compressedSize);
+			}
+
+			header.readFully(new byte[variable]);
+
+			return new LimitedInputStream(in, entry.compressedSize);
+		}
+		catch (IOException e)
+		{
+			in.close();
+
+			throw e;
+		}
+	}
+
+	private long dataOffset(ZipIndex.Entry entry) throws IOException
+	{
+		ByteBuffer header = this.data.read(entry.localHeaderOffset, LOC_LENGTH)
+				.order(ByteOrder.LITTLE_ENDIAN);
+
+		if (header.getInt(0) != LOC_SIGNATURE)
+			throw new ZipException("Invalid local header for: " + entry.name);
+
+		/*
+		 * The local name and extra field lengths may differ from the ones in
+		 * the central directory.
+		 */
+		return entry.localHeaderOffset + LOC_LENGTH
+				+ (header.getShort(26) & 0xFFFF)
+				+ (header.getShort(28) & 0xFFFF);
+	}
+
+	/**
+	 * Inflates raw deflate data and releases the native inflater on close.
+	 */
+	private static final class EntryInflaterInputStream extends
+			InflaterInputStream
+	{
+		private boolean eof;
+
+		private boolean closed;
+
+		EntryInflaterInputStream(InputStream in, long compressedSize)
+		{
+			super(in, new Inflater(true), (int) Math.max(1,
+					Math.min(compressedSize, 8192)));
+		}
+
+		@Override
+		protected void fill() throws IOException
+		{
+			if (this.eof)
+				throw new EOFException("Unexpected end of entry data");
+
+			this.len = this.in.read(this.buf, 0, this.buf.length);
+
+			if (this.len == -1)
+			{
+				/*
+				 * A raw inflater may need one byte past the end of the data to
+				 * finish.
+				 */
+				this.buf[0] = 0;
+				this.len = 1;
+				this.eof = true;
+			}
+
+			this.inf.setInput(this.buf, 0, this.len);
+		}
+
+		@Override
+		public void close() throws IOException
+		{
+			if (!this.closed)
+			{
+				this.closed = true;
+				this.inf.end();
+				super.close();
+			}
+		}
+	}
+}
@@ -0,0 +1,753 @@
+/*
+ * Copyright [2013] PurePerfect.com Licensed under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except in compliance with the
+ * License.
+ * 
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pureperfect.pathutils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable index of the entries in an archive, built once from the central
+ * directory so that lookups do not need to walk the archive.
+ * 
+ * @version 0.3
+ * @since 0.3
+ */
+final class ZipIndex
+{
+	private static final int EOCD_SIGNATURE = 0x06054b50;
+
+	private static final int CEN_SIGNATURE = 0x02014b50;
+
+	static final int EOCD_LENGTH = 22;
+
+	private static final int CEN_LENGTH = 46;
+
+	private static final int LOC_LENGTH = 30;
+
+	static final int MAX_COMMENT_LENGTH = 0xFFFF;
+
+	private static final int ZIP64_LOCATOR_SIGNATURE = 0x07064b50;
+
+	private static final int ZIP64_LOCATOR_LENGTH = 20;
+
+	private static final int ZIP64_EOCD_SIGNATURE = 0x06064b50;
+
+	private static final int ZIP64_EOCD_LENGTH = 56;
+
+	private static final int ZIP64_EXTRA_ID = 0x0001;
+
+	private static final long ZIP64_MAGIC = 0xFFFFFFFFL;
+
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	static final ZipIndex EMPTY = new ZipIndex(new ArrayList<Entry>(0));
+
+	private final List<Entry> entries;
+
+	/**
+	 * Open addressing table of the entries by name, so that names can be
+	 * looked up from any {@link CharSequence} without creating a String.
+	 */
+	private final Entry[] byName;
+
+	private volatile Map<String, Directory> directories;
+
+	private ZipIndex(List<Entry> entries)
+	{
+		int capacity = 2;
+
+		while (capacity < entries.size() * 2)
+		{
+			capacity <<= 1;
+		}
+
+		Entry[] names = new Entry[capacity];
+
+		for (Entry e : entries)
+		{
+			int slot = spread(e.name.hashCode()) & (capacity - 1);
+
+			while (names[slot] != null && !names[slot].name.equals(e.name))
+			{
+				slot = (slot + 1) & (capacity - 1);
+			}
+
+			// First entry wins, same as a sequential scan would.
+			if (names[slot] == null)
+				names[slot] = e;
+		}
+
+		this.entries = Collections.unmodifiableList(entries);
+		this.byName = names;
+	}
+
+	private static int spread(int hash)
+	{
+		return hash ^ (hash >>> 16);
+	}
+
+	/**
+	 * The same as {@link String#hashCode()}.
+	 */
+	private static int hash(CharSequence name)
+	{
+		if (name instanceof String)
+			return name.hashCode();
+
+		int hash = 0;
+
+		for (int i = 0; i < name.length(); ++i)
+		{
+			hash = 31 * hash + name.charAt(i);
+		}
+
+		return hash;
+	}
+
+	/**
+	 * Parse the central directory of the archive.
+	 * 
+	 * @param archive
+	 *            the archive bytes
+	 * @return the index, which is empty if the data is not a zip archive.
+	 */
+	static ZipIndex parse(byte[] archive)
+	{
+		try
+		{
+			return parse(new BufferArchiveData(archive));
+		}
+		catch (IOException e)
+		{
+			throw new PathResolutionException(e);
+		}
+	}
+
+	/**
+	 * Parse the central directory of the archive. Only the end of the archive
+	 * and the central directory itself are read.
+	 * 
+	 * @param archive
+	 *            the archive
+	 * @return the index, which is empty if the data is not a zip archive.
+	 * @throws IOException
+	 *             if the archive cannot be read
+	 */
+	static ZipIndex parse(ArchiveData archive) throws IOException
+	{
+		long archiveSize = archive.size();
+
+		if (archiveSize < EOCD_LENGTH)
+			return EMPTY;
+
+		int tailLength = (int) Math.min(archiveSize, EOCD_LENGTH
+				+ MAX_COMMENT_LENGTH);
+
+		long tailStart = archiveSize - tailLength;
+
+		ByteBuffer tail = archive.read(tailStart, tailLength).order(
+				ByteOrder.LITTLE_ENDIAN);
+
+		int end = findEndOfCentralDirectory(tail);
+
+		if (end < 0)
+			return EMPTY;
+
+		long count = tail.getShort(end + 10) & 0xFFFF;
+		long cenSize = tail.getInt(end + 12) & 0xFFFFFFFFL;
+		long cenOffset = tail.getInt(end + 16) & 0xFFFFFFFFL;
+
+		long endPosition = tailStart + end;
+
+		/*
+		 * ZIP64 archives put a locator right before the end record, pointing
+		 * at a ZIP64 end record with 64 bit counts, sizes and offsets.
+		 */
+		int locator = end - ZIP64_LOCATOR_LENGTH;
+
+		if (locator >= 0 && tail.getInt(locator) == ZIP64_LOCATOR_SIGNATURE)
+		{
+			long zip64End = tail.getLong(locator + 8);
+
+			ByteBuffer record = archive.read(zip64End, ZIP64_EOCD_LENGTH)
+					.order(ByteOrder.LITTLE_ENDIAN);
+
+			if (record.getInt(0) != ZIP64_EOCD_SIGNATURE)
+			{
+				/*
+				 * The recorded offset is off by whatever was prepended to the
+				 * archive. The record sits right before the locator.
+				 */
+				zip64End = endPosition - ZIP64_LOCATOR_LENGTH
+						- ZIP64_EOCD_LENGTH;
+
+				record = archive.read(zip64End, ZIP64_EOCD_LENGTH).order(
+						ByteOrder.LITTLE_ENDIAN);
+
+				if (record.getInt(0) != ZIP64_EOCD_SIGNATURE)
+					throw new PathResolutionException(
+							"Corrupt zip64 end of central directory");
+			}
+
+			count = record.getLong(32);
+			cenSize = record.getLong(40);
+			cenOffset = record.getLong(48);
+
+			endPosition = zip64End;
+		}
+
+		/*
+		 * Anything prepended to the archive (e.g. a launcher script) shifts
+		 * every offset recorded in the directory.
+		 */
+		long base = endPosition - cenSize - cenOffset;
+
+		if (base < 0)
+			throw new PathResolutionException("Corrupt zip central directory");
+
+		if (cenSize > Integer.MAX_VALUE)
+			throw new PathResolutionException(
+					"Zip central directory is too large: " + cenSize);
+
+		ByteBuffer buf = archive.read(base + cenOffset, (int) cenSize).order(
+				ByteOrder.LITTLE_ENDIAN);
+
+		List<Entry> entries = new ArrayList<Entry>((int) Math.min(count,
+				cenSize / CEN_LENGTH));
+
+		int pos = 0;
+
+		while (pos + CEN_LENGTH <= buf.limit()
+				&& buf.getInt(pos) == CEN_SIGNATURE)
+		{
+			int flags = buf.getShort(pos + 8) & 0xFFFF;
+			int method = buf.getShort(pos + 10) & 0xFFFF;
+			long dosTime = buf.getInt(pos + 12) & 0xFFFFFFFFL;
+			long crc = buf.getInt(pos + 16) & 0xFFFFFFFFL;
+			long compressedSize = buf.getInt(pos + 20) & 0xFFFFFFFFL;
+			long size = buf.getInt(pos + 24) & 0xFFFFFFFFL;
+			int nameLength = buf.getShort(pos + 28) & 0xFFFF;
+			int extraLength = buf.getShort(pos + 30) & 0xFFFF;
+			int commentLength = buf.getShort(pos + 32) & 0xFFFF;
+			long localOffset = buf.getInt(pos + 42) & 0xFFFFFFFFL;
+
+			String name = decode(buf, pos + CEN_LENGTH, nameLength);
+
+			if (size == ZIP64_MAGIC || compressedSize == ZIP64_MAGIC
+					|| localOffset == ZIP64_MAGIC)
+			{
+				/*
+				 * The real values are in the ZIP64 extra field, in this order,
+				 * but only for the ones that overflowed.
+				 */
+				int extra = findExtra(buf, pos + CEN_LENGTH + nameLength,
+						extraLength, ZIP64_EXTRA_ID);
+
+				if (extra < 0)
+					throw new PathResolutionException(
+							"Missing zip64 extra field for: " + name);
+
+				int fieldEnd = extra + 4 + (buf.getShort(extra + 2) & 0xFFFF);
+
+				extra += 4;
+
+				if (size == ZIP64_MAGIC && extra + 8 <= fieldEnd)
+				{
+					size = buf.getLong(extra);
+					extra += 8;
+				}
+
+				if (compressedSize == ZIP64_MAGIC && extra + 8 <= fieldEnd)
+				{
+					compressedSize = buf.getLong(extra);
+					extra += 8;
+				}
+
+				if (localOffset == ZIP64_MAGIC && extra + 8 <= fieldEnd)
+				{
+					localOffset = buf.getLong(extra);
+				}
+			}
+
+			localOffset += base;
+
+			entries.add(new Entry(entries.size(), name, flags, method, dosTime,
+					crc, compressedSize, size, localOffset, LOC_LENGTH
+							+ nameLength + extraLength));
+
+			pos += CEN_LENGTH + nameLength + extraLength + commentLength;
+		}
+
+		return new ZipIndex(entries);
+	}
+
+	private static int findExtra(ByteBuffer buf, int offset, int length,
+			int id)
+	{
+		for (int pos = offset; pos + 4 <= offset + length;)
+		{
+			int dataLength = buf.getShort(pos + 2) & 0xFFFF;
+
+			if ((buf.getShort(pos) & 0xFFFF) == id)
+				return pos;
+
+			pos += 4 + dataLength;
+		}
+
+		return -1;
+	}
+
+	static int findEndOfCentralDirectory(ByteBuffer buf)
+	{
+		for (int i = buf.limit() - EOCD_LENGTH; i >= 0; --i)
+		{
+			if (buf.getInt(i) == EOCD_SIGNATURE)
+				return i;
+		}
+
+		return -1;
+	}
+
+	private static String decode(ByteBuffer buf, int offset, int length)
+	{
+		byte[] bytes = new byte[length];
+
+		for (int i = 0; i < length; ++i)
+		{
+			bytes[i] = buf.get(offset + i);
+		}
+
+		return new String(bytes, UTF8);
+	}
+
+	/**
+	 * Look up an entry by its exact name.
+	 * 
+	 * @param name
+	 *            the entry name
+	 * @return the entry or null if there is no such entry
+	 */
+	Entry get(CharSequence name)
+	{
+		int hash = hash(name);
+
+		int mask = this.byName.length - 1;
+
+		for (int slot = spread(hash) & mask;; slot = (slot + 1) & mask)
+		{
+			Entry e = this.byName[slot];
+
+			if (e == null)
+				return null;
+
+			if (e.name.hashCode() == hash && e.name.contentEquals(name))
+				return e;
+		}
+	}
+
+	/**
+	 * Find the first entry whose name matches the regular expression. Plain
+	 * names are looked up directly.
+	 * 
+	 * @param regex
+	 *            the entry name or a regular expression
+	 * @return the entry or null if nothing matches
+	 */
+	Entry find(String regex)
+	{
+		Entry exact = this.get(regex);
+
+		if (exact != null && NameMatcher.matchesItself(regex))
+			return exact;
+
+		NameMatcher matcher = NameMatcher.compile(regex);
+
+		/*
+		 * Not a plain name, or a name containing '.' that did not match
+		 * literally but could still match as an expression.
+		 */
+		if (!matcher.isLiteral())
+		{
+			for (Entry current : this.entries)
+			{
+				if (matcher.matches(current.name))
+					return current;
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * Find all entries whose name matches the regular expression, in central
+	 * directory order. Rather than testing every entry, the search starts at
+	 * the directory named by the literal part of the expression and only
+	 * descends into subdirectories that the expression could still match.
+	 * 
+	 * @param regex
+	 *            the regular expression
+	 * @return the matching entries
+	 */
+	List<Entry> matching(String regex)
+	{
+		return this.matching(regex, MatchMode.REGEX);
+	}
+
+	/**
+	 * Find all entries whose name matches the expression, in central
+	 * directory order.
+	 * 
+	 * @param expression
+	 *            the expression
+	 * @param mode
+	 *            how to interpret the expression
+	 * @return the matching entries
+	 */
+	List<Entry> matching(String expression, MatchMode mode)
+	{
+		return this.matching(Collections.singleton(expression), mode).get(
+				expression);
+	}
+
+	/**
+	 * Find the entries matching each of the regular expressions in one walk of
+	 * the directory tree. The walk starts at the deepest directory that all of
+	 * the expressions share.
+	 * 
+	 * @param expressions
+	 *            the expressions
+	 * @param mode
+	 *            how to interpret the expressions
+	 * @return the matching entries of each distinct expression, in central
+	 *         directory order
+	 */
+	Map<String, List<Entry>> matching(Collection<String> expressions,
+			MatchMode mode)
+	{
+		NameMatcherSet matchers = new NameMatcherSet(expressions, mode);
+
+		Map<String, List<Entry>> results = matchers.newResults();
+
+		String common = null;
+
+		for (String expression : matchers.expressions())
+		{
+			String directory = literalDirectory(expression, mode);
+
+			common = common == null ? directory : commonDirectory(common,
+					directory);
+		}
+
+		Directory start = common == null ? null : this.directories().get(
+				common);
+
+		if (start != null)
+		{
+			// The directory's own entry is listed in its parent.
+			Entry self = this.get(start.path);
+
+			if (self != null)
+				matchers.match(self.name, self, results);
+
+			collect(start, matchers, results);
+		}
+
+		for (List<Entry> matches : results.values())
+		{
+			Collections.sort(matches, CENTRAL_DIRECTORY_ORDER);
+		}
+
+		return results;
+	}
+
+	private static void collect(Directory dir, NameMatcherSet matchers,
+			Map<String, List<Entry>> results)
+	{
+		for (Entry child : dir.entries)
+		{
+			matchers.match(child.name, child, results);
+		}
+
+		for (Directory child : dir.directories)
+		{
+			// Nothing below the directory can match unless a longer name could.
+			if (matchers.couldMatchLonger(child.path))
+				collect(child, matchers, results);
+		}
+	}
+
+	private static String commonDirectory(String a, String b)
+	{
+		int length = 0;
+
+		for (int i = 0; i < Math.min(a.length(), b.length())
+				&& a.charAt(i) == b.charAt(i); ++i)
+		{
+			if (a.charAt(i) == '/')
+				length = i + 1;
+		}
+
+		return a.substring(0, length);
+	}
+
+	/**
+	 * The directory that every match of the expression must be in, i.e. the
+	 * part of the leading literal text up to its last '/'.
+	 * 
+	 * @param regex
+	 *            the regular expression
+	 * @return the directory, or "" for the root
+	 */
+	static String literalDirectory(String regex)
+	{
+		return literalDirectory(regex, MatchMode.REGEX);
+	}
+
+	/**
+	 * The directory that every match of the expression must be in.
+	 * 
+	 * @param expression
+	 *            the expression
+	 * @param mode
+	 *            how to interpret the expression
+	 * @return the directory, or "" for the root
+	 */
+	static String literalDirectory(String expression, MatchMode mode)
+	{
+		int end = 0;
+
+		if (mode == MatchMode.GLOB)
+		{
+			while (end < expression.length()
+					&& "\\*?[{".indexOf(expression.charAt(end)) < 0)
+			{
+				++end;
+			}
+		}
+		else
+		{
+			if (expression.indexOf('|') >= 0)
+				return "";
+
+			while (end < expression.length()
+					&& "\\[]{}()*+?^$|.".indexOf(expression.charAt(end)) < 0)
+			{
+				++end;
+			}
+
+			// A quantifier makes the character before it optional.
+			if (end < expression.length()
+					&& "*?{".indexOf(expression.charAt(end)) >= 0)
+				--end;
+		}
+
+		int slash = expression.lastIndexOf('/', end - 1);
+
+		return slash < 0 ? "" : expression.substring(0, slash + 1);
+	}
+
+	private Map<String, Directory> directories()
+	{
+		Map<String, Directory> tree = this.directories;
+
+		if (tree == null)
+		{
+			// Racing threads build identical trees, so either one will do.
+			tree = buildDirectories(this.entries);
+			this.directories = tree;
+		}
+
+		return tree;
+	}
+
+	private static Map<String, Directory> buildDirectories(List<Entry> entries)
+	{
+		Map<String, Directory> tree = new HashMap<String, Directory>();
+
+		tree.put("", new Directory(""));
+
+		for (Entry e : entries)
+		{
+			directory(tree, parentOf(e.name)).entries.add(e);
+
+			if (e.isDirectory())
+				directory(tree, e.name);
+		}
+
+		return Collections.unmodifiableMap(tree);
+	}
+
+	private static Directory directory(Map<String, Directory> tree, String path)
+	{
+		Directory dir = tree.get(path);
+
+		if (dir == null)
+		{
+			dir = new Directory(path);
+
+			tree.put(path, dir);
+
+			// Archives do not have to list every directory explicitly.
+			directory(tree, parentOf(path)).directories.add(dir);
+		}
+
+		return dir;
+	}
+
+	private static String parentOf(String name)
+	{
+		int slash = name.lastIndexOf('/', name.length() - 2);
+
+		return slash < 0 ? "" : name.substring(0, slash + 1);
+	}
+
+	/**
+	 * All entries in central directory order.
+	 * 
+	 * @return the entries
+	 */
+	List<Entry> entries()
+	{
+		return this.entries;
+	}
+
+	int size()
+	{
+		return this.entries.size();
+	}
+
+	private static final Comparator<Entry> CENTRAL_DIRECTORY_ORDER = new Comparator<Entry>()
+	{
+		@Override
+		public int compare(Entry o1, Entry o2)
+		{
+			return o1.ordinal < o2.ordinal ? -1 : o1.ordinal == o2.ordinal ? 0
+					: 1;
+		}
+	};
+
+	/**
+	 * A directory of the archive and the entries and directories directly
+	 * inside of it.
+	 */
+	static final class Directory
+	{
+		final String path;
+
+		final List<Entry> entries = new ArrayList<Entry>();
+
+		final List<Directory> directories = new ArrayList<Directory>();
+
+		Directory(String path)
+		{
+			this.path = path;
+		}
+	}
+
+	/**
+	 * A central directory record.
+	 */
+	static final class Entry
+	{
+		static final int STORED = 0;
+
+		static final int DEFLATED = 8;
+
+		/**
+		 * Position in the central directory.
+		 */
+		final int ordinal;
+
+		final String name;
+
+		final int flags;
+
+		final int method;
+
+		final long dosTime;
+
+		final long crc;
+
+		final long compressedSize;
+
+		final long size;
+
+		final long localHeaderOffset;
+
+		/**
+		 * The length of the local header if its name and extra field are the
+		 * same as in the central directory, which they usually are.
+		 */
+		final int headerLength;
+
+		Entry(int ordinal, String name, int flags, int method, long dosTime,
+				long crc, long compressedSize, long size,
+				long localHeaderOffset, int headerLength)
+		{
+			this.ordinal = ordinal;
+			this.name = name;
+			this.flags = flags;
+			this.method = method;
+			this.dosTime = dosTime;
+			this.crc = crc;
+			this.compressedSize = compressedSize;
+			this.size = size;
+			this.localHeaderOffset = localHeaderOffset;
+			this.headerLength = headerLength;
+		}
+
+		/**
+		 * Convert the MS-DOS date and time to java time, in the local time
+		 * zone like {@link java.util.zip.ZipEntry#getTime()}.
+		 * 
+		 * @return the modification time
+		 */
+		long getLastModified()
+		{
+			Calendar time = Calendar.getInstance();
+
+			time.clear();
+			time.set((int) ((this.dosTime >> 25) & 0x7f) + 1980,
+					(int) ((this.dosTime >> 21) & 0x0f) - 1,
+					(int) ((this.dosTime >> 16) & 0x1f),
+					(int) ((this.dosTime >> 11) & 0x1f),
+					(int) ((this.dosTime >> 5) & 0x3f),
+					(int) ((this.dosTime << 1) & 0x3e));
+
+			return time.getTimeInMillis();
+		}
+
+		boolean isStored()
+		{
+			return this.method == STORED;
+		}
+
+		boolean isDirectory()
+		{
+			return this.name.endsWith("/");
+		}
+	}
+}
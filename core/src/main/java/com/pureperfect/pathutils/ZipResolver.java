@@ -0,0 +1,265 @@
+/*
+ * Copyright [2013] PurePerfect.com Licensed under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except in compliance with the
+ * License.
+ * 
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pureperfect.pathutils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+class ZipResolver extends PathResolver
+{
+	private static final int MAX_BUFFER = 1024;
+
+	private static final ThreadLocal<StringBuilder> TARGET = new ThreadLocal<StringBuilder>()
+	{
+		@Override
+		protected StringBuilder initialValue()
+		{
+			return new StringBuilder(128);
+		}
+	};
+
+	private String parent;
+
+	private ZipArchive archive;
+
+	ZipResolver(String entry, InputStream in)
+	{
+		this(entry, ZipArchive.load(in));
+	}
+
+	ZipResolver(String entry, byte[] zipFile)
+	{
+		this(entry, ZipArchive.wrap(zipFile));
+	}
+
+	ZipResolver(ArchiveEntry entry)
+	{
+		this(entry.getPath(), entry.getArchive());
+	}
+
+	ZipResolver(String entry, ZipArchive archive)
+	{
+		this.parent = entry;
+		this.archive = archive;
+	}
+
+	ZipArchive getArchive()
+	{
+		return this.archive;
+	}
+
+	@Override
+	public String getPath()
+	{
+		return parent;
+	}
+
+	private String targetPath(String path)
+	{
+		return PathUtils.resolvePath(parent, path);
+	}
+
+	@Override
+	Object cacheKey(String path)
+	{
+		if (PathUtils.toURL(path) != null)
+			return null;
+
+		return new ContentCache.Key(this.archive.getCacheScope(),
+				NormalizedPath.intern(this.targetPath(path)), 0);
+	}
+
+	@Override
+	public List<String> getSubfiles(String regexMatch) throws IOException
+	{
+		String targetPath = this.targetPath(regexMatch);
+
+		int nested = targetPath.lastIndexOf(ZipArchive.NESTED_SEPARATOR);
+
+		ZipArchive target = this.archive;
+
+		if (nested >= 0)
+		{
+			target = this.archive.nested(targetPath.substring(0, nested));
+
+			targetPath = targetPath.substring(nested
+					+ ZipArchive.NESTED_SEPARATOR.length());
+		}
+
+		List<String> results = new LinkedList<String>();
+
+		if (target == null)
+			return results;
+
+		for (ZipIndex.Entry current : target.getIndex().matching(targetPath,
+				this.getMatchMode()))
+		{
+			results.add(PathUtils.trimToFile(current.name));
+		}
+
+		return results;
+	}
+
+	@Override
+	public Map<String, List<String>> getSubfiles(
+			Collection<String> regexMatches) throws IOException
+	{
+		/*
+		 * Group the expressions by the (nested) archive they list, keeping
+		 * track of which expressions became the same entry expression.
+		 */
+		Map<String, Map<String, List<String>>> byArchive = new LinkedHashMap<String, Map<String, List<String>>>();
+
+		Map<String, List<String>> results = new LinkedHashMap<String, List<String>>();
+
+		for (String regexMatch : regexMatches)
+		{
+			if (results.containsKey(regexMatch))
+				continue;
+
+			results.put(regexMatch, new LinkedList<String>());
+
+			String targetPath = this.targetPath(regexMatch);
+
+			int nested = targetPath.lastIndexOf(ZipArchive.NESTED_SEPARATOR);
+
+			String archivePath = nested < 0 ? "" : targetPath.substring(0,
+					nested);
+
+			if (nested >= 0)
+				targetPath = targetPath.substring(nested
+						+ ZipArchive.NESTED_SEPARATOR.length());
+
+			Map<String, List<String>> expressions = byArchive.get(archivePath);
+
+			if (expressions == null)
+			{
+				expressions = new LinkedHashMap<String, List<String>>();
+				byArchive.put(archivePath, expressions);
+			}
+
+			List<String> sources = expressions.get(targetPath);
+
+			if (sources == null)
+			{
+				sources = new LinkedList<String>();
+				expressions.put(targetPath, sources);
+			}
+
+			sources.add(regexMatch);
+		}
+
+		for (Map.Entry<String, Map<String, List<String>>> group : byArchive
+				.entrySet())
+		{
+			ZipArchive target = group.getKey().length() == 0 ? this.archive
+					: this.archive.nested(group.getKey());
+
+			if (target == null)
+				continue;
+
+			Map<String, List<String>> expressions = group.getValue();
+
+			Map<String, List<ZipIndex.Entry>> matches = target.getIndex()
+					.matching(expressions.keySet(), this.getMatchMode());
+
+			for (Map.Entry<String, List<String>> expression : expressions
+					.entrySet())
+			{
+				for (ZipIndex.Entry current : matches.get(expression.getKey()))
+				{
+					String name = PathUtils.trimToFile(current.name);
+
+					for (String source : expression.getValue())
+					{
+						results.get(source).add(name);
+					}
+				}
+			}
+		}
+
+		return results;
+	}
+
+	@Override
+	public Object resolve(String path)
+	{
+		Object defaultVal = super.resolve(path);
+
+		if (defaultVal != null)
+			return defaultVal;
+
+		StringBuilder targetPath = PathUtils.resolvePath(parent, path,
+				TARGET.get());
+
+		ArchiveEntry hit = null;
+
+		/*
+		 * Plain names in this archive are looked up straight from the buffer,
+		 * so that a hit allocates nothing.
+		 */
+		if (targetPath.indexOf(ZipArchive.NESTED_SEPARATOR) < 0)
+		{
+			ZipIndex.Entry entry = this.archive.getIndex().get(targetPath);
+
+			if (entry != null && NameMatcher.matchesItself(targetPath))
+				hit = this.archive.handle(entry);
+		}
+
+		String target = hit == null ? targetPath.toString() : null;
+
+		// Don't hold on to the memory of an unusually long path.
+		if (targetPath.capacity() > MAX_BUFFER)
+			TARGET.remove();
+
+		return hit != null ? hit : this.resolve(path, target);
+	}
+
+	private Object resolve(String path, String targetPath)
+	{
+		int nested = targetPath.lastIndexOf(ZipArchive.NESTED_SEPARATOR);
+
+		ZipArchive target = this.archive;
+
+		if (nested >= 0)
+		{
+			try
+			{
+				target = this.archive.nested(targetPath.substring(0, nested));
+			}
+			catch (IOException e)
+			{
+				throw new PathResolutionException(e);
+			}
+
+			targetPath = targetPath.substring(nested
+					+ ZipArchive.NESTED_SEPARATOR.length());
+		}
+
+		ZipIndex.Entry entry = target == null ? null : target.getIndex().find(
+				targetPath);
+
+		if (entry != null)
+			return target.handle(entry);
+
+		throw new PathResolutionException(path);
+	}
+}
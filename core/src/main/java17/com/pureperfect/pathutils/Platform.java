@@ -0,0 +1,79 @@
+/*
+ * Copyright [2013] PurePerfect.com Licensed under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except in compliance with the
+ * License.
+ * 
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pureperfect.pathutils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.zip.Inflater;
+
+/**
+ * The Java 17 version of the operations that newer versions of Java do
+ * faster. It must keep the same members as the Java 8 version in
+ * src/main/java.
+ * 
+ * @version 0.3
+ * @since 0.3
+ */
+final class Platform
+{
+	private Platform()
+	{
+		// static methods only
+	}
+
+	/**
+	 * The Java release this version of the class is for.
+	 * 
+	 * @return the release
+	 */
+	static int release()
+	{
+		return 17;
+	}
+
+	/**
+	 * Read the rest of a stream of unknown length. The bytes are read in
+	 * chunks and copied into the result once, rather than into a doubling
+	 * array.
+	 * 
+	 * @param in
+	 *            the stream to read
+	 * @return the bytes in the stream
+	 * @throws IOException
+	 *             if there is an error reading from the stream.
+	 */
+	static byte[] readAllBytes(InputStream in) throws IOException
+	{
+		return in.readAllBytes();
+	}
+
+	/**
+	 * Set the remaining bytes of the buffer as the input of the inflater. A
+	 * direct or memory mapped buffer is inflated in place, without copying it
+	 * onto the heap. The buffer must not be changed until the input has been
+	 * consumed.
+	 * 
+	 * @param inflater
+	 *            the inflater
+	 * @param input
+	 *            the compressed data
+	 */
+	static void setInput(Inflater inflater, ByteBuffer input)
+	{
+		inflater.setInput(input.duplicate());
+	}
+}
@@ -0,0 +1,199 @@
+package com.pureperfect.pathutils;
+
+import static org.junit.Assert.*;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+public class AdditionalZipResolverTest
+{
+	@Test
+	public void loadFromFile() throws Exception
+	{
+		String path = PathUtils.osFriendly("src/test/resources/file.jar");
+
+		PathResolver resolver = PathResolver.createFor(new File(path));
+
+		BufferedReader in = new BufferedReader(new InputStreamReader(
+				resolver.openStream("file1.txt")));
+
+		assertEquals("This is file1", in.readLine());
+		assertNull(in.readLine());
+	}
+
+	@Test
+	public void loadFromURL() throws Exception
+	{
+		String path = PathUtils.osFriendly("src/test/resources/file.jar");
+
+		PathResolver resolver = PathResolver.createFor(new File(path).toURI()
+				.toURL());
+
+		BufferedReader in = new BufferedReader(new InputStreamReader(
+				resolver.openStream("file1.txt")));
+
+		assertEquals("This is file1", in.readLine());
+		assertNull(in.readLine());
+	}
+
+	@Test
+	public void localArchivesAreMapped() throws Exception
+	{
+		String path = PathUtils.osFriendly("src/test/resources/file.jar");
+
+		ZipResolver fromFile = (ZipResolver) PathResolver.createFor(new File(
+				path));
+
+		ZipResolver fromURL = (ZipResolver) PathResolver.createFor(new File(
+				path).toURI().toURL());
+
+		assertTrue(((BufferArchiveData) fromFile.getArchive().getData())
+				.isMapped());
+		assertTrue(((BufferArchiveData) fromURL.getArchive().getData())
+				.isMapped());
+
+		ArchiveEntry entry = (ArchiveEntry) fromFile.resolve("file2.txt");
+
+		assertEquals(new File(path).length(), entry.getZipData().length);
+	}
+
+	@Test
+	public void resolveReturnsSharedEntries() throws Exception
+	{
+		PathResolver resolver = PathResolver.createFor(new File(PathUtils
+				.osFriendly("src/test/resources/file.jar")));
+
+		ArchiveEntry entry = (ArchiveEntry) resolver.resolve("child/file4.txt");
+
+		assertSame(entry, resolver.resolve("child/./file4.txt"));
+		assertSame(entry, resolver.resolve("child/../child/file4.txt"));
+		assertEquals("child/file4.txt", entry.getPath());
+	}
+
+	@Test
+	public void warmResolveAllocatesNothing() throws Exception
+	{
+		ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+		Assume.assumeTrue(threads instanceof com.sun.management.ThreadMXBean);
+
+		com.sun.management.ThreadMXBean allocations = (com.sun.management.ThreadMXBean) threads;
+
+		Assume.assumeTrue(allocations.isThreadAllocatedMemorySupported());
+
+		allocations.setThreadAllocatedMemoryEnabled(true);
+
+		PathResolver resolver = PathResolver.createFor(new File(PathUtils
+				.osFriendly("src/test/resources/file.jar")));
+
+		String[] paths = { "file1.txt", "child/file4.txt",
+				"child/../file2.txt", "./META-INF/MANIFEST.MF" };
+
+		int calls = 100000;
+
+		for (int i = 0; i < calls; ++i)
+		{
+			assertNotNull(resolver.resolve(paths[i % paths.length]));
+		}
+
+		long thread = Thread.currentThread().getId();
+
+		long before = allocations.getThreadAllocatedBytes(thread);
+
+		for (int i = 0; i < calls; ++i)
+		{
+			resolver.resolve(paths[i % paths.length]);
+		}
+
+		long allocated = allocations.getThreadAllocatedBytes(thread) - before;
+
+		// Allow for the measurement itself, but not a single byte per call.
+		assertTrue(allocated + " bytes allocated", allocated < calls);
+	}
+
+	private static byte[] fatJar() throws Exception
+	{
+		byte[] inner = PathUtils.toBytes(PathUtils.open("file.jar"));
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+		ZipOutputStream out = new ZipOutputStream(bytes);
+
+		CRC32 crc = new CRC32();
+		crc.update(inner);
+
+		ZipEntry stored = new ZipEntry("lib/stored.jar");
+		stored.setMethod(ZipEntry.STORED);
+		stored.setSize(inner.length);
+		stored.setCompressedSize(inner.length);
+		stored.setCrc(crc.getValue());
+
+		out.putNextEntry(stored);
+		out.write(inner);
+		out.closeEntry();
+
+		out.putNextEntry(new ZipEntry("lib/deflated.jar"));
+		out.write(inner);
+		out.closeEntry();
+
+		out.close();
+
+		return bytes.toByteArray();
+	}
+
+	@Test
+	public void resolveNested() throws Exception
+	{
+		ZipResolver resolver = new ZipResolver("lib/", fatJar());
+
+		for (String jar : new String[] { "stored.jar", "deflated.jar" })
+		{
+			ArchiveEntry entry = (ArchiveEntry) resolver.resolve(jar
+					+ "!/child/file4.txt");
+
+			assertEquals("child/file4.txt", entry.getPath());
+
+			BufferedReader in = new BufferedReader(new InputStreamReader(
+					entry.open()));
+
+			assertEquals("This is down a directory.", in.readLine());
+			assertNull(in.readLine());
+
+			List<String> subfiles = resolver.getSubfiles(jar
+					+ "!/file[0-9]+.txt");
+
+			Collections.sort(subfiles);
+
+			assertEquals(2, subfiles.size());
+			assertEquals("file1.txt", subfiles.get(0));
+			assertEquals("file2.txt", subfiles.get(1));
+		}
+
+		ZipArchive stored = resolver.getArchive().nested("lib/stored.jar");
+
+		assertTrue(stored.getData() instanceof SliceArchiveData);
+		assertSame(stored, resolver.getArchive().nested("lib/stored.jar"));
+
+		try
+		{
+			resolver.resolve("missing.jar!/file1.txt");
+			fail();
+		}
+		catch (PathResolutionException e)
+		{
+			// should have failed!
+		}
+	}
+}
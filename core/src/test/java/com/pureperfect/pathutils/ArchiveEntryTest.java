@@ -0,0 +1,198 @@
+/*
+ * Copyright [2013] PurePerfect.com Licensed under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except in compliance with the
+ * License.
+ * 
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pureperfect.pathutils;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.Enumeration;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.Test;
+
+/**
+ * @version 0.3
+ * @since 0.3
+ */
+public class ArchiveEntryTest
+{
+	static byte[] content(int size)
+	{
+		byte[] content = new byte[size];
+
+		for (int i = 0; i < content.length; ++i)
+		{
+			content[i] = (byte) (i % 7 == 0 ? i : 'a' + i % 26);
+		}
+
+		return content;
+	}
+
+	static byte[] zip(byte[] content) throws Exception
+	{
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+		ZipOutputStream out = new ZipOutputStream(bytes);
+
+		out.putNextEntry(new ZipEntry("deflated.bin"));
+		out.write(content);
+		out.closeEntry();
+
+		CRC32 crc = new CRC32();
+		crc.update(content);
+
+		ZipEntry stored = new ZipEntry("dir/stored.bin");
+		stored.setMethod(ZipEntry.STORED);
+		stored.setSize(content.length);
+		stored.setCompressedSize(content.length);
+		stored.setCrc(crc.getValue());
+
+		out.putNextEntry(stored);
+		out.write(content);
+		out.closeEntry();
+
+		out.close();
+
+		return bytes.toByteArray();
+	}
+
+	@Test
+	public void openSeeksToEntry() throws Exception
+	{
+		byte[] content = content(100000);
+
+		PathResolver resolver = new ZipResolver("", zip(content));
+
+		assertArrayEquals(content,
+				PathUtils.toBytes(resolver.openStream("deflated.bin")));
+		assertArrayEquals(content,
+				PathUtils.toBytes(resolver.openStream("dir/stored.bin")));
+	}
+
+	@Test
+	public void readMatchesOpen() throws Exception
+	{
+		byte[] content = content(100000);
+
+		File file = File.createTempFile("read", ".zip");
+		file.deleteOnExit();
+
+		FileOutputStream out = new FileOutputStream(file);
+
+		try
+		{
+			out.write(zip(content));
+		}
+		finally
+		{
+			out.close();
+		}
+
+		// Inflated from a heap array and from a memory mapped file.
+		ZipArchive[] archives = { ZipArchive.wrap(zip(content)),
+				ZipArchive.map(file) };
+
+		for (ZipArchive archive : archives)
+		{
+			for (String path : new String[] { "deflated.bin", "dir/stored.bin" })
+			{
+				ArchiveEntry entry = new ArchiveEntry(path, archive);
+
+				assertArrayEquals(content, entry.read());
+				assertArrayEquals(PathUtils.toBytes(entry.open()), entry.read());
+			}
+		}
+	}
+
+	@Test
+	public void openWithExpression() throws Exception
+	{
+		byte[] content = content(10);
+
+		ArchiveEntry entry = new ArchiveEntry("dir/.*\\.bin", zip(content));
+
+		assertArrayEquals(content, PathUtils.toBytes(entry.open()));
+	}
+
+	@Test
+	public void openMissing() throws Exception
+	{
+		ArchiveEntry entry = new ArchiveEntry("missing.bin", zip(content(1)));
+
+		try
+		{
+			entry.open();
+			fail();
+		}
+		catch (PathResolutionException e)
+		{
+			assertEquals("Unable to open entry: missing.bin", e.getMessage());
+		}
+	}
+
+	@Test
+	public void metadataMatchesZipFile() throws Exception
+	{
+		File jar = new File(PathUtils.osFriendly("src/test/resources/all.jar"));
+
+		PathResolver resolver = PathResolver.createFor(jar);
+
+		ZipFile zip = new ZipFile(jar);
+
+		try
+		{
+			for (Enumeration<? extends ZipEntry> e = zip.entries(); e
+					.hasMoreElements();)
+			{
+				ZipEntry expected = e.nextElement();
+
+				ArchiveEntry actual = (ArchiveEntry) resolver.resolve(expected
+						.getName());
+
+				assertEquals(expected.getSize(), actual.getSize());
+				assertEquals(expected.getCompressedSize(),
+						actual.getCompressedSize());
+				assertEquals(expected.getCrc(), actual.getCrc());
+				assertEquals(expected.getMethod(), actual.getMethod());
+				assertEquals(expected.getTime(), actual.getLastModified());
+				assertEquals(expected.isDirectory(), actual.isDirectory());
+			}
+		}
+		finally
+		{
+			zip.close();
+		}
+	}
+
+	@Test
+	public void metadataForPath() throws Exception
+	{
+		byte[] content = content(1000);
+
+		ArchiveEntry entry = new ArchiveEntry("dir/stored.bin", zip(content));
+
+		assertEquals(1000, entry.getSize());
+		assertEquals(1000, entry.getCompressedSize());
+		assertEquals(ZipEntry.STORED, entry.getMethod());
+	}
+}
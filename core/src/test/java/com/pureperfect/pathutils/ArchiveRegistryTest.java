@@ -0,0 +1,134 @@
+/*
+ * Copyright [2013] PurePerfect.com Licensed under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except in compliance with the
+ * License.
+ * 
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pureperfect.pathutils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+/**
+ * @version 0.3
+ * @since 0.3
+ */
+public class ArchiveRegistryTest
+{
+	@Test
+	public void sameFileSharesArchive() throws Exception
+	{
+		String path = PathUtils.osFriendly("src/test/resources/all.jar");
+
+		ZipResolver first = (ZipResolver) PathResolver.createFor(new File(path));
+
+		ZipResolver second = (ZipResolver) PathResolver.createFor(new File(
+				"src/test/../test/resources/all.jar").getAbsoluteFile());
+
+		ZipResolver fromURL = (ZipResolver) PathResolver.createFor(new File(
+				path).toURI().toURL());
+
+		assertSame(first.getArchive(), second.getArchive());
+		assertSame(first.getArchive(), fromURL.getArchive());
+	}
+
+	@Test
+	public void modifiedFileIsReloaded() throws Exception
+	{
+		File copy = copyOf(PathUtils.toBytes(PathUtils.open("file.jar")));
+
+		copy.setLastModified(100000L);
+
+		ZipArchive before = ArchiveRegistry.get(copy);
+
+		assertSame(before, ArchiveRegistry.get(copy));
+
+		copy.setLastModified(200000L);
+
+		ZipArchive after = ArchiveRegistry.get(copy);
+
+		assertNotSame(before, after);
+		assertEquals(before.getIndex().size(), after.getIndex().size());
+	}
+
+	@Test
+	public void concurrentLoadsShareArchive() throws Exception
+	{
+		final File copy = copyOf(PathUtils.toBytes(PathUtils.open("all.jar")));
+
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+
+		try
+		{
+			Callable<ZipArchive> load = new Callable<ZipArchive>()
+			{
+				@Override
+				public ZipArchive call()
+				{
+					return ArchiveRegistry.get(copy);
+				}
+			};
+
+			Future<?>[] loads = new Future<?>[16];
+
+			for (int i = 0; i < loads.length; ++i)
+			{
+				loads[i] = executor.submit(load);
+			}
+
+			for (Future<?> future : loads)
+			{
+				assertSame(loads[0].get(), future.get());
+			}
+		}
+		finally
+		{
+			executor.shutdown();
+		}
+	}
+
+	private static File copyOf(byte[] content) throws IOException
+	{
+		File copy = File.createTempFile("registry", ".jar");
+
+		copy.deleteOnExit();
+
+		write(copy, content);
+
+		return copy;
+	}
+
+	private static void write(File file, byte[] content) throws IOException
+	{
+		FileOutputStream out = new FileOutputStream(file);
+
+		try
+		{
+			out.write(content);
+		}
+		finally
+		{
+			out.close();
+		}
+	}
+}
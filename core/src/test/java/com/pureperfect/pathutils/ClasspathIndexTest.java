@@ -0,0 +1,316 @@
+/*
+ * Copyright [2013] PurePerfect.com Licensed under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except in compliance with the
+ * License.
+ * 
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pureperfect.pathutils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.jar.Attributes;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+import java.util.zip.ZipEntry;
+
+import org.junit.Test;
+
+/**
+ * @version 0.3
+ * @since 0.3
+ */
+public class ClasspathIndexTest
+{
+	private static File directory() throws Exception
+	{
+		File root = File.createTempFile("classpath", "");
+		root.delete();
+
+		new File(root, "shared/dir").mkdirs();
+
+		write(new File(root, "shared/fromDirectory.txt"));
+		write(new File(root, "shared/dir/deep.txt"));
+		write(new File(root, "top.txt"));
+
+		return root;
+	}
+
+	private static void write(File file) throws Exception
+	{
+		FileOutputStream out = new FileOutputStream(file);
+		out.write(file.getName().getBytes("UTF-8"));
+		out.close();
+	}
+
+	private static File jar(Manifest manifest, String... names)
+			throws Exception
+	{
+		File jar = File.createTempFile("classpath", ".jar");
+		jar.deleteOnExit();
+
+		JarOutputStream out = manifest == null ? new JarOutputStream(
+				new FileOutputStream(jar)) : new JarOutputStream(
+				new FileOutputStream(jar), manifest);
+
+		for (String name : names)
+		{
+			out.putNextEntry(new ZipEntry(name));
+			out.write(name.getBytes("UTF-8"));
+			out.closeEntry();
+		}
+
+		out.close();
+
+		return jar;
+	}
+
+	@Test
+	public void indexesDirectoriesJarsAndManifestClassPath() throws Exception
+	{
+		File directory = directory();
+
+		File linked = jar(null, "linked/only.txt");
+
+		Manifest manifest = new Manifest();
+		manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION,
+				"1.0");
+		manifest.getMainAttributes().put(Attributes.Name.CLASS_PATH,
+				linked.getName());
+
+		// No directory entries: those are implied by the names.
+		File jar = jar(manifest, "shared/fromJar.txt", "jar/a/b.txt");
+
+		URLClassLoader loader = new URLClassLoader(new URL[] {
+				directory.toURI().toURL(), jar.toURI().toURL() }, null);
+
+		assertEquals(Arrays.asList(directory, jar, linked),
+				ClasspathIndex.roots(loader));
+
+		ClasspathIndex index = ClasspathIndex.get(loader);
+
+		assertEquals(Arrays.asList("dir", "fromDirectory.txt", "fromJar.txt"),
+				index.list(NormalizedPath.of("shared/")));
+		assertEquals(Arrays.asList("META-INF", "jar", "linked", "shared",
+				"top.txt"), index.list(NormalizedPath.of("")));
+		assertEquals(Collections.singletonList("b.txt"),
+				index.list(NormalizedPath.of("jar/a/")));
+		assertEquals(Collections.singletonList("only.txt"),
+				index.list(NormalizedPath.of("linked/")));
+		assertNull(index.list(NormalizedPath.of("missing/")));
+
+		assertTrue(index.contains(NormalizedPath.of("shared/dir/deep.txt")));
+		assertTrue(index.contains(NormalizedPath.of("jar/a/b.txt")));
+		assertTrue(index.contains(NormalizedPath.of("jar/a")));
+		assertTrue(index.contains(NormalizedPath.of("jar/a/")));
+		assertFalse(index.contains(NormalizedPath.of("jar/a/b.txt/")));
+		assertFalse(index.contains(NormalizedPath.of("shared/missing.txt")));
+	}
+
+	@Test
+	public void resolverListsResourcesInJars() throws Exception
+	{
+		File jar = jar(null, "packed/one.txt", "packed/two.txt",
+				"packed/sub/three.txt");
+
+		ClassLoader previous = Thread.currentThread().getContextClassLoader();
+
+		Thread.currentThread().setContextClassLoader(
+				new URLClassLoader(new URL[] { jar.toURI().toURL() }, null));
+
+		try
+		{
+			PathResolver resolver = PathResolver.createFor("packed/one.txt");
+
+			assertEquals(Arrays.asList("one.txt", "two.txt"),
+					resolver.getSubfiles(".*\\.txt"));
+			assertEquals(Arrays.asList("sub"), resolver.getSubfiles("s.*"));
+			assertEquals("packed/sub/three.txt",
+					resolver.resolve("sub/three.txt"));
+			assertEquals("packed/sub/three.txt",
+					PathResolver.createFor("packed/sub/").resolve("three.txt"));
+		}
+		finally
+		{
+			Thread.currentThread().setContextClassLoader(previous);
+		}
+	}
+
+	/**
+	 * Counts how often resources are looked up and opened.
+	 */
+	private static final class CountingClassLoader extends URLClassLoader
+	{
+		int lookups;
+
+		int opens;
+
+		CountingClassLoader(URL... urls)
+		{
+			super(urls, null);
+		}
+
+		@Override
+		public URL getResource(String name)
+		{
+			++this.lookups;
+
+			return super.getResource(name);
+		}
+
+		@Override
+		public InputStream getResourceAsStream(String name)
+		{
+			++this.opens;
+
+			return super.getResourceAsStream(name);
+		}
+	}
+
+	@Test
+	public void resolveDoesNotOpenResources() throws Exception
+	{
+		CountingClassLoader loader = new CountingClassLoader(jar(null,
+				"present.txt").toURI().toURL());
+
+		ClassLoader previous = Thread.currentThread().getContextClassLoader();
+
+		Thread.currentThread().setContextClassLoader(loader);
+
+		try
+		{
+			PathResolver resolver = PathResolver.createFor("");
+
+			assertEquals("present.txt", resolver.resolve("present.txt"));
+
+			// Not in the index, so the loader is asked once.
+			assertEquals("java/lang/Object.class",
+					resolver.resolve("java/lang/Object.class"));
+
+			for (int i = 0; i < 10; ++i)
+			{
+				try
+				{
+					resolver.resolve("missing.txt");
+					fail("should not resolve");
+				}
+				catch (PathResolutionException e)
+				{
+					// expected
+				}
+			}
+
+			assertEquals(0, loader.opens);
+			assertEquals(2, loader.lookups);
+		}
+		finally
+		{
+			Thread.currentThread().setContextClassLoader(previous);
+		}
+	}
+
+	@Test
+	public void missesAreBounded() throws Exception
+	{
+		CountingClassLoader loader = new CountingClassLoader();
+
+		ResourceCache cache = ResourceCache.get(loader);
+
+		for (int i = 0; i <= ResourceCache.CACHE_SIZE; ++i)
+		{
+			assertNull(cache.find(loader, "missing" + i));
+		}
+
+		assertEquals(ResourceCache.CACHE_SIZE + 1, loader.lookups);
+
+		// The most recent misses are remembered, the oldest one is not.
+		assertNull(cache.find(loader, "missing" + ResourceCache.CACHE_SIZE));
+		assertEquals(ResourceCache.CACHE_SIZE + 1, loader.lookups);
+
+		assertNull(cache.find(loader, "missing0"));
+		assertEquals(ResourceCache.CACHE_SIZE + 2, loader.lookups);
+	}
+
+	@Test
+	public void childSharesParentIndex() throws Exception
+	{
+		File parentJar = jar(null, "shared/fromParent.txt");
+		File childJar = jar(null, "shared/fromChild.txt");
+
+		URLClassLoader parent = new URLClassLoader(
+				new URL[] { parentJar.toURI().toURL() }, null);
+
+		URLClassLoader child = new URLClassLoader(new URL[] {
+				parentJar.toURI().toURL(), childJar.toURI().toURL() }, parent);
+
+		ClasspathIndex index = ClasspathIndex.get(child);
+
+		assertEquals(Arrays.asList(parentJar, childJar),
+				ClasspathIndex.roots(child));
+
+		assertEquals(Arrays.asList("fromChild.txt", "fromParent.txt"),
+				index.list(NormalizedPath.of("shared/")));
+		assertEquals(Collections.singletonList("fromParent.txt"),
+				ClasspathIndex.get(parent).list(NormalizedPath.of("shared/")));
+
+		assertTrue(index.contains(NormalizedPath.of("shared/fromParent.txt")));
+		assertTrue(index.contains(NormalizedPath.of("shared/fromChild.txt")));
+		assertFalse(ClasspathIndex.get(parent).contains(
+				NormalizedPath.of("shared/fromChild.txt")));
+	}
+
+	@Test
+	public void openIsNotCached() throws Exception
+	{
+		File dir = File.createTempFile("classpath", "");
+
+		assertTrue(dir.delete() && dir.mkdir());
+
+		File late = new File(dir, "late.txt");
+
+		ClassLoader previous = Thread.currentThread().getContextClassLoader();
+
+		Thread.currentThread().setContextClassLoader(
+				new URLClassLoader(new URL[] { dir.toURI().toURL() }, null));
+
+		try
+		{
+			assertNull(PathUtils.open("late.txt"));
+
+			new FileOutputStream(late).close();
+
+			InputStream in = PathUtils.open("late.txt");
+
+			assertNotNull(in);
+
+			in.close();
+		}
+		finally
+		{
+			Thread.currentThread().setContextClassLoader(previous);
+
+			late.delete();
+			dir.delete();
+		}
+	}
+}
@@ -26,8 +26,10 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.net.URL;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Implemented tests here share common behavior. The abstract methods are
@@ -83,6 +85,33 @@ public abstract class Common_Base
 		assertEquals("file2.txt", results.get(1));
 	}
 
+	/**
+	 * Listing several expressions at once gives the same results as listing
+	 * them one at a time.
+	 */
+	protected void getSubFilesPatterns() throws Exception
+	{
+		List<String> patterns = Arrays.asList("file[0-9]+.txt", "file1.txt",
+				"file.*", "child", "missing.txt", "file1.txt");
+
+		Map<String, List<String>> results = underTest.getSubfiles(patterns);
+
+		assertEquals(5, results.size());
+
+		assertEquals(2, results.get("file[0-9]+.txt").size());
+
+		for (String pattern : patterns)
+		{
+			List<String> expected = underTest.getSubfiles(pattern);
+			List<String> actual = results.get(pattern);
+
+			Collections.sort(expected);
+			Collections.sort(actual);
+
+			assertEquals(pattern, expected, actual);
+		}
+	}
+
 	public void getSubFilesSingle() throws Exception
 	{
 		assertEquals(expectedResolverType, underTest.getClass());
@@ -73,6 +73,15 @@ public class Common_ClasspathResolverTest extends Common_Base
 		super.getSubFilesMultiple();
 	}
 
+	@Test
+	public void getSubFilesPatterns() throws Exception
+	{
+		super.underTest = PathResolver
+				.createFor("test/internal/path/resolver/file/");
+
+		super.getSubFilesPatterns();
+	}
+
 	@Test
 	@Override
 	public void getSubFilesSingle() throws Exception
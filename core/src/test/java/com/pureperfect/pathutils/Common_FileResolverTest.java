@@ -89,6 +89,17 @@ public class Common_FileResolverTest extends Common_Base
 		super.getSubFilesMultiple();
 	}
 
+	@Test
+	public void getSubFilesPatterns() throws Exception
+	{
+		String path = PathUtils
+				.osFriendly("src/test/resources/test/internal/path/resolver/file/");
+
+		super.underTest = PathResolver.createFor(new File(path));
+
+		super.getSubFilesPatterns();
+	}
+
 	@Test
 	@Override
 	public void getSubFilesSingle() throws Exception
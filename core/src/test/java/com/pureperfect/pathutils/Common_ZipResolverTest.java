@@ -79,6 +79,15 @@ public class Common_ZipResolverTest extends Common_Base
 		super.getSubFilesMultiple();
 	}
 
+	@Test
+	public void getSubFilesPatterns() throws Exception
+	{
+		super.underTest = new ZipResolver("test/internal/path/resolver/file/",
+				PathUtils.open("all.jar"));
+
+		super.getSubFilesPatterns();
+	}
+
 	@Test
 	@Override
 	public void getSubFilesSingle() throws Exception
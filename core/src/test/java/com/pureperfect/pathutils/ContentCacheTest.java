@@ -0,0 +1,288 @@
+/*
+ * Copyright [2013] PurePerfect.com Licensed under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except in compliance with the
+ * License.
+ * 
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pureperfect.pathutils;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStreamReader;
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * @version 0.3
+ * @since 0.3
+ */
+public class ContentCacheTest
+{
+	@After
+	public void after()
+	{
+		PathResolver.setContentCache(null);
+	}
+
+	private static ContentCache.Key key(String path)
+	{
+		return new ContentCache.Key("test", path, 0);
+	}
+
+	@Test
+	public void hitsAndMisses()
+	{
+		ContentCache cache = new ContentCache(1000);
+
+		assertNull(cache.get(key("a")));
+
+		cache.put(key("a"), new byte[10]);
+
+		assertNotNull(cache.get(key("a")));
+
+		assertEquals(1, cache.getHitCount());
+		assertEquals(1, cache.getMissCount());
+		assertEquals(10, cache.getSize());
+		assertEquals(1, cache.getCount());
+	}
+
+	@Test
+	public void oneOffReadDoesNotEvictHotContent()
+	{
+		ContentCache cache = new ContentCache(10000);
+
+		for (int i = 0; i < 10; ++i)
+		{
+			String name = "hot" + i;
+
+			for (int j = 0; j < 5; ++j)
+			{
+				if (cache.get(key(name)) == null)
+					cache.put(key(name), new byte[900]);
+			}
+		}
+
+		assertEquals(10, cache.getCount());
+
+		assertNull(cache.get(key("large")));
+		cache.put(key("large"), new byte[5000]);
+
+		for (int i = 0; i < 10; ++i)
+		{
+			assertNotNull(cache.get(key("hot" + i)));
+		}
+
+		assertNull(cache.get(key("large")));
+		assertTrue(cache.getRejectionCount() > 0);
+		assertTrue(cache.getSize() <= cache.getMaximumBytes());
+	}
+
+	@Test
+	public void frequentContentReplacesInfrequent()
+	{
+		ContentCache cache = new ContentCache(1000);
+
+		for (int i = 0; i < 10; ++i)
+		{
+			cache.get(key("cold" + i));
+			cache.put(key("cold" + i), new byte[99]);
+		}
+
+		for (int j = 0; j < 5; ++j)
+		{
+			if (cache.get(key("hot")) == null)
+				cache.put(key("hot"), new byte[99]);
+		}
+
+		assertNotNull(cache.get(key("hot")));
+		assertTrue(cache.getEvictionCount() > 0);
+		assertTrue(cache.getSize() <= cache.getMaximumBytes());
+	}
+
+	@Test
+	public void sharedAcrossResolvers() throws Exception
+	{
+		ContentCache cache = new ContentCache(1 << 20);
+
+		PathResolver.setContentCache(cache);
+
+		String jar = PathUtils.osFriendly("src/test/resources/file.jar");
+
+		for (int i = 0; i < 3; ++i)
+		{
+			PathResolver resolver = PathResolver.createFor(new File(jar));
+
+			BufferedReader in = new BufferedReader(new InputStreamReader(
+					resolver.openStream("child/../file1.txt")));
+
+			assertEquals("This is file1", in.readLine());
+			assertNull(in.readLine());
+		}
+
+		PathResolver classpath = PathResolver
+				.createFor("test/internal/path/resolver/file/");
+
+		for (int i = 0; i < 2; ++i)
+		{
+			BufferedReader in = new BufferedReader(new InputStreamReader(
+					classpath.openStream("../file3.txt")));
+
+			assertEquals("This is up a directory.", in.readLine());
+		}
+
+		assertEquals(3, cache.getHitCount());
+		assertEquals(2, cache.getMissCount());
+	}
+
+	@Test
+	public void concurrentReadsAndWrites() throws Exception
+	{
+		final ContentCache cache = new ContentCache(1 << 16);
+
+		final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+
+		Thread[] threads = new Thread[8];
+
+		for (int t = 0; t < threads.length; ++t)
+		{
+			final int seed = t;
+
+			threads[t] = new Thread()
+			{
+				@Override
+				public void run()
+				{
+					try
+					{
+						for (int i = 0; i < 20000; ++i)
+						{
+							int n = (i * 31 + seed) % 200;
+
+							byte[] content = cache.get(key("k" + n));
+
+							if (content == null)
+								cache.put(key("k" + n), new byte[n + 1]);
+							else
+								assertEquals(n + 1, content.length);
+						}
+					}
+					catch (Throwable e)
+					{
+						failure.set(e);
+					}
+				}
+			};
+
+			threads[t].start();
+		}
+
+		for (Thread thread : threads)
+		{
+			thread.join();
+		}
+
+		assertNull(failure.get());
+		assertEquals(8 * 20000, cache.getHitCount() + cache.getMissCount());
+		assertTrue(cache.getSize() <= cache.getMaximumBytes());
+	}
+
+	@Test
+	public void cachedContentDoesNotKeepArchive() throws Exception
+	{
+		ContentCache cache = new ContentCache(1 << 20);
+
+		PathResolver.setContentCache(cache);
+
+		FileInputStream in = new FileInputStream(
+				PathUtils.osFriendly("src/test/resources/file.jar"));
+
+		ZipResolver resolver;
+
+		try
+		{
+			resolver = new ZipResolver("", PathUtils.toBytes(in));
+		}
+		finally
+		{
+			in.close();
+		}
+
+		resolver.openStream("file1.txt").close();
+
+		assertEquals(1, cache.getCount());
+
+		WeakReference<ZipArchive> archive = new WeakReference<ZipArchive>(
+				resolver.getArchive());
+
+		resolver = null;
+
+		for (int i = 0; i < 100 && archive.get() != null; ++i)
+		{
+			System.gc();
+			Thread.sleep(10);
+		}
+
+		assertNull(archive.get());
+		assertEquals(1, cache.getCount());
+	}
+
+	@Test
+	public void contentLargerThanCacheIsStreamed() throws Exception
+	{
+		ContentCache cache = new ContentCache(1000);
+
+		PathResolver.setContentCache(cache);
+
+		byte[] large = new byte[5000];
+
+		Arrays.fill(large, (byte) 'x');
+
+		ByteArrayOutputStream zip = new ByteArrayOutputStream();
+
+		ZipOutputStream out = new ZipOutputStream(zip);
+
+		out.putNextEntry(new ZipEntry("large.txt"));
+		out.write(large);
+		out.closeEntry();
+		out.close();
+
+		ZipResolver resolver = new ZipResolver("", zip.toByteArray());
+
+		// The size is known from the archive.
+		assertArrayEquals(large, PathUtils.toBytes(resolver
+				.openStream("large.txt")));
+
+		// The size is not known until the resource is read.
+		byte[] jar = PathUtils.toBytes(PathUtils.open("all.jar"));
+
+		assertTrue(jar.length > cache.getMaximumContentBytes());
+		assertArrayEquals(jar, PathUtils.toBytes(PathResolver.createFor("")
+				.openStream("all.jar")));
+
+		assertEquals(2, cache.getRejectionCount());
+		assertEquals(0, cache.getCount());
+	}
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright [2013] PurePerfect.com Licensed under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except in compliance with the
+ * License.
+ * 
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pureperfect.pathutils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.InputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @version 0.3
+ * @since 0.3
+ */
+public class JrtResolverTest
+{
+	@Before
+	public void requireImage()
+	{
+		Assume.assumeTrue(JrtImage.get() != null);
+	}
+
+	@Test
+	public void listsPackages() throws Exception
+	{
+		PathResolver resolver = PathResolver.createFor(new URL(
+				"jrt:/java.base/java/lang/"));
+
+		assertTrue(resolver instanceof JrtResolver);
+
+		assertEquals(Collections.singletonList("Object.class"),
+				resolver.getSubfiles("Object\\.class"));
+
+		List<String> all = resolver.getSubfiles(".*");
+
+		assertTrue(all.contains("String.class"));
+		assertTrue(all.contains("invoke"));
+
+		assertEquals(Collections.singletonList("java.base"), PathResolver
+				.createFor(new URL("jrt:/")).getSubfiles("java\\.base"));
+	}
+
+	@Test
+	public void resolvesAndOpens() throws Exception
+	{
+		PathResolver resolver = PathResolver.createFor(new URL(
+				"jrt:/java.base/java/lang/Object.class"));
+
+		assertEquals(new URL("jrt:/java.base/java/lang/String.class"),
+				resolver.resolve("String.class"));
+		assertEquals(new URL("jrt:/java.sql/java/sql/Connection.class"),
+				resolver.resolve("../../../java.sql/java/sql/Connection.class"));
+
+		InputStream in = resolver.openStream("Object.class");
+
+		try
+		{
+			byte[] magic = new byte[4];
+
+			assertEquals(4, in.read(magic));
+			assertTrue(Arrays.equals(new byte[] { (byte) 0xCA, (byte) 0xFE,
+					(byte) 0xBA, (byte) 0xBE }, magic));
+		}
+		finally
+		{
+			in.close();
+		}
+
+		try
+		{
+			resolver.resolve("Missing.class");
+			fail("should not resolve");
+		}
+		catch (PathResolutionException e)
+		{
+			// expected
+		}
+	}
+
+	@Test
+	public void moduleTreesAreCached()
+	{
+		JrtImage image = JrtImage.get();
+
+		ClassLoader loader = Thread.currentThread().getContextClassLoader();
+
+		assertSame(image.list("java.base", "java/lang/"), image.list(
+				"java.base", "java/lang/"));
+		assertSame(image.view(loader).list(loader, "java/lang/"), image
+				.view(loader).list(loader, "java/lang/"));
+	}
+
+	@Test
+	public void classpathListsModules() throws Exception
+	{
+		List<String> names = PathResolver.createFor("java/lang/").getSubfiles(
+				".*");
+
+		assertTrue(names.contains("Object.class"));
+		assertTrue(names.contains("invoke"));
+
+		// Not open, so the class loader can't find it.
+		assertFalse(names.contains("uniName.dat"));
+
+		assertTrue(PathResolver.createFor("java/").getSubfiles(".*").contains(
+				"lang"));
+		assertFalse(PathResolver.createFor("").getSubfiles(".*").contains(
+				"module-info.class"));
+	}
+
+	@Test
+	public void classpathListsOnlyWhatResolves() throws Exception
+	{
+		for (String directory : new String[] { "", "java/", "java/lang/",
+				"java/util/", "sun/nio/cs/", "javax/" })
+		{
+			PathResolver resolver = PathResolver.createFor(directory);
+
+			for (String name : resolver.getSubfiles(".*"))
+			{
+				assertEquals(directory + name, resolver.resolve(name));
+			}
+		}
+	}
+
+	@Test
+	public void classpathSeesOnlyVisibleModules() throws Exception
+	{
+		// Only the bootstrap class loader's modules, not java.sql.
+		ClassLoader loader = new URLClassLoader(new URL[0], null);
+
+		JrtImage.View view = JrtImage.get().view(loader);
+
+		assertTrue(view.list(loader, "java/lang/").contains("Object.class"));
+		assertNull(view.list(loader, "java/sql/"));
+		assertFalse(view.isDirectory(loader, "java/sql"));
+		assertTrue(view.isDirectory(loader, "java/lang"));
+	}
+}
@@ -0,0 +1,252 @@
+/*
+ * Copyright [2013] PurePerfect.com Licensed under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except in compliance with the
+ * License.
+ * 
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pureperfect.pathutils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import org.junit.Test;
+
+/**
+ * @version 0.3
+ * @since 0.3
+ */
+public class LinearMatcherTest
+{
+	private static final String[] NAMES = { "", "a", "aa", "aaa", "ab",
+			"abc", "abcabc", "b", "-", "]", "_", " ", "\t", "\n", "x\ny",
+			"a.txt", "aXtxt", "file1.txt", "file22.txt", "file.txt",
+			"dir/", "dir/a", "dir/a.txt", "dir/sub/b.txt", "\u00e9",
+			"\ud83d\ude00", "a\ud83d\ude00b", "AZ09", "{}" };
+
+	private static final String[] EXPRESSIONS = { "", "a", "a*", "a+", "a?",
+			"a{2}", "a{1,2}", "a{2,}", "a*?", "a+?b", "(a|ab)(c|bcd)?",
+			"(?:abc)+", "(a*)*", "(a|b)*c?", ".", "..", ".*", "[abc]+",
+			"[^abc]", "[a-c]*", "[]a]", "[a-]", "[\\w-]+", "[\\d\\s]",
+			"\\d+", "\\D", "\\w+", "\\W", "\\s", "\\S", "\\.", "a\\.txt",
+			"file[0-9]+\\.txt", "file[0-9]+.txt", "dir/.*", "dir/[^/]*",
+			"^a$", "^.*$", "\\Qa.txt\\E", "\\x41Z09", "\\u00e9", "x\\ny",
+			"[^a]", "a.b", "\\{\\}", "}", "]", "()", "(|a)", "a|", "|" };
+
+	@Test
+	public void sameAsPatternMatches()
+	{
+		for (String expression : EXPRESSIONS)
+		{
+			LinearMatcher matcher = new LinearMatcher(expression, expression);
+
+			for (String name : NAMES)
+			{
+				assertEquals(expression + " ~ " + name,
+						Pattern.matches(expression, name),
+						matcher.matches(name));
+			}
+		}
+	}
+
+	private static void assertSameAsPattern(String[] expressions,
+			String[] names)
+	{
+		for (String expression : expressions)
+		{
+			LinearMatcher matcher = new LinearMatcher(expression, expression);
+
+			for (String name : names)
+			{
+				assertEquals(expression + " ~ " + name,
+						Pattern.matches(expression, name),
+						matcher.matches(name));
+			}
+		}
+	}
+
+	@Test
+	public void quantifierAfterQuoteRepeatsLastCharacter()
+	{
+		assertSameAsPattern(new String[] { "\\Qa.\\E?", "\\Qab\\E*",
+				"\\Qab\\E+", "\\Qab\\E{2}", "x\\Q.\\E*" }, new String[] { "",
+				"a", "a.", "ab", "abb", "abab", "abbb", "x", "x..", "xab" });
+	}
+
+	@Test
+	public void nestedRepeatsLargerThanInitialCapacity()
+	{
+		assertSameAsPattern(new String[] { "((abcdefghijklmnop)?)*",
+				"(a?b?c?d?e?f?g?h?i?j?)*",
+				"((ab)?(cd)?(ef)?(gh)?(ij)?(kl)?(mn)?(op)?)+",
+				"(((a|b)?(c|d)?(e|f)?(g|h)?)*x)*" }, new String[] { "",
+				"abcdefghijklmnop", "abcdefghijklmnopabcdefghijklmnop",
+				"abcdefghij", "ajaj", "ja", "abcdopab", "acegx", "bdfhxx",
+				"abcdefghijklmno", "q" });
+	}
+
+	@Test
+	public void couldMatchLonger()
+	{
+		for (String expression : EXPRESSIONS)
+		{
+			LinearMatcher matcher = new LinearMatcher(expression, expression);
+
+			for (String name : NAMES)
+			{
+				if (!matcher.matches(name))
+					continue;
+
+				// Never prune a prefix of a name that matches.
+				for (int i = 0; i < name.length(); ++i)
+				{
+					assertTrue(expression + " ~ " + name.substring(0, i),
+							matcher.couldMatchLonger(name.substring(0, i)));
+				}
+			}
+		}
+
+		assertFalse(new LinearMatcher("dir/.*", "dir/.*")
+				.couldMatchLonger("other/"));
+	}
+
+	@Test
+	public void rejectsUnsupported()
+	{
+		String[] unsupported = { "(a)\\1", "(?=a)a", "(?!a)b", "(?<=a)b",
+				"(?i)a", "(?<name>a)", "a*+", "a++", "a?+", "\\bword",
+				"a^b", "a$b", "[a[b]]", "[a&&b]", "\\p{Alpha}", "a{2}{3}",
+				"a{100000}", "(a{100}){200}" };
+
+		for (String expression : unsupported)
+		{
+			try
+			{
+				new LinearMatcher(expression, expression);
+				fail(expression);
+			}
+			catch (PatternSyntaxException e)
+			{
+				// expected
+			}
+		}
+	}
+
+	@Test
+	public void rejectsInvalid()
+	{
+		String[] invalid = { "(a", "a)", "[a", "*a", "a{", "x{2,1}", "[z-a]" };
+
+		for (String expression : invalid)
+		{
+			try
+			{
+				new LinearMatcher(expression, expression);
+				fail(expression);
+			}
+			catch (PatternSyntaxException e)
+			{
+				// expected
+			}
+		}
+	}
+
+	@Test(timeout = 10000)
+	public void pathologicalExpressionIsLinear()
+	{
+		StringBuilder name = new StringBuilder();
+
+		for (int i = 0; i < 100000; ++i)
+		{
+			name.append('a');
+		}
+
+		name.append('!');
+
+		assertFalse(new LinearMatcher("(a*)*b", "(a*)*b").matches(name));
+		assertFalse(new LinearMatcher("(a|aa)+$", "(a|aa)+$").matches(name));
+	}
+
+	@Test
+	public void globs()
+	{
+		assertEquals("[^/]*\\.txt", LinearMatcher.globToRegex("*.txt"));
+		assertEquals(".*/[^/]", LinearMatcher.globToRegex("**/?"));
+		assertEquals("(?:a|b)\\.[^x\\]]", LinearMatcher
+				.globToRegex("{a,b}.[!x\\]]"));
+
+		NameMatcher txt = NameMatcher.compile("*.txt", MatchMode.GLOB);
+
+		assertTrue(txt.matches("file1.txt"));
+		assertFalse(txt.matches("dir/file1.txt"));
+		assertFalse(txt.matches("file1Xtxt"));
+
+		NameMatcher deep = NameMatcher.compile("dir/**.txt", MatchMode.GLOB);
+
+		assertTrue(deep.matches("dir/sub/b.txt"));
+		assertFalse(deep.matches("other/b.txt"));
+
+		NameMatcher literal = NameMatcher.compile("a.txt", MatchMode.GLOB);
+
+		assertTrue(literal.isLiteral());
+		assertFalse(literal.matches("aXtxt"));
+
+		try
+		{
+			NameMatcher.compile("{a,b", MatchMode.GLOB);
+			fail();
+		}
+		catch (PatternSyntaxException e)
+		{
+			// expected
+		}
+	}
+
+	@Test
+	public void resolverMatchModes() throws Exception
+	{
+		PathResolver resolver = new ZipResolver(
+				"test/internal/path/resolver/file/", PathUtils.open("all.jar"));
+
+		assertEquals(MatchMode.REGEX, resolver.getMatchMode());
+
+		resolver.setMatchMode(MatchMode.GLOB);
+
+		List<String> results = resolver.getSubfiles("file?.txt");
+
+		Collections.sort(results);
+
+		assertEquals(2, results.size());
+		assertEquals("file1.txt", results.get(0));
+		assertEquals("file2.txt", results.get(1));
+
+		resolver.setMatchMode(MatchMode.LINEAR);
+
+		assertEquals(2, resolver.getSubfiles("file[0-9]+.txt").size());
+
+		try
+		{
+			resolver.getSubfiles("(file)\\1.txt");
+			fail();
+		}
+		catch (PatternSyntaxException e)
+		{
+			// expected
+		}
+	}
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright [2013] PurePerfect.com Licensed under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except in compliance with the
+ * License.
+ * 
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pureperfect.pathutils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.net.URL;
+import java.net.URLClassLoader;
+
+import org.junit.Test;
+
+/**
+ * @version 0.3
+ * @since 0.3
+ */
+public class LoaderCacheTest
+{
+	private static final class Counter extends LoaderCache<Object>
+	{
+		int created;
+
+		@Override
+		protected Object create(ClassLoader loader)
+		{
+			++this.created;
+
+			if (loader instanceof Failing)
+				throw new PathResolutionException("failed");
+
+			return new Object();
+		}
+	}
+
+	private static final class Failing extends ClassLoader
+	{
+		Failing()
+		{
+			super(null);
+		}
+	}
+
+	@Test
+	public void createsOncePerLoader()
+	{
+		Counter cache = new Counter();
+
+		ClassLoader loader = new URLClassLoader(new URL[0], null);
+
+		Object value = cache.get(loader);
+
+		assertSame(value, cache.get(loader));
+		assertSame(cache.get(null), cache.get(null));
+		assertTrue(value != cache.get(null));
+
+		assertEquals(2, cache.created);
+		assertEquals(1, cache.size());
+	}
+
+	@Test
+	public void failuresAreRetried()
+	{
+		Counter cache = new Counter();
+
+		ClassLoader loader = new Failing();
+
+		for (int i = 1; i <= 2; ++i)
+		{
+			try
+			{
+				cache.get(loader);
+				fail("should fail");
+			}
+			catch (PathResolutionException e)
+			{
+				assertEquals(i, cache.created);
+			}
+		}
+
+		assertEquals(0, cache.size());
+	}
+
+	@Test
+	public void valuesAreDroppedWithTheirLoader() throws Exception
+	{
+		Counter cache = new Counter();
+
+		cache.get(new URLClassLoader(new URL[0], null));
+
+		assertEquals(1, cache.size());
+
+		for (int i = 0; i < 100 && cache.size() > 0; ++i)
+		{
+			System.gc();
+			Thread.sleep(10);
+		}
+
+		assertEquals(0, cache.size());
+	}
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright [2013] PurePerfect.com Licensed under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except in compliance with the
+ * License.
+ * 
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pureperfect.pathutils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.regex.Pattern;
+
+import org.junit.Test;
+
+/**
+ * @version 0.3
+ * @since 0.3
+ */
+public class NameMatcherTest
+{
+	private static final String[] NAMES = { "", "a", "ab", "abc", "a.txt",
+			"aXtxt", "dir/", "dir/a", "dir/a.txt", "dir/sub/b.txt",
+			"dir\nx", "dir/\u2028", "other/dir/a" };
+
+	private static final String[] EXPRESSIONS = { "", "a", "abc", "a.txt",
+			"dir/", "dir/.*", ".*", "a.*", "d.*", "dir/a.*", "dir/.*\\.txt",
+			"dir/[a-z]", "(a|ab)c?", "dir/sub/.*" };
+
+	@Test
+	public void literals()
+	{
+		assertTrue(NameMatcher.isLiteral("foo/bar-baz"));
+		assertFalse(NameMatcher.isLiteral("foo/bar.txt"));
+		assertTrue(NameMatcher.matchesItself("foo/bar.txt"));
+		assertFalse(NameMatcher.matchesItself("file[0-9]+.txt"));
+
+		assertTrue(NameMatcher.compile("foo/bar-baz").isLiteral());
+		assertFalse(NameMatcher.compile("foo/bar.txt").isLiteral());
+	}
+
+	@Test
+	public void compiledOnce()
+	{
+		assertSame(NameMatcher.compile("dir/.*\\.txt"),
+				NameMatcher.compile("dir/.*\\.txt"));
+	}
+
+	@Test
+	public void sameAsPatternMatches()
+	{
+		for (String expression : EXPRESSIONS)
+		{
+			NameMatcher matcher = NameMatcher.compile(expression);
+
+			for (String name : NAMES)
+			{
+				assertEquals(expression + " ~ " + name,
+						Pattern.matches(expression, name),
+						matcher.matches(name));
+			}
+		}
+	}
+
+	@Test
+	public void couldMatchLonger()
+	{
+		for (String expression : EXPRESSIONS)
+		{
+			NameMatcher matcher = NameMatcher.compile(expression);
+
+			for (String name : NAMES)
+			{
+				if (!matcher.matches(name))
+					continue;
+
+				// Never prune a prefix of a name that matches.
+				for (int i = 0; i < name.length(); ++i)
+				{
+					assertTrue(expression + " ~ " + name.substring(0, i),
+							matcher.couldMatchLonger(name.substring(0, i)));
+				}
+			}
+		}
+
+		assertFalse(NameMatcher.compile("dir/a").couldMatchLonger("other/"));
+		assertFalse(NameMatcher.compile("dir/.*").couldMatchLonger("other/"));
+		assertTrue(NameMatcher.compile("dir/.*").couldMatchLonger("dir/sub/"));
+	}
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright [2013] PurePerfect.com Licensed under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except in compliance with the
+ * License.
+ * 
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pureperfect.pathutils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+/**
+ * @version 0.3
+ * @since 0.3
+ */
+public class NormalizedPathTest
+{
+	@Test
+	public void normalizesLikeProcessNavigation()
+	{
+		String[] paths = { "foo", "/foo/bar", "foo/./bar", "foo/bar/../baz",
+				"foo/bar/", "./foo", "a/b/c/../../d" };
+
+		for (String path : paths)
+		{
+			assertEquals(path, PathUtils.processNavigation(path).toString(),
+					NormalizedPath.of(path).toString());
+		}
+
+		assertSame(NormalizedPath.ROOT, NormalizedPath.of(""));
+		assertSame(NormalizedPath.ROOT, NormalizedPath.of("/"));
+	}
+
+	@Test
+	public void equalPathsAreTheSameInstance()
+	{
+		NormalizedPath path = NormalizedPath.of("foo/bar/baz.txt");
+
+		assertSame(path, NormalizedPath.of("/foo/./bar/baz.txt"));
+		assertSame(path, NormalizedPath.of("foo/qux/../bar/baz.txt"));
+		assertSame(path, NormalizedPath.of(path));
+		assertEquals("foo/bar/baz.txt".hashCode(), path.hashCode());
+
+		Map<NormalizedPath, String> map = new HashMap<NormalizedPath, String>();
+
+		map.put(path, "value");
+
+		assertEquals("value", map.get(NormalizedPath.of("/foo/bar/baz.txt")));
+		assertNull(map.get(NormalizedPath.of("foo/bar/")));
+	}
+
+	@Test
+	public void segments()
+	{
+		NormalizedPath file = NormalizedPath.of("foo/bar/baz.txt");
+		NormalizedPath dir = NormalizedPath.of("foo/bar/");
+
+		assertEquals(3, file.getSegmentCount());
+		assertEquals("foo", file.getSegment(0));
+		assertEquals("bar", file.getSegment(1));
+		assertEquals("baz.txt", file.getSegment(2));
+		assertEquals("baz.txt", file.getName());
+		assertFalse(file.isDirectory());
+
+		assertEquals(2, dir.getSegmentCount());
+		assertEquals("bar", dir.getSegment(1));
+		assertEquals("bar", dir.getName());
+		assertTrue(dir.isDirectory());
+
+		assertEquals(0, NormalizedPath.ROOT.getSegmentCount());
+		assertEquals("", NormalizedPath.ROOT.getName());
+		assertTrue(NormalizedPath.ROOT.isDirectory());
+	}
+
+	@Test
+	public void parent()
+	{
+		assertSame(NormalizedPath.of("foo/bar/"),
+				NormalizedPath.of("foo/bar/baz.txt").getParent());
+		assertSame(NormalizedPath.of("foo/"), NormalizedPath.of("foo/bar/")
+				.getParent());
+		assertSame(NormalizedPath.ROOT, NormalizedPath.of("foo").getParent());
+		assertNull(NormalizedPath.ROOT.getParent());
+	}
+
+	@Test
+	public void childAndResolve()
+	{
+		NormalizedPath file = NormalizedPath.of("foo/bar/baz.txt");
+		NormalizedPath dir = NormalizedPath.of("foo/bar/");
+
+		assertSame(NormalizedPath.of("foo/bar/baz.txt/x"), file.child("x"));
+		assertSame(NormalizedPath.of("foo/bar/x"), dir.child("x"));
+		assertSame(NormalizedPath.of("foo/x"), dir.child("../x"));
+		assertSame(NormalizedPath.of("x"), NormalizedPath.ROOT.child("x"));
+
+		assertSame(NormalizedPath.of("foo/bar/qux.txt"),
+				file.resolve("qux.txt"));
+		assertSame(NormalizedPath.of("foo/bar/qux.txt"),
+				dir.resolve("./qux.txt"));
+
+		assertEquals(PathUtils.resolvePath(file.toString(), "../qux.txt"),
+				file.resolve("../qux.txt").toString());
+	}
+
+	@Test
+	public void startsWithAndRelativize()
+	{
+		NormalizedPath file = NormalizedPath.of("foo/bar/baz.txt");
+		NormalizedPath dir = NormalizedPath.of("foo/bar/");
+		NormalizedPath bar = NormalizedPath.of("foo/bar");
+
+		assertTrue(file.startsWith(dir));
+		assertTrue(file.startsWith(bar));
+		assertTrue(file.startsWith(NormalizedPath.ROOT));
+		assertTrue(file.startsWith(file));
+		assertFalse(file.startsWith(NormalizedPath.of("foo/ba")));
+		assertFalse(dir.startsWith(file));
+
+		assertEquals("baz.txt", dir.relativize(file));
+		assertEquals("baz.txt", bar.relativize(file));
+		assertEquals("", file.relativize(file));
+		assertEquals("foo/bar/baz.txt", NormalizedPath.ROOT.relativize(file));
+		assertNull(file.relativize(dir));
+		assertNull(NormalizedPath.of("foo/ba").relativize(file));
+
+		assertSame(file, dir.child(dir.relativize(file)));
+		assertSame(file, bar.child(bar.relativize(file)));
+	}
+
+	@Test
+	public void order()
+	{
+		assertTrue(NormalizedPath.of("a/b").compareTo(NormalizedPath.of("a/c")) < 0);
+		assertEquals(0,
+				NormalizedPath.of("a/b").compareTo(NormalizedPath.of("/a/b")));
+		assertTrue("a/b".contentEquals(NormalizedPath.of("a/b")));
+	}
+}
@@ -15,15 +15,25 @@
  */
 package com.pureperfect.pathutils;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
 
 import org.junit.Test;
 
@@ -371,4 +381,204 @@ public class PathUtilsTest
 	{
 		assertEquals("com/pureperfect/pathutils/", PathUtils.packageToClassPath(this.getClass().getPackage()));
 	}
-}
\ No newline at end of file
+
+	@Test
+	public void toBytes() throws Exception
+	{
+		byte[] content = new byte[100000];
+
+		new Random(42).nextBytes(content);
+
+		assertArrayEquals(content, PathUtils.toBytes(trickle(content)));
+
+		// Exact, short, long and empty hints all give the same bytes.
+		assertArrayEquals(content,
+				PathUtils.toBytes(trickle(content), content.length));
+		assertArrayEquals(content, PathUtils.toBytes(trickle(content), 10));
+		assertArrayEquals(content,
+				PathUtils.toBytes(trickle(content), 2 * content.length));
+		assertArrayEquals(content, PathUtils.toBytes(trickle(content), 0));
+		assertEquals(0, PathUtils.toBytes(trickle(new byte[0]), 10).length);
+	}
+
+	@Test
+	public void toBytesFromFile() throws Exception
+	{
+		File file = new File(PathUtils.osFriendly("src/test/resources/all.jar"));
+
+		byte[] expected = PathUtils.toBytes(PathUtils.open("all.jar"));
+
+		FileInputStream in = new FileInputStream(file);
+
+		try
+		{
+			assertEquals(file.length(), expected.length);
+			assertArrayEquals(expected, PathUtils.toBytes(in));
+		}
+		finally
+		{
+			in.close();
+		}
+
+		for (boolean direct : new boolean[] { true, false })
+		{
+			in = new FileInputStream(file);
+
+			try
+			{
+				ByteBuffer buffer = PathUtils.toByteBuffer(in, direct);
+
+				assertEquals(direct, buffer.isDirect());
+				assertEquals(0, buffer.position());
+
+				byte[] actual = new byte[buffer.remaining()];
+
+				buffer.get(actual);
+
+				assertArrayEquals(expected, actual);
+			}
+			finally
+			{
+				in.close();
+			}
+		}
+	}
+
+	@Test
+	public void toByteBuffer() throws Exception
+	{
+		byte[] content = new byte[50000];
+
+		new Random(7).nextBytes(content);
+
+		for (long hint : new long[] { -1, 0, 10, content.length,
+				content.length + 1 })
+		{
+			ByteBuffer buffer = PathUtils.toByteBuffer(trickle(content), hint,
+					true);
+
+			assertTrue(buffer.isDirect());
+
+			byte[] actual = new byte[buffer.remaining()];
+
+			buffer.get(actual);
+
+			assertArrayEquals(content, actual);
+		}
+	}
+
+	/**
+	 * A stream that returns at most 1000 bytes per read.
+	 */
+	private static InputStream trickle(byte[] content)
+	{
+		return new FilterInputStream(new ByteArrayInputStream(content))
+		{
+			@Override
+			public int read(byte[] b, int off, int len) throws IOException
+			{
+				return super.read(b, off, Math.min(len, 1000));
+			}
+		};
+	}
+
+	@Test
+	public void processNavigationSameAsSteps()
+	{
+		for (String path : paths(9))
+		{
+			assertEquals(path, navigateInSteps(path),
+					navigate(path, null));
+		}
+	}
+
+	@Test
+	public void resolvePathSameAsSteps()
+	{
+		List<String> parents = paths(4);
+		List<String> children = paths(5);
+
+		for (String parent : parents)
+		{
+			for (String child : children)
+			{
+				String expected;
+
+				try
+				{
+					expected = PathUtils.processNavigation(
+							PathUtils.normalizeToDir(parent).append(child))
+							.toString();
+				}
+				catch (StringIndexOutOfBoundsException e)
+				{
+					expected = "error";
+				}
+
+				assertEquals(parent + " + " + child, expected,
+						navigate(child, parent));
+			}
+		}
+
+		assertEquals("foo/baz.txt",
+				PathUtils.resolvePath("/foo/bar/", "../././baz.txt"));
+		assertEquals("foo/baz.txt",
+				PathUtils.resolvePath("/foo/bar.txt", "./baz.txt"));
+		assertEquals("baz.txt", PathUtils.resolvePath("bar.txt", "baz.txt"));
+	}
+
+	private static String navigateInSteps(String path)
+	{
+		try
+		{
+			return PathUtils.removeLeadingSlash(
+					PathUtils.processUpDirectories(PathUtils
+							.removeSameDirReferences(path))).toString();
+		}
+		catch (StringIndexOutOfBoundsException e)
+		{
+			return "error";
+		}
+	}
+
+	private static String navigate(String path, String parent)
+	{
+		StringBuilder out = new StringBuilder("previous content");
+
+		try
+		{
+			if (parent == null)
+				return PathUtils.processNavigation(path, out).toString();
+
+			return PathUtils.resolvePath(parent, path, out).toString();
+		}
+		catch (StringIndexOutOfBoundsException e)
+		{
+			return "error";
+		}
+	}
+
+	/**
+	 * Every path up to the given length made of 'a', '.' and '/'.
+	 */
+	private static List<String> paths(int maxLength)
+	{
+		List<String> results = new ArrayList<String>();
+
+		results.add("");
+
+		for (int start = 0; start < results.size(); ++start)
+		{
+			String path = results.get(start);
+
+			if (path.length() < maxLength)
+			{
+				results.add(path + "a");
+				results.add(path + ".");
+				results.add(path + "/");
+			}
+		}
+
+		return results;
+	}
+}
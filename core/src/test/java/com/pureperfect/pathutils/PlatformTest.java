@@ -0,0 +1,96 @@
+/*
+ * Copyright [2013] PurePerfect.com Licensed under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except in compliance with the
+ * License.
+ * 
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pureperfect.pathutils;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+
+import org.junit.Test;
+
+/**
+ * @version 0.3
+ * @since 0.3
+ */
+public class PlatformTest
+{
+	@Test
+	public void expectedRelease()
+	{
+		// The build runs the tests once per release in the multi-release jar.
+		assertEquals(Integer.getInteger("pathutils.release", Platform.release())
+				.intValue(), Platform.release());
+	}
+
+	@Test
+	public void readAllBytes() throws Exception
+	{
+		byte[] content = ArchiveEntryTest.content(100000);
+
+		assertArrayEquals(content,
+				Platform.readAllBytes(new ByteArrayInputStream(content)));
+		assertArrayEquals(new byte[0],
+				Platform.readAllBytes(new ByteArrayInputStream(new byte[0])));
+	}
+
+	@Test
+	public void setInput() throws Exception
+	{
+		byte[] content = ArchiveEntryTest.content(100000);
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+		DeflaterOutputStream out = new DeflaterOutputStream(bytes,
+				new Deflater(Deflater.DEFAULT_COMPRESSION, true));
+		out.write(content);
+		out.close();
+
+		byte[] compressed = bytes.toByteArray();
+
+		ByteBuffer direct = ByteBuffer.allocateDirect(compressed.length + 1);
+		direct.put(compressed).flip();
+
+		ByteBuffer[] inputs = { ByteBuffer.wrap(compressed), direct };
+
+		for (ByteBuffer input : inputs)
+		{
+			Inflater inflater = new Inflater(true);
+
+			Platform.setInput(inflater, input);
+
+			byte[] inflated = new byte[content.length];
+
+			int length = 0;
+
+			while (length < inflated.length)
+			{
+				length += inflater.inflate(inflated, length, inflated.length
+						- length);
+			}
+
+			inflater.end();
+
+			assertArrayEquals(content, inflated);
+			assertEquals(0, input.position());
+		}
+	}
+}
@@ -0,0 +1,257 @@
+/*
+ * Copyright [2013] PurePerfect.com Licensed under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except in compliance with the
+ * License.
+ * 
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pureperfect.pathutils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URL;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.After;
+import org.junit.Test;
+
+import test.utils.TestServer;
+
+/**
+ * Tests for archives read over http.
+ * 
+ * @version 0.3
+ * @since 0.3
+ */
+public class RemoteZipResolverTest
+{
+	private static final int PORT = 4041;
+
+	private TestServer server;
+
+	@After
+	public void after() throws Exception
+	{
+		server.stop();
+		server = null;
+	}
+
+	private void assertResolves(ZipResolver resolver) throws Exception
+	{
+		BufferedReader in = new BufferedReader(new InputStreamReader(
+				resolver.openStream("test/internal/path/resolver/file/child/file4.txt")));
+
+		assertEquals("This is down a directory.", in.readLine());
+		assertNull(in.readLine());
+
+		List<String> results = resolver
+				.getSubfiles("test/internal/path/resolver/file/file[0-9]+.txt");
+
+		Collections.sort(results);
+
+		assertEquals(2, results.size());
+		assertEquals("file1.txt", results.get(0));
+	}
+
+	@Test
+	public void rangeRequests() throws Exception
+	{
+		server = new TestServer(PORT, "src/test/resources");
+
+		ZipResolver resolver = (ZipResolver) PathResolver.createFor(new URL(
+				"http://localhost:" + PORT + "/all.jar"));
+
+		assertTrue(resolver.getArchive().getData() instanceof HttpArchiveData);
+
+		assertResolves(resolver);
+
+		HttpArchiveData data = (HttpArchiveData) resolver.getArchive()
+				.getData();
+
+		// The whole archive fits in the tail.
+		assertEquals(1, data.getRequestCount());
+	}
+
+	@Test
+	public void entriesOutsideTheTail() throws Exception
+	{
+		File dir = newDir();
+
+		File jar = new File(dir, "big.jar");
+
+		byte[] big = bigArchive(jar);
+
+		server = new TestServer(PORT, dir.getPath());
+
+		try
+		{
+			ZipResolver resolver = (ZipResolver) PathResolver
+					.createFor(new URL("http://localhost:" + PORT + "/big.jar"));
+
+			HttpArchiveData data = (HttpArchiveData) resolver.getArchive()
+					.getData();
+
+			assertEquals(jar.length(), data.size());
+
+			assertEquals("small",
+					new String(PathUtils.toBytes(resolver
+							.openStream("small.txt")), "UTF-8"));
+
+			// tail with the central directory and small.txt
+			assertEquals(1, data.getRequestCount());
+
+			assertTrue(Arrays.equals(big,
+					PathUtils.toBytes(resolver.openStream("big.bin"))));
+
+			assertEquals(2, data.getRequestCount());
+		}
+		finally
+		{
+			jar.delete();
+			dir.delete();
+		}
+	}
+
+	@Test
+	public void changedArchiveFails() throws Exception
+	{
+		File dir = newDir();
+
+		File jar = new File(dir, "big.jar");
+
+		bigArchive(jar);
+
+		byte[] content = Files.readAllBytes(jar.toPath());
+
+		jar.setLastModified(100000000L);
+
+		server = new TestServer(PORT, dir.getPath());
+
+		try
+		{
+			ZipResolver resolver = (ZipResolver) PathResolver
+					.createFor(new URL("http://localhost:" + PORT + "/big.jar"));
+
+			// Same length, but newer.
+			write(jar, content);
+
+			jar.setLastModified(200000000L);
+
+			try
+			{
+				resolver.openStream("big.bin");
+
+				fail("Read an entry of a changed archive");
+			}
+			catch (PathResolutionException e)
+			{
+				assertTrue(e.getCause() instanceof IOException);
+			}
+		}
+		finally
+		{
+			jar.delete();
+			dir.delete();
+		}
+	}
+
+	private static File newDir()
+	{
+		File dir = new File(System.getProperty("java.io.tmpdir"),
+				"remote-zip-" + System.nanoTime());
+
+		assertTrue(dir.mkdir());
+
+		return dir;
+	}
+
+	/**
+	 * Write an archive with a stored entry larger than the tail, followed by a
+	 * small one.
+	 * 
+	 * @return the content of the large entry
+	 */
+	private static byte[] bigArchive(File file) throws IOException
+	{
+		byte[] big = new byte[2 * HttpArchiveData.TAIL_LENGTH];
+
+		new Random(42).nextBytes(big);
+
+		CRC32 crc = new CRC32();
+
+		crc.update(big);
+
+		ZipOutputStream out = new ZipOutputStream(new FileOutputStream(file));
+
+		try
+		{
+			ZipEntry entry = new ZipEntry("big.bin");
+
+			entry.setMethod(ZipEntry.STORED);
+			entry.setSize(big.length);
+			entry.setCrc(crc.getValue());
+
+			out.putNextEntry(entry);
+			out.write(big);
+
+			out.putNextEntry(new ZipEntry("small.txt"));
+			out.write("small".getBytes("UTF-8"));
+		}
+		finally
+		{
+			out.close();
+		}
+
+		return big;
+	}
+
+	private static void write(File file, byte[] content) throws IOException
+	{
+		FileOutputStream out = new FileOutputStream(file);
+
+		try
+		{
+			out.write(content);
+		}
+		finally
+		{
+			out.close();
+		}
+	}
+
+	@Test
+	public void fallsBackToDownload() throws Exception
+	{
+		server = new TestServer(PORT, "src/test/resources", false);
+
+		ZipResolver resolver = (ZipResolver) PathResolver.createFor(new URL(
+				"http://localhost:" + PORT + "/all.jar"));
+
+		assertTrue(resolver.getArchive().getData() instanceof BufferArchiveData);
+
+		assertResolves(resolver);
+	}
+}
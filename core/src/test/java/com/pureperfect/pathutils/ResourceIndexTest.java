@@ -0,0 +1,263 @@
+/*
+ * Copyright [2013] PurePerfect.com Licensed under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except in compliance with the
+ * License.
+ * 
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pureperfect.pathutils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.Test;
+
+/**
+ * @version 0.3
+ * @since 0.3
+ */
+public class ResourceIndexTest
+{
+	private static byte[] index(long directorySize, long directoryOffset,
+			String... names) throws IOException
+	{
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+		ResourceIndex.write(Arrays.asList(names), directorySize,
+				directoryOffset, out);
+
+		return out.toByteArray();
+	}
+
+	private static void put(ZipOutputStream out, String name, byte[] content,
+			boolean stored) throws IOException
+	{
+		ZipEntry entry = new ZipEntry(name);
+
+		if (stored)
+		{
+			CRC32 crc = new CRC32();
+
+			crc.update(content);
+
+			entry.setMethod(ZipEntry.STORED);
+			entry.setSize(content.length);
+			entry.setCompressedSize(content.length);
+			entry.setCrc(crc.getValue());
+		}
+
+		out.putNextEntry(entry);
+		out.write(content);
+		out.closeEntry();
+	}
+
+	/**
+	 * A jar laid out the way the maven plugin writes it, with an index that
+	 * lists the given names. The jar has four entries.
+	 */
+	private static File jar(boolean storedIndex, String comment,
+			String... names) throws IOException
+	{
+		File jar = File.createTempFile("indexed", ".jar");
+		jar.deleteOnExit();
+
+		// The index is the same length whatever the directory is.
+		write(jar, storedIndex, comment, "real.txt", index(0, 0, names));
+
+		long[] end = endRecord(jar);
+
+		write(jar, storedIndex, comment, "real.txt", index(end[1], end[2],
+				names));
+
+		return jar;
+	}
+
+	private static void write(File jar, boolean storedIndex, String comment,
+			String last, byte[] index) throws IOException
+	{
+		ZipOutputStream out = new ZipOutputStream(new FileOutputStream(jar));
+
+		try
+		{
+			put(out, "META-INF/", new byte[0], true);
+			put(out, "META-INF/MANIFEST.MF",
+					"Manifest-Version: 1.0\r\n\r\n".getBytes("UTF-8"), true);
+			put(out, ResourceIndex.LOCATION, index, storedIndex);
+			put(out, last, "real".getBytes("UTF-8"), false);
+
+			out.setComment(comment);
+		}
+		finally
+		{
+			out.close();
+		}
+	}
+
+	private static long[] endRecord(File jar) throws IOException
+	{
+		RandomAccessFile in = new RandomAccessFile(jar, "r");
+
+		try
+		{
+			return ResourceIndex.endRecord(in);
+		}
+		finally
+		{
+			in.close();
+		}
+	}
+
+	@Test
+	public void roundTrip() throws Exception
+	{
+		String[] names = { "a/", "a/b/c.txt", "a/b/", "a/bc.txt", "",
+				"\ud83d\ude00/\ud83d\ude01.txt", "\ud83d\ude00/",
+				"\u00e9t\u00e9" };
+
+		List<String> read = ResourceIndex.read(index(0, 0, names));
+
+		assertEquals(Arrays.asList("", "a/", "a/b/", "a/b/c.txt", "a/bc.txt",
+				"\u00e9t\u00e9", "\ud83d\ude00/",
+				"\ud83d\ude00/\ud83d\ude01.txt"), read);
+
+		assertEquals(0, ResourceIndex.read(index(0, 0)).size());
+	}
+
+	@Test
+	public void rejectsInvalidIndexes() throws Exception
+	{
+		byte[] valid = index(0, 0, "a.txt", "b.txt");
+
+		byte[][] invalid = { new byte[0], Arrays.copyOf(valid, 4),
+				Arrays.copyOf(valid, valid.length - 1),
+				"not an index".getBytes("UTF-8") };
+
+		for (byte[] index : invalid)
+		{
+			try
+			{
+				ResourceIndex.read(index);
+				fail("should not read");
+			}
+			catch (IOException e)
+			{
+				// expected
+			}
+		}
+	}
+
+	@Test
+	public void readsIndexAtStartOfJar() throws Exception
+	{
+		assertEquals(Arrays.asList("META-INF/", "META-INF/MANIFEST.MF",
+				ResourceIndex.LOCATION, "a.txt"), ResourceIndex.read(jar(true,
+				null, "a.txt", ResourceIndex.LOCATION, "META-INF/MANIFEST.MF",
+				"META-INF/")));
+
+		// The end record is found before a comment.
+		assertEquals(4, ResourceIndex.read(
+				jar(true, "comment", "a.txt", "b.txt", "c.txt", "d.txt"))
+				.size());
+
+		// Compressed, so it can't be read in place.
+		assertNull(ResourceIndex.read(jar(false, null, "a.txt", "b.txt",
+				"c.txt", "d.txt")));
+
+		// No index at all.
+		File plain = File.createTempFile("plain", ".jar");
+		plain.deleteOnExit();
+
+		ZipOutputStream out = new ZipOutputStream(new FileOutputStream(plain));
+
+		try
+		{
+			put(out, "a.txt", "a".getBytes("UTF-8"), true);
+		}
+		finally
+		{
+			out.close();
+		}
+
+		assertNull(ResourceIndex.read(plain));
+	}
+
+	@Test
+	public void classpathIndexUsesResourceIndex() throws Exception
+	{
+		// The index is trusted over the central directory.
+		File jar = jar(true, null, "META-INF/", "META-INF/MANIFEST.MF",
+				ResourceIndex.LOCATION, "only/in/index.txt");
+
+		URLClassLoader loader = new URLClassLoader(new URL[] { jar.toURI()
+				.toURL() }, null);
+
+		ClasspathIndex index = ClasspathIndex.get(loader);
+
+		assertTrue(index.contains(NormalizedPath.of("only/in/index.txt")));
+		assertTrue(index.contains(NormalizedPath.of("only/in/")));
+		assertFalse(index.contains(NormalizedPath.of("real.txt")));
+
+		assertEquals(Arrays.asList("META-INF", "only"),
+				index.list(NormalizedPath.ROOT));
+	}
+
+	@Test
+	public void renamedEntryInvalidatesIndex() throws Exception
+	{
+		String[] names = { "META-INF/", "META-INF/MANIFEST.MF",
+				ResourceIndex.LOCATION, "real.txt" };
+
+		File jar = jar(true, null, names);
+
+		assertEquals(Arrays.asList(names), ResourceIndex.read(jar));
+
+		// Same number of entries, but one has another name.
+		long[] end = endRecord(jar);
+
+		write(jar, true, null, "renamed.txt", index(end[1], end[2], names));
+
+		assertEquals(end[0], endRecord(jar)[0]);
+		assertNull(ResourceIndex.read(jar));
+	}
+
+	@Test
+	public void staleIndexIsIgnored() throws Exception
+	{
+		// Too few entries for the jar.
+		File jar = jar(true, null, "only/in/index.txt");
+
+		assertNull(ResourceIndex.read(jar));
+
+		URLClassLoader loader = new URLClassLoader(new URL[] { jar.toURI()
+				.toURL() }, null);
+
+		ClasspathIndex index = ClasspathIndex.get(loader);
+
+		assertFalse(index.contains(NormalizedPath.of("only/in/index.txt")));
+		assertTrue(index.contains(NormalizedPath.of("real.txt")));
+	}
+}
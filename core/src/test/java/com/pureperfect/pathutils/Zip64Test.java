@@ -0,0 +1,186 @@
+/*
+ * Copyright [2013] PurePerfect.com Licensed under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except in compliance with the
+ * License.
+ * 
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pureperfect.pathutils;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.Test;
+
+/**
+ * Tests for ZIP64 archives and archives that do not fit in a single buffer.
+ * 
+ * @version 0.3
+ * @since 0.3
+ */
+public class Zip64Test
+{
+	private static final byte[] PREFIX = "#!/bin/sh\n".getBytes();
+
+	private static final byte[] NAME = "dir/big.txt".getBytes();
+
+	private static final byte[] CONTENT = "hello zip64".getBytes();
+
+	/**
+	 * A stored single entry archive that records its sizes, offsets and counts
+	 * only in ZIP64 structures, with a launcher script in front of it.
+	 */
+	private static byte[] zip64() throws Exception
+	{
+		CRC32 crc = new CRC32();
+		crc.update(CONTENT);
+
+		ByteBuffer buf = ByteBuffer.allocate(1024).order(
+				ByteOrder.LITTLE_ENDIAN);
+
+		// local header
+		buf.putInt(0x04034b50).putShort((short) 45).putShort((short) 0)
+				.putShort((short) 0).putInt(0).putInt((int) crc.getValue())
+				.putInt(-1).putInt(-1).putShort((short) NAME.length)
+				.putShort((short) 20).put(NAME).putShort((short) 1)
+				.putShort((short) 16).putLong(CONTENT.length)
+				.putLong(CONTENT.length).put(CONTENT);
+
+		int cenOffset = buf.position();
+
+		// central directory
+		buf.putInt(0x02014b50).putShort((short) 45).putShort((short) 45)
+				.putShort((short) 0).putShort((short) 0).putInt(0)
+				.putInt((int) crc.getValue()).putInt(-1).putInt(-1)
+				.putShort((short) NAME.length).putShort((short) 28)
+				.putShort((short) 0).putShort((short) 0).putShort((short) 0)
+				.putInt(0).putInt(-1).put(NAME).putShort((short) 1)
+				.putShort((short) 24).putLong(CONTENT.length)
+				.putLong(CONTENT.length).putLong(0);
+
+		int cenSize = buf.position() - cenOffset;
+
+		int zip64End = buf.position();
+
+		// zip64 end of central directory
+		buf.putInt(0x06064b50).putLong(44).putShort((short) 45)
+				.putShort((short) 45).putInt(0).putInt(0).putLong(1)
+				.putLong(1).putLong(cenSize).putLong(cenOffset);
+
+		// zip64 locator
+		buf.putInt(0x07064b50).putInt(0).putLong(zip64End).putInt(1);
+
+		// end of central directory
+		buf.putInt(0x06054b50).putShort((short) 0).putShort((short) 0)
+				.putShort((short) -1).putShort((short) -1).putInt(-1)
+				.putInt(-1).putShort((short) 0);
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+		out.write(PREFIX);
+		out.write(buf.array(), 0, buf.position());
+
+		return out.toByteArray();
+	}
+
+	@Test
+	public void zip64Records() throws Exception
+	{
+		ZipResolver resolver = new ZipResolver("dir/", zip64());
+
+		ZipIndex.Entry entry = resolver.getArchive().getIndex()
+				.get("dir/big.txt");
+
+		assertEquals(CONTENT.length, entry.size);
+		assertEquals(PREFIX.length, entry.localHeaderOffset);
+
+		assertArrayEquals(CONTENT,
+				PathUtils.toBytes(resolver.openStream("big.txt")));
+	}
+
+	@Test
+	public void moreThan65535Entries() throws Exception
+	{
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+		ZipOutputStream out = new ZipOutputStream(bytes);
+
+		for (int i = 0; i < 70000; ++i)
+		{
+			out.putNextEntry(new ZipEntry("e/" + i));
+			out.closeEntry();
+		}
+
+		out.putNextEntry(new ZipEntry("last.txt"));
+		out.write(CONTENT);
+		out.closeEntry();
+
+		out.close();
+
+		ZipResolver resolver = new ZipResolver("", bytes.toByteArray());
+
+		assertEquals(70001, resolver.getArchive().getIndex().size());
+
+		assertArrayEquals(CONTENT,
+				PathUtils.toBytes(resolver.openStream("last.txt")));
+	}
+
+	@Test
+	public void segmentedMapping() throws Exception
+	{
+		File jar = new File(PathUtils.osFriendly("src/test/resources/all.jar"));
+
+		ZipArchive segmented = new ZipArchive(SegmentedArchiveData.map(jar,
+				64));
+
+		ZipArchive whole = ZipArchive.map(jar);
+
+		assertEquals(whole.getIndex().size(), segmented.getIndex().size());
+
+		for (ZipIndex.Entry entry : whole.getIndex().entries())
+		{
+			assertArrayEquals(entry.name,
+					PathUtils.toBytes(whole.open(entry)),
+					PathUtils.toBytes(segmented.open(segmented.getIndex().get(
+							entry.name))));
+		}
+
+		assertArrayEquals(whole.getData().toByteArray(), segmented.getData()
+				.toByteArray());
+	}
+
+	@Test
+	public void largeStreamsAreSpooled() throws Exception
+	{
+		byte[] jar = PathUtils.toBytes(PathUtils.open("all.jar"));
+
+		ArchiveData spooled = ArchiveData.load(new ByteArrayInputStream(jar),
+				-1, 100);
+
+		assertTrue(spooled instanceof BufferArchiveData);
+		assertTrue(((BufferArchiveData) spooled).isMapped());
+		assertArrayEquals(jar, spooled.toByteArray());
+
+		ArchiveData heap = ArchiveData.load(new ByteArrayInputStream(jar));
+
+		assertTrue(!((BufferArchiveData) heap).isMapped());
+	}
+}
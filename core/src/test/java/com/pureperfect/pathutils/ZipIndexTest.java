@@ -0,0 +1,117 @@
+/*
+ * Copyright [2013] PurePerfect.com Licensed under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except in compliance with the
+ * License.
+ * 
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pureperfect.pathutils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import org.junit.Test;
+
+/**
+ * @version 0.3
+ * @since 0.3
+ */
+public class ZipIndexTest
+{
+	@Test
+	public void parse() throws Exception
+	{
+		ZipIndex index = ZipIndex.parse(PathUtils.toBytes(PathUtils
+				.open("all.jar")));
+
+		assertEquals(12, index.size());
+		assertEquals("META-INF/", index.entries().get(0).name);
+
+		ZipIndex.Entry entry = index
+				.get("test/internal/path/resolver/file/child/file4.txt");
+
+		assertNotNull(entry);
+		assertEquals(25, entry.size);
+		assertEquals(0x130c35cfL, entry.crc);
+
+		assertNull(index.get("test/internal/path/resolver/file/missing.txt"));
+	}
+
+	@Test
+	public void parseNotAnArchive()
+	{
+		assertSame(ZipIndex.EMPTY, ZipIndex.parse("not a zip".getBytes()));
+	}
+
+	@Test
+	public void resolveSharesIndex()
+	{
+		ZipResolver resolver = new ZipResolver("test/internal/path/resolver/",
+				PathUtils.open("all.jar"));
+
+		ArchiveEntry entry = (ArchiveEntry) resolver.resolve("file/file1.txt");
+
+		assertEquals("test/internal/path/resolver/file/file1.txt",
+				entry.getPath());
+
+		ArchiveEntry regex = (ArchiveEntry) resolver
+				.resolve("file/file[2].txt");
+
+		assertEquals("test/internal/path/resolver/file/file2.txt",
+				regex.getPath());
+
+		assertSame(entry.getArchive(), regex.getArchive());
+	}
+
+	@Test
+	public void matchingAgreesWithScan() throws Exception
+	{
+		ZipIndex index = ZipIndex.parse(PathUtils.toBytes(PathUtils
+				.open("all.jar")));
+
+		String[] expressions = { "test/internal/path/resolver/file/file[0-9]+.txt",
+				"test/internal/path/resolver/file/.*",
+				"test/internal/path/resolver/file/child/", "test/.*file4.txt",
+				"test/internal/path/resolver/file3.txt", ".*INF.*",
+				"test/internal/path/resolver/(file|missing)/child/file4.txt",
+				"test/internal/pathx?/.*", "missing/.*" };
+
+		for (String regex : expressions)
+		{
+			List<ZipIndex.Entry> expected = new ArrayList<ZipIndex.Entry>();
+
+			for (ZipIndex.Entry entry : index.entries())
+			{
+				if (Pattern.matches(regex, entry.name))
+					expected.add(entry);
+			}
+
+			assertEquals(regex, expected, index.matching(regex));
+		}
+	}
+
+	@Test
+	public void literalDirectory()
+	{
+		assertEquals("a/b/", ZipIndex.literalDirectory("a/b/c[0-9].txt"));
+		assertEquals("a/", ZipIndex.literalDirectory("a/b/*c"));
+		assertEquals("a/b/", ZipIndex.literalDirectory("a/b/c"));
+		assertEquals("", ZipIndex.literalDirectory("a/b/c|d"));
+		assertEquals("", ZipIndex.literalDirectory("a.b/c"));
+		assertEquals("", ZipIndex.literalDirectory(".*"));
+	}
+}
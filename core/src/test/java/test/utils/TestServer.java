@@ -0,0 +1,151 @@
+package test.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Enumeration;
+
+import javax.servlet.DispatcherType;
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.servlet.FilterHolder;
+import org.eclipse.jetty.webapp.WebAppContext;
+
+/**
+ * 
+ * @author J. Chris Folsom
+ * @since 0.3
+ * @version 0.3
+ */
+public class TestServer
+{
+	private Server server;
+
+	public TestServer(int port, String warpath) throws Exception
+	{
+		this(port, warpath, true);
+	}
+
+	public TestServer(int port, String warpath, boolean acceptRanges)
+			throws Exception
+	{
+		System.out.println("Starting test server on port: " + port);
+
+		server = new Server(port);
+
+		WebAppContext ctx = new WebAppContext("embeddedtestserver", warpath);
+
+		ctx.setContextPath("/");
+		ctx.setInitParameter(
+				"org.eclipse.jetty.servlet.Default.acceptRanges",
+				String.valueOf(acceptRanges));
+		File warFile = new File(warpath);
+
+		System.out.println("Context is: " + warFile.getAbsolutePath());
+
+		ctx.setWar(warFile.getAbsolutePath());
+
+		ctx.addFilter(new FilterHolder(new RangeFilter(acceptRanges)), "/*",
+				EnumSet.of(DispatcherType.REQUEST));
+
+		server.setHandler(ctx);
+
+		server.start();
+
+		System.out.println("Embedded test server started successfully.");
+	}
+
+	public void stop() throws Exception
+	{
+		if (this.server.isRunning())
+		{
+			System.out.println("Stopping embedded test server....");
+
+			this.server.stop();
+
+			System.out.println("Embedded test server stopped successfully.");
+		}
+	}
+
+	/**
+	 * Jetty ignores If-Range, and serves ranges even when it is told not to
+	 * accept them. Drop the range when ranges are not accepted, or when the
+	 * If-Range date is not the modification date of the file, so that the
+	 * whole file is sent like a server that supports it would.
+	 */
+	private static final class RangeFilter implements Filter
+	{
+		private final boolean acceptRanges;
+
+		RangeFilter(boolean acceptRanges)
+		{
+			this.acceptRanges = acceptRanges;
+		}
+
+		@Override
+		public void init(FilterConfig config)
+		{
+			// nothing to do
+		}
+
+		@Override
+		public void doFilter(ServletRequest request, ServletResponse response,
+				FilterChain chain) throws IOException, ServletException
+		{
+			HttpServletRequest http = (HttpServletRequest) request;
+
+			long ifRange = http.getDateHeader("If-Range");
+
+			String path = http.getServletContext().getRealPath(
+					http.getRequestURI());
+
+			if (!this.acceptRanges
+					|| (ifRange != -1 && path != null && new File(path)
+							.lastModified() / 1000 != ifRange / 1000))
+			{
+				request = new HttpServletRequestWrapper(http)
+				{
+					@Override
+					public String getHeader(String name)
+					{
+						return "Range".equalsIgnoreCase(name) ? null : super
+								.getHeader(name);
+					}
+
+					@Override
+					public Enumeration<String> getHeaders(String name)
+					{
+						if ("Range".equalsIgnoreCase(name))
+							return Collections.enumeration(Collections
+									.<String> emptyList());
+
+						return super.getHeaders(name);
+					}
+				};
+			}
+
+			chain.doFilter(request, response);
+		}
+
+		@Override
+		public void destroy()
+		{
+			// nothing to do
+		}
+	}
+
+	@Override
+	protected void finalize() throws Throwable
+	{
+		this.stop();
+	}
+}
\ No newline at end of file
@@ -0,0 +1,76 @@
+/*
+ * Copyright [2013] PurePerfect.com Licensed under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except in compliance with the
+ * License.
+ * 
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pureperfect.pathutils.maven;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+
+/**
+ * Writes a {@link com.pureperfect.pathutils.ResourceIndex} of every resource
+ * in the project's jar into the jar, so that the class path resolver can
+ * list the jar without reading its central directory. Runs after the jar is
+ * packaged.
+ * 
+ * @version 0.3
+ * @since 0.3
+ */
+@Mojo(name = "index", defaultPhase = LifecyclePhase.PACKAGE, threadSafe = true)
+public class IndexMojo extends AbstractMojo
+{
+	/**
+	 * The jar to index.
+	 */
+	@Parameter(defaultValue = "${project.build.directory}/${project.build.finalName}.jar", required = true)
+	private File jar;
+
+	/**
+	 * Leave the jar as it is.
+	 */
+	@Parameter(property = "pathutils.index.skip", defaultValue = "false")
+	private boolean skip;
+
+	@Override
+	public void execute() throws MojoExecutionException
+	{
+		if (this.skip)
+		{
+			this.getLog().info("Skipping the resource index");
+
+			return;
+		}
+
+		if (!this.jar.isFile())
+			throw new MojoExecutionException("No jar to index: " + this.jar);
+
+		try
+		{
+			int count = JarIndexer.index(this.jar);
+
+			this.getLog().info(
+					"Indexed " + count + " resources in " + this.jar);
+		}
+		catch (IOException e)
+		{
+			throw new MojoExecutionException("Could not index " + this.jar, e);
+		}
+	}
+}
@@ -0,0 +1,268 @@
+/*
+ * Copyright [2013] PurePerfect.com Licensed under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except in compliance with the
+ * License.
+ * 
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pureperfect.pathutils.maven;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+import com.pureperfect.pathutils.PathUtils;
+import com.pureperfect.pathutils.ResourceIndex;
+
+/**
+ * Rewrites a jar with a {@link ResourceIndex} of its entries. The index is
+ * stored uncompressed right after the manifest, which is stored uncompressed
+ * as well, so that both can be read from the start of the jar. The other
+ * entries keep their order and compression, and every entry keeps its extra
+ * field and comment.
+ * 
+ * @version 0.3
+ * @since 0.3
+ */
+final class JarIndexer
+{
+	static final String META_INF = "META-INF/";
+
+	static final String MANIFEST = "META-INF/MANIFEST.MF";
+
+	private static final int EOCD_SIGNATURE = 0x06054b50;
+
+	private static final int EOCD_LENGTH = 22;
+
+	private JarIndexer()
+	{
+		// static methods only
+	}
+
+	/**
+	 * Write an index into the jar, replacing any index it already has.
+	 * 
+	 * @param jar
+	 *            the jar
+	 * @return the number of resources in the index
+	 * @throws IOException
+	 *             if there is an error reading or writing the jar
+	 */
+	static int index(File jar) throws IOException
+	{
+		File indexed = new File(jar.getPath() + ".indexed");
+
+		int count;
+
+		ZipFile in = new ZipFile(jar);
+
+		try
+		{
+			List<ZipEntry> entries = new ArrayList<ZipEntry>();
+
+			List<String> names = new ArrayList<String>();
+
+			for (Enumeration<? extends ZipEntry> e = in.entries(); e
+					.hasMoreElements();)
+			{
+				ZipEntry entry = e.nextElement();
+
+				if (ResourceIndex.LOCATION.equals(entry.getName()))
+					continue;
+
+				entries.add(entry);
+				names.add(entry.getName());
+			}
+
+			names.add(ResourceIndex.LOCATION);
+
+			count = names.size();
+
+			/*
+			 * The index holds the size and offset of the central directory
+			 * that follows it. It is the same length whatever they are, so
+			 * they are taken from a first write of the jar.
+			 */
+			write(in, entries, index(names, 0, 0), indexed);
+
+			long[] directory = directory(indexed, in.getComment());
+
+			byte[] index = index(names, directory[0], directory[1]);
+
+			write(in, entries, index, indexed);
+
+			if (!Arrays.equals(directory, directory(indexed, in.getComment())))
+				throw new IOException("The central directory of " + jar
+						+ " moved when it was indexed");
+		}
+		catch (IOException e)
+		{
+			indexed.delete();
+
+			throw e;
+		}
+		finally
+		{
+			in.close();
+		}
+
+		Files.move(indexed.toPath(), jar.toPath(),
+				StandardCopyOption.REPLACE_EXISTING);
+
+		return count;
+	}
+
+	private static byte[] index(List<String> names, long directorySize,
+			long directoryOffset) throws IOException
+	{
+		ByteArrayOutputStream index = new ByteArrayOutputStream();
+
+		ResourceIndex.write(names, directorySize, directoryOffset, index);
+
+		return index.toByteArray();
+	}
+
+	private static void write(ZipFile in, List<ZipEntry> entries,
+			byte[] index, File indexed) throws IOException
+	{
+		ZipOutputStream out = new ZipOutputStream(new BufferedOutputStream(
+				new FileOutputStream(indexed)));
+
+		try
+		{
+			out.setComment(in.getComment());
+
+			ZipEntry metaInf = in.getEntry(META_INF);
+
+			if (metaInf != null)
+				copy(in, metaInf, out, true);
+
+			ZipEntry manifest = in.getEntry(MANIFEST);
+
+			if (manifest != null)
+				copy(in, manifest, out, true);
+
+			write(out, ResourceIndex.LOCATION, index, ZipEntry.STORED,
+					manifest == null ? System.currentTimeMillis() : manifest
+							.getTime(), null, null);
+
+			for (ZipEntry entry : entries)
+			{
+				if (!META_INF.equals(entry.getName())
+						&& !MANIFEST.equals(entry.getName()))
+					copy(in, entry, out, false);
+			}
+		}
+		finally
+		{
+			out.close();
+		}
+	}
+
+	/**
+	 * The size and offset of the central directory, from its end record, which
+	 * is followed only by the jar comment.
+	 */
+	private static long[] directory(File jar, String comment)
+			throws IOException
+	{
+		int commentLength = comment == null ? 0 : comment
+				.getBytes("UTF-8").length;
+
+		RandomAccessFile file = new RandomAccessFile(jar, "r");
+
+		try
+		{
+			byte[] end = new byte[EOCD_LENGTH];
+
+			file.seek(file.length() - EOCD_LENGTH - commentLength);
+			file.readFully(end);
+
+			ByteBuffer record = ByteBuffer.wrap(end).order(
+					ByteOrder.LITTLE_ENDIAN);
+
+			if (record.getInt(0) != EOCD_SIGNATURE)
+				throw new IOException("No end of central directory in: "
+						+ jar);
+
+			return new long[] { record.getInt(12) & 0xFFFFFFFFL,
+					record.getInt(16) & 0xFFFFFFFFL };
+		}
+		finally
+		{
+			file.close();
+		}
+	}
+
+	private static void copy(ZipFile in, ZipEntry entry, ZipOutputStream out,
+			boolean store) throws IOException
+	{
+		InputStream content = in.getInputStream(entry);
+
+		byte[] bytes;
+
+		try
+		{
+			bytes = PathUtils.toBytes(content, entry.getSize());
+		}
+		finally
+		{
+			content.close();
+		}
+
+		write(out, entry.getName(), bytes, store ? ZipEntry.STORED : entry
+				.getMethod(), entry.getTime(), entry.getExtra(), entry
+				.getComment());
+	}
+
+	private static void write(ZipOutputStream out, String name,
+			byte[] content, int method, long time, byte[] extra,
+			String comment) throws IOException
+	{
+		ZipEntry entry = new ZipEntry(name);
+
+		entry.setTime(time);
+		entry.setMethod(method);
+		entry.setExtra(extra);
+		entry.setComment(comment);
+
+		if (method == ZipEntry.STORED)
+		{
+			CRC32 crc = new CRC32();
+
+			crc.update(content);
+
+			entry.setSize(content.length);
+			entry.setCompressedSize(content.length);
+			entry.setCrc(crc.getValue());
+		}
+
+		out.putNextEntry(entry);
+		out.write(content);
+		out.closeEntry();
+	}
+}
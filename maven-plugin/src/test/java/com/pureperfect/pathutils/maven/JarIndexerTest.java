@@ -0,0 +1,176 @@
+/*
+ * Copyright [2013] PurePerfect.com Licensed under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except in compliance with the
+ * License.
+ * 
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pureperfect.pathutils.maven;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.jar.Attributes;
+import java.util.jar.JarFile;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import org.junit.Test;
+
+import com.pureperfect.pathutils.PathUtils;
+import com.pureperfect.pathutils.ResourceIndex;
+
+/**
+ * @version 0.3
+ * @since 0.3
+ */
+public class JarIndexerTest
+{
+	/**
+	 * An extra field with an unassigned header id and two bytes of data.
+	 */
+	private static final byte[] EXTRA = { 0x77, 0x77, 2, 0, 1, 2 };
+
+	private static File jar() throws Exception
+	{
+		File jar = File.createTempFile("indexer", ".jar");
+		jar.deleteOnExit();
+
+		Manifest manifest = new Manifest();
+		manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION,
+				"1.0");
+		manifest.getMainAttributes().put(Attributes.Name.CLASS_PATH,
+				"other.jar");
+
+		JarOutputStream out = new JarOutputStream(new FileOutputStream(jar),
+				manifest);
+
+		try
+		{
+			for (String name : new String[] { "a/", "a/b.txt", "c.txt" })
+			{
+				ZipEntry entry = new ZipEntry(name);
+
+				if (name.equals("a/b.txt"))
+				{
+					entry.setExtra(EXTRA);
+					entry.setComment("entry comment");
+				}
+
+				out.putNextEntry(entry);
+				out.write(name.getBytes("UTF-8"));
+				out.closeEntry();
+			}
+
+			out.setComment("jar comment");
+		}
+		finally
+		{
+			out.close();
+		}
+
+		return jar;
+	}
+
+	/**
+	 * The names and methods of the entries, in the order they are in the jar.
+	 */
+	private static List<String> entries(File jar) throws Exception
+	{
+		List<String> entries = new ArrayList<String>();
+
+		ZipInputStream in = new ZipInputStream(new FileInputStream(jar));
+
+		try
+		{
+			for (ZipEntry entry = in.getNextEntry(); entry != null; entry = in
+					.getNextEntry())
+			{
+				entries.add(entry.getName()
+						+ (entry.getMethod() == ZipEntry.STORED ? " stored"
+								: " deflated"));
+			}
+		}
+		finally
+		{
+			in.close();
+		}
+
+		return entries;
+	}
+
+	@Test
+	public void indexFollowsStoredManifest() throws Exception
+	{
+		File jar = jar();
+
+		assertEquals(5, JarIndexer.index(jar));
+
+		List<String> expected = Arrays.asList("META-INF/MANIFEST.MF stored",
+				ResourceIndex.LOCATION + " stored", "a/ deflated",
+				"a/b.txt deflated", "c.txt deflated");
+
+		assertEquals(expected, entries(jar));
+
+		JarFile indexed = new JarFile(jar);
+
+		try
+		{
+			assertEquals("other.jar", indexed.getManifest()
+					.getMainAttributes().getValue(Attributes.Name.CLASS_PATH));
+			assertEquals("a/b.txt", new String(PathUtils.toBytes(indexed
+					.getInputStream(indexed.getEntry("a/b.txt"))), "UTF-8"));
+			assertNull(indexed.getEntry("missing.txt"));
+
+			ZipEntry entry = indexed.getEntry("a/b.txt");
+
+			assertArrayEquals(EXTRA, entry.getExtra());
+			assertEquals("entry comment", entry.getComment());
+			assertEquals("jar comment", indexed.getComment());
+		}
+		finally
+		{
+			indexed.close();
+		}
+
+		// Indexing again replaces the index.
+		assertEquals(5, JarIndexer.index(jar));
+		assertEquals(expected, entries(jar));
+	}
+
+	@Test
+	public void libraryReadsIndex() throws Exception
+	{
+		File jar = jar();
+
+		JarIndexer.index(jar);
+
+		// Package private: only the library itself reads indexes.
+		Method read = ResourceIndex.class.getDeclaredMethod("read",
+				File.class);
+
+		read.setAccessible(true);
+
+		assertEquals(Arrays.asList("META-INF/MANIFEST.MF",
+				ResourceIndex.LOCATION, "a/", "a/b.txt", "c.txt"), read
+				.invoke(null, jar));
+	}
+}